@@ -2,7 +2,10 @@ package com.milsabores.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
@@ -41,4 +44,9 @@ public class Producto {
     private List<String> sabor;
 
     private String imagen;
+
+    // Marca de la última modificación; ventas la usa para refrescar su caché de precios por delta
+    @UpdateTimestamp
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    private LocalDateTime actualizadoEn;
 }
@@ -3,8 +3,11 @@ package com.milsabores.controller;
 import com.milsabores.dto.ActualizarUsuarioDTO;
 import com.milsabores.dto.LoginRequestDTO;
 import com.milsabores.dto.LoginResponseDTO;
+import com.milsabores.dto.RefreshTokenRequestDTO;
 import com.milsabores.dto.RegistroUsuarioDTO;
+import com.milsabores.dto.TokenResponseDTO;
 import com.milsabores.model.Usuario;
+import com.milsabores.service.TokenService;
 import com.milsabores.service.UsuarioService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,6 +19,9 @@ import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.Parameter;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -26,6 +32,7 @@ import org.springframework.web.bind.annotation.*;
 public class UsuariosController {
 
     private final UsuarioService usuarioService;
+    private final TokenService tokenService;
 
     @Operation(
             summary = "Registrar un nuevo usuario",
@@ -68,6 +75,43 @@ public class UsuariosController {
         return ResponseEntity.ok(usuarioService.login(req));
     }
 
+    @Operation(
+            summary = "Renovar tokens",
+            description = "Rota el refresh token: lo invalida y entrega un nuevo access token y un nuevo refresh token",
+            requestBody = @RequestBody(
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = RefreshTokenRequestDTO.class))
+            ),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Tokens renovados",
+                            content = @Content(schema = @Schema(implementation = TokenResponseDTO.class))
+                    ),
+                    @ApiResponse(responseCode = "401", description = "Refresh token inválido, expirado o reutilizado")
+            }
+    )
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenResponseDTO> refresh(@org.springframework.web.bind.annotation.RequestBody RefreshTokenRequestDTO req) {
+        return ResponseEntity.ok(tokenService.refrescar(req.getRefreshToken()));
+    }
+
+    @Operation(
+            summary = "Cerrar sesión",
+            description = "Revoca el refresh token enviado y el access token del header Authorization",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Sesión cerrada")
+            }
+    )
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @org.springframework.web.bind.annotation.RequestBody(required = false) RefreshTokenRequestDTO req) {
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        tokenService.logout(req != null ? req.getRefreshToken() : null, accessToken);
+        return ResponseEntity.noContent().build();
+    }
+
     @Operation(
             summary = "Obtener perfil del usuario",
             description = "Devuelve la información del perfil según email",
@@ -115,4 +159,44 @@ public class UsuariosController {
         return ResponseEntity.ok(perfil);
     }
 
+    @Operation(
+            summary = "Usuarios que están de cumpleaños hoy",
+            description = "Segmento paginado para campañas, resuelto con el índice de mes/día de nacimiento",
+            parameters = {
+                    @Parameter(name = "page", description = "Número de página (por defecto 0)"),
+                    @Parameter(name = "size", description = "Tamaño de la página (por defecto 50)")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Segmento obtenido")
+            }
+    )
+    @GetMapping("/segmentos/cumpleanos-hoy")
+    public ResponseEntity<Page<UsuarioService.PerfilUsuario>> cumpleanosHoy(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(usuarioService.cumpleanosHoy(PageRequest.of(page, size, Sort.by("id"))));
+    }
+
+    @Operation(
+            summary = "Usuarios por rango de edad",
+            description = "Segmento paginado por edad (ej: min=50 para todos los mayores de 50), resuelto con el índice de fecha de nacimiento",
+            parameters = {
+                    @Parameter(name = "min", description = "Edad mínima (inclusive)", required = true),
+                    @Parameter(name = "max", description = "Edad máxima (inclusive, opcional)"),
+                    @Parameter(name = "page", description = "Número de página (por defecto 0)"),
+                    @Parameter(name = "size", description = "Tamaño de la página (por defecto 50)")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Segmento obtenido")
+            }
+    )
+    @GetMapping("/segmentos/edad")
+    public ResponseEntity<Page<UsuarioService.PerfilUsuario>> porEdad(
+            @RequestParam int min,
+            @RequestParam(required = false) Integer max,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(usuarioService.porRangoEdad(min, max, PageRequest.of(page, size, Sort.by("id"))));
+    }
+
 }
@@ -11,4 +11,5 @@ public class LoginResponseDTO {
     private boolean flag50;
     private boolean flag10;
     private boolean flagCumple;
+    private String refreshToken;
 }
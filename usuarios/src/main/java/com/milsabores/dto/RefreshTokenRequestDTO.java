@@ -0,0 +1,9 @@
+package com.milsabores.dto;
+
+import lombok.Data;
+
+//refresh token para rotar o cerrar sesion
+@Data
+public class RefreshTokenRequestDTO {
+    private String refreshToken;
+}
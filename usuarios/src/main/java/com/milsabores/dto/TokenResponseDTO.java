@@ -0,0 +1,12 @@
+package com.milsabores.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+//nuevo par de tokens al rotar el refresh token
+@Data
+@AllArgsConstructor
+public class TokenResponseDTO {
+    private String token;
+    private String refreshToken;
+}
@@ -0,0 +1,55 @@
+package com.milsabores.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+//refresh token rotativo; solo se guarda el hash sha-256, nunca el token en claro
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_email", columnList = "email")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", unique = true, nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false, length = 100)
+    private String email;
+
+    //access token emitido junto a este refresh, para poder revocarlo si se detecta reuso
+    @Column(name = "access_jti", length = 36)
+    private String accessJti;
+
+    @Column(name = "access_expira_en")
+    private Instant accessExpiraEn;
+
+    @Column(name = "expira_en", nullable = false)
+    private Instant expiraEn;
+
+    @Column(name = "revocado_en")
+    private Instant revocadoEn;
+
+    //por que se revoco: solo presentar un token ROTADO cuenta como reuso
+    @Enumerated(EnumType.STRING)
+    @Column(name = "motivo_revocacion", length = 20)
+    private MotivoRevocacion motivoRevocacion;
+
+    public enum MotivoRevocacion {
+        //se uso para emitir el siguiente par de tokens
+        ROTADO,
+        //el usuario cerro sesion con este token
+        LOGOUT,
+        //se revoco toda la sesion del usuario tras detectar reuso
+        SESION_REVOCADA
+    }
+}
@@ -0,0 +1,31 @@
+package com.milsabores.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/*log de access tokens revocados (por jti). El id es creciente, asi usuarios y ventas
+* lo leen incrementalmente (id > ultimo visto) para armar su lista en memoria*/
+@Entity
+@Table(name = "tokens_revocados")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenRevocado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false, length = 36)
+    private String jti;
+
+    //cuando vence el access token; despues de eso ya no hace falta recordarlo
+    @Column(name = "expira_en", nullable = false)
+    private Instant expiraEn;
+
+    @Column(name = "revocado_en", nullable = false)
+    private Instant revocadoEn;
+}
@@ -6,7 +6,10 @@ import lombok.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "usuarios")
+@Table(name = "usuarios", indexes = {
+        @Index(name = "idx_usuarios_mes_dia_nacimiento", columnList = "mes_dia_nacimiento"),
+        @Index(name = "idx_usuarios_fecha_nacimiento", columnList = "fecha_nacimiento")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,8 +28,22 @@ public class Usuario {
 
     private LocalDate fechaNacimiento;
 
+    //mes*100 + dia (ej: 1231) derivado de fechaNacimiento, indexado para segmentar cumpleaños
+    @Column(name = "mes_dia_nacimiento")
+    private Integer mesDiaNacimiento;
+
     @Column(nullable = false)
     private String password;
 
     private String codigoPromo;
+
+    public static Integer mesDia(LocalDate fecha) {
+        return fecha == null ? null : fecha.getMonthValue() * 100 + fecha.getDayOfMonth();
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void calcularMesDiaNacimiento() {
+        mesDiaNacimiento = mesDia(fechaNacimiento);
+    }
 }
@@ -0,0 +1,41 @@
+package com.milsabores.repository;
+
+import com.milsabores.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    List<RefreshToken> findByEmailAndRevocadoEnIsNull(String email);
+
+    //rotacion atomica: solo una transaccion puede marcar el token como usado
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revocadoEn = :ahora, " +
+           "r.motivoRevocacion = com.milsabores.model.RefreshToken.MotivoRevocacion.ROTADO " +
+           "WHERE r.tokenHash = :hash AND r.revocadoEn IS NULL")
+    int marcarUsado(@Param("hash") String tokenHash, @Param("ahora") Instant ahora);
+
+    //logout condicionado: no pisa el motivo si el token ya se roto en paralelo
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revocadoEn = :ahora, r.motivoRevocacion = :motivo " +
+           "WHERE r.tokenHash = :hash AND r.revocadoEn IS NULL")
+    int revocar(@Param("hash") String tokenHash, @Param("ahora") Instant ahora,
+                @Param("motivo") RefreshToken.MotivoRevocacion motivo);
+
+    //motivo confirmado en la base, no el de la entidad leida antes del UPDATE
+    @Query("SELECT r.motivoRevocacion FROM RefreshToken r WHERE r.tokenHash = :hash")
+    Optional<RefreshToken.MotivoRevocacion> findMotivoRevocacion(@Param("hash") String tokenHash);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.expiraEn < :limite")
+    int eliminarVencidos(@Param("limite") Instant limite);
+}
@@ -0,0 +1,21 @@
+package com.milsabores.repository;
+
+import com.milsabores.model.TokenRevocado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface TokenRevocadoRepository extends JpaRepository<TokenRevocado, Long> {
+    //lectura incremental del log de revocaciones
+    List<TokenRevocado> findTop500ByIdGreaterThanAndExpiraEnAfterOrderByIdAsc(Long id, Instant ahora);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevocado t WHERE t.expiraEn < :limite")
+    int eliminarVencidos(@Param("limite") Instant limite);
+}
@@ -1,11 +1,31 @@
 package com.milsabores.repository;
 
 import com.milsabores.model.Usuario;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByEmail(String email);
+
+    //usa idx_usuarios_mes_dia_nacimiento
+    Page<Usuario> findByMesDiaNacimiento(Integer mesDia, Pageable pageable);
+
+    //usa idx_usuarios_fecha_nacimiento
+    Page<Usuario> findByFechaNacimientoBetween(LocalDate desde, LocalDate hasta, Pageable pageable);
+
+    //rellena la columna derivada en filas creadas antes de que existiera
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE usuarios SET mes_dia_nacimiento = " +
+            "CAST(EXTRACT(MONTH FROM fecha_nacimiento) * 100 + EXTRACT(DAY FROM fecha_nacimiento) AS INTEGER) " +
+            "WHERE mes_dia_nacimiento IS NULL AND fecha_nacimiento IS NOT NULL", nativeQuery = true)
+    int rellenarMesDiaNacimiento();
 }
 
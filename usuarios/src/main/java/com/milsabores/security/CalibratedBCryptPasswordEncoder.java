@@ -0,0 +1,91 @@
+package com.milsabores.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*BCrypt con costo calibrado al arrancar segun la latencia objetivo.
+* El costo queda guardado dentro del propio hash ($2a$12$...), asi que
+* upgradeEncoding pide rehash cuando el costo guardado no coincide con el
+* calibrado (sube o baja al cambiar de tipo de instancia)*/
+@Slf4j
+public class CalibratedBCryptPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}$");
+    private static final String SAMPLE_PASSWORD = "calibracion-milsabores";
+    private static final int SAMPLES = 3;
+
+    private final int strength;
+    private final BCryptPasswordEncoder delegate;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        this.strength = strength;
+        this.delegate = new BCryptPasswordEncoder(strength);
+    }
+
+    /*mide el hash al costo minimo y extrapola: cada punto de costo duplica el tiempo.
+    * Luego confirma con una medicion real y baja un punto si se pasa del presupuesto*/
+    public static CalibratedBCryptPasswordEncoder calibrate(long targetMs, int minStrength, int maxStrength) {
+        long baseNanos = medianHashNanos(minStrength);
+        int strength = minStrength;
+        long estimated = baseNanos;
+        long targetNanos = targetMs * 1_000_000L;
+
+        while (strength < maxStrength && estimated * 2 <= targetNanos) {
+            estimated *= 2;
+            strength++;
+        }
+
+        if (strength > minStrength && medianHashNanos(strength) > targetNanos) {
+            strength--;
+        }
+
+        log.info("BCrypt calibrado: costo {} (objetivo {} ms, costo {} = {} ms)",
+                strength, targetMs, minStrength, baseNanos / 1_000_000);
+        return new CalibratedBCryptPasswordEncoder(strength);
+    }
+
+    private static long medianHashNanos(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode(SAMPLE_PASSWORD); // calentamiento
+
+        long[] tiempos = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long inicio = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            tiempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tiempos);
+        return tiempos[SAMPLES / 2];
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        Matcher m = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!m.matches()) {
+            return true;
+        }
+        return Integer.parseInt(m.group(1)) != strength;
+    }
+}
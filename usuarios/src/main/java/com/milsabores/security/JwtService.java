@@ -1,5 +1,6 @@
 package com.milsabores.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -8,7 +9,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
+import java.util.UUID;
 
 @Service
 public class JwtService {
@@ -25,25 +28,41 @@ public class JwtService {
     }
 
     public String generateToken(String username) {
-        return Jwts.builder()
+        return generateAccessToken(username).token();
+    }
+
+    //cada access token lleva un jti unico para poder revocarlo
+    public AccessToken generateAccessToken(String username) {
+        String jti = UUID.randomUUID().toString();
+        Instant expiraEn = Instant.now().plusMillis(expirationMs);
+
+        String token = Jwts.builder()
+                .setId(jti)
                 .setSubject(username)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
+                .setExpiration(Date.from(expiraEn))
                 .signWith(getSignKey(), SignatureAlgorithm.HS256)
                 .compact();
+
+        return new AccessToken(token, jti, expiraEn);
     }
 
-    public String extractUsername(String token) {
+    public Claims extractClaims(String token) {
         return Jwts.parserBuilder()
                 .setSigningKey(getSignKey())
                 .build()
                 .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+                .getBody();
+    }
+
+    public String extractUsername(String token) {
+        return extractClaims(token).getSubject();
     }
 
     public boolean isTokenValid(String token, String username) {
         String sub = extractUsername(token);
         return sub != null && sub.equals(username);
     }
+
+    public record AccessToken(String token, String jti, Instant expiraEn) {}
 }
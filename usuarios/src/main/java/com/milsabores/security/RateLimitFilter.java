@@ -0,0 +1,174 @@
+package com.milsabores.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/*limita /usuarios/login y /usuarios/registrar por IP y por email antes de llegar
+* a bcrypt, para que una rafaga de credential stuffing no acapare las CPUs*/
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RateLimiter porIp;
+    private final RateLimiter porEmail;
+
+    public RateLimitFilter(@Value("${app.rate-limit.ip.capacity:20}") int ipCapacity,
+                           @Value("${app.rate-limit.ip.period-ms:60000}") long ipPeriodMs,
+                           @Value("${app.rate-limit.email.capacity:5}") int emailCapacity,
+                           @Value("${app.rate-limit.email.period-ms:60000}") long emailPeriodMs,
+                           @Value("${app.rate-limit.max-keys:100000}") int maxKeys) {
+        this.porIp = new RateLimiter(ipCapacity, ipPeriodMs, 64, maxKeys);
+        this.porEmail = new RateLimiter(emailCapacity, emailPeriodMs, 64, maxKeys);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !"POST".equals(request.getMethod())
+                || !("/usuarios/login".equals(path) || "/usuarios/registrar".equals(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long espera = porIp.tryAcquire(request.getRemoteAddr());
+        if (espera > 0) {
+            rechazar(response, espera);
+            return;
+        }
+
+        //un body mas grande que el tope se rechaza entero: truncarlo le entregaria JSON roto al controller
+        if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+            demasiadoGrande(response);
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            demasiadoGrande(response);
+            return;
+        }
+
+        CachedBodyRequest cached = new CachedBodyRequest(request, body);
+        String email = extraerEmail(cached.body);
+        if (email != null) {
+            espera = porEmail.tryAcquire(email);
+            if (espera > 0) {
+                rechazar(response, espera);
+                return;
+            }
+        }
+
+        filterChain.doFilter(cached, response);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.evict-ms:60000}")
+    public void evictIdle() {
+        porIp.evictIdle();
+        porEmail.evictIdle();
+    }
+
+    private String extraerEmail(byte[] body) {
+        if (body.length == 0) return null;
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void rechazar(HttpServletResponse response, long esperaNanos) throws IOException {
+        long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(esperaNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(segundos));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Demasiados intentos, reintente en " + segundos + " segundos");
+    }
+
+    private void demasiadoGrande(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("El cuerpo del pedido supera " + MAX_BODY_BYTES + " bytes");
+    }
+
+    //el body se lee una vez (para sacar el email) y se vuelve a entregar al controller
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                //el body ya esta completo en memoria: se avisa de inmediato que hay datos y que terminaron
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.milsabores.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*limitador en memoria con GCRA (equivalente a un token bucket: rafaga de "capacidad"
+* pedidos y luego uno cada "intervalo"). Por clave se guarda un solo long, el TAT
+* (tiempo teorico de llegada). Las claves se reparten en franjas con su propio lock,
+* asi pedidos de IPs/emails distintos casi nunca compiten por el mismo monitor.
+* Una clave con TAT <= ahora equivale a un bucket lleno y se puede borrar sin
+* cambiar el comportamiento; ademas cada franja tiene tope de claves (LRU)*/
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Stripe[] stripes;
+
+    public RateLimiter(int capacity, long periodMillis, int stripeCount, int maxKeys) {
+        this.intervalNanos = periodMillis * 1_000_000L / capacity;
+        this.burstNanos = intervalNanos * (capacity - 1);
+        int n = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        int maxPorFranja = Math.max(16, maxKeys / n);
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Stripe(maxPorFranja);
+        }
+    }
+
+    //devuelve 0 si se permite el pedido, o los nanos que hay que esperar
+    public long tryAcquire(String key) {
+        Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            long[] tat = stripe.get(key);
+            long actual = tat == null ? now : Math.max(tat[0], now);
+            long espera = actual - now - burstNanos;
+            if (espera > 0) {
+                return espera;
+            }
+            if (tat == null) {
+                stripe.put(key, new long[]{actual + intervalNanos});
+            } else {
+                tat[0] = actual + intervalNanos;
+            }
+            return 0;
+        }
+    }
+
+    //borra claves cuyo bucket ya se relleno por completo
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.values().removeIf(tat -> tat[0] - now <= 0);
+            }
+        }
+    }
+
+    public int size() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.size();
+            }
+        }
+        return total;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, long[]> {
+        private final int maxKeys;
+
+        Stripe(int maxKeys) {
+            super(64, 0.75f, true);
+            this.maxKeys = maxKeys;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+            return size() > maxKeys;
+        }
+    }
+}
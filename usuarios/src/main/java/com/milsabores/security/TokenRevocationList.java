@@ -0,0 +1,88 @@
+package com.milsabores.security;
+
+import com.milsabores.model.TokenRevocado;
+import com.milsabores.repository.TokenRevocadoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*lista de access tokens revocados en memoria.
+* Chequeo por request sin ir a la BD: el filtro de Bloom descarta casi todos los tokens
+* validos en tiempo constante y solo los "puede que este" se confirman en el mapa exacto.
+* Se alimenta leyendo el log tokens_revocados de forma incremental (id > ultimo visto)*/
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationList {
+
+    private static final int LOTE = 500;
+    //se relee un pequeño tramo hacia atras por si un insert con id menor se confirmo tarde
+    private static final long SOLAPE = 50;
+
+    private final TokenRevocadoRepository tokenRevocadoRepository;
+
+    @Value("${app.jwt.revocation.expected-size:10000}")
+    private int expectedSize;
+
+    //jti -> vencimiento del access token (epoch millis)
+    private final Map<String, Long> revocados = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+    private volatile long ultimoId;
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) return false;
+        BloomFilter actual = bloom;
+        if (actual != null && !actual.mightContain(jti)) {
+            return false;
+        }
+        return revocados.containsKey(jti);
+    }
+
+    //registro local inmediato; los demas nodos lo ven en la siguiente lectura del log
+    public void register(String jti, Instant expiraEn) {
+        revocados.put(jti, expiraEn.toEpochMilli());
+        BloomFilter actual = bloom;
+        if (actual != null) {
+            actual.add(jti);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.refresh-ms:5000}")
+    public void refresh() {
+        if (bloom == null) {
+            bloom = new BloomFilter(expectedSize, 0.01);
+        }
+        long desde = Math.max(0, ultimoId - SOLAPE);
+        while (true) {
+            List<TokenRevocado> lote = tokenRevocadoRepository
+                    .findTop500ByIdGreaterThanAndExpiraEnAfterOrderByIdAsc(desde, Instant.now());
+            for (TokenRevocado t : lote) {
+                register(t.getJti(), t.getExpiraEn());
+                desde = t.getId();
+            }
+            ultimoId = Math.max(ultimoId, desde);
+            if (lote.size() < LOTE) break;
+        }
+    }
+
+    //saca los vencidos y reconstruye el filtro, que no admite borrado
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.compact-ms:600000}")
+    public void compact() {
+        long ahora = System.currentTimeMillis();
+        revocados.values().removeIf(exp -> exp < ahora);
+
+        BloomFilter nuevo = new BloomFilter(Math.max(expectedSize, revocados.size() * 2), 0.01);
+        revocados.keySet().forEach(nuevo::add);
+        bloom = nuevo;
+        //lo registrado mientras se reconstruia queda en el mapa; se agrega tambien al filtro nuevo
+        revocados.keySet().forEach(nuevo::add);
+        log.debug("Lista de revocación compactada: {} tokens", revocados.size());
+    }
+}
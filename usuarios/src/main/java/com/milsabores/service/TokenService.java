@@ -0,0 +1,155 @@
+package com.milsabores.service;
+
+import com.milsabores.dto.TokenResponseDTO;
+import com.milsabores.model.RefreshToken;
+import com.milsabores.model.TokenRevocado;
+import com.milsabores.repository.RefreshTokenRepository;
+import com.milsabores.repository.TokenRevocadoRepository;
+import com.milsabores.security.JwtService;
+import com.milsabores.security.TokenRevocationList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/*access tokens cortos + refresh tokens rotativos.
+* Cada refresh se usa una sola vez; si llega uno ya rotado se asume robo y se
+* revoca toda la sesion del usuario, incluidos los access tokens vigentes.
+* Un refresh cerrado con logout (pestaña vieja, reintento) solo recibe 401*/
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenService {
+
+    private final JwtService jwtService;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocadoRepository tokenRevocadoRepository;
+    private final TokenRevocationList revocationList;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${app.jwt.refresh-expiration-ms}")
+    private long refreshExpirationMs;
+
+    @Transactional
+    public TokenResponseDTO emitir(String email) {
+        JwtService.AccessToken access = jwtService.generateAccessToken(email);
+        String refresh = nuevoRefreshToken();
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(refresh))
+                .email(email)
+                .accessJti(access.jti())
+                .accessExpiraEn(access.expiraEn())
+                .expiraEn(Instant.now().plusMillis(refreshExpirationMs))
+                .build());
+
+        return new TokenResponseDTO(access.token(), refresh);
+    }
+
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public TokenResponseDTO refrescar(String refreshToken) {
+        RefreshToken actual = buscar(refreshToken);
+        Instant ahora = Instant.now();
+
+        if (actual.getRevocadoEn() == null && actual.getExpiraEn().isBefore(ahora)) {
+            throw new BadCredentialsException("Refresh token expirado");
+        }
+        //el UPDATE condicionado decide: si dos refresh llegan juntos con el mismo token
+        //solo uno cambia la fila y el otro cuenta como reuso
+        if (refreshTokenRepository.marcarUsado(actual.getTokenHash(), ahora) != 1) {
+            RefreshToken.MotivoRevocacion motivo = refreshTokenRepository
+                    .findMotivoRevocacion(actual.getTokenHash()).orElse(null);
+            //filas anteriores al motivo (null) se tratan como rotadas, igual que antes
+            if (motivo == RefreshToken.MotivoRevocacion.LOGOUT || motivo == RefreshToken.MotivoRevocacion.SESION_REVOCADA) {
+                log.debug("Refresh token ya revocado ({}) para {}", motivo, actual.getEmail());
+                throw new BadCredentialsException("Refresh token revocado");
+            }
+            log.warn("Reuso de refresh token detectado para {}; se revoca la sesión", actual.getEmail());
+            revocarSesion(actual.getEmail());
+            throw new BadCredentialsException("Refresh token inválido");
+        }
+        return emitir(actual.getEmail());
+    }
+
+    @Transactional
+    public void logout(String refreshToken, String accessToken) {
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenRepository.revocar(hash(refreshToken), Instant.now(), RefreshToken.MotivoRevocacion.LOGOUT);
+        }
+        if (accessToken != null) {
+            try {
+                Claims claims = jwtService.extractClaims(accessToken);
+                if (claims.getId() != null) {
+                    revocarAccess(claims.getId(), claims.getExpiration().toInstant());
+                }
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Access token inválido en logout: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void revocarSesion(String email) {
+        Instant ahora = Instant.now();
+        for (RefreshToken r : refreshTokenRepository.findByEmailAndRevocadoEnIsNull(email)) {
+            r.setRevocadoEn(ahora);
+            r.setMotivoRevocacion(RefreshToken.MotivoRevocacion.SESION_REVOCADA);
+            if (r.getAccessJti() != null && r.getAccessExpiraEn() != null && r.getAccessExpiraEn().isAfter(ahora)) {
+                revocarAccess(r.getAccessJti(), r.getAccessExpiraEn());
+            }
+        }
+    }
+
+    private void revocarAccess(String jti, Instant expiraEn) {
+        tokenRevocadoRepository.save(TokenRevocado.builder()
+                .jti(jti)
+                .expiraEn(expiraEn)
+                .revocadoEn(Instant.now())
+                .build());
+        revocationList.register(jti, expiraEn);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.cleanup-ms:3600000}")
+    public void limpiarVencidos() {
+        Instant ahora = Instant.now();
+        int refresh = refreshTokenRepository.eliminarVencidos(ahora);
+        int revocados = tokenRevocadoRepository.eliminarVencidos(ahora);
+        log.debug("Limpieza de tokens: {} refresh y {} revocaciones vencidas", refresh, revocados);
+    }
+
+    private RefreshToken buscar(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new BadCredentialsException("Refresh token requerido");
+        }
+        return refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> new BadCredentialsException("Refresh token inválido"));
+    }
+
+    private String nuevoRefreshToken() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -4,47 +4,54 @@ import com.milsabores.dto.ActualizarUsuarioDTO;
 import com.milsabores.dto.LoginRequestDTO;
 import com.milsabores.dto.LoginResponseDTO;
 import com.milsabores.dto.RegistroUsuarioDTO;
+import com.milsabores.dto.TokenResponseDTO;
 import com.milsabores.model.Usuario;
 import com.milsabores.repository.UsuarioRepository;
-import com.milsabores.security.JwtService;
 
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
 @Data
 @RequiredArgsConstructor
+@Slf4j
 public class UsuarioService {
     private final UsuarioRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
-    private final JwtService jwtService;
+    private final TokenService tokenService;
+
+    /*hash de referencia para comparar cuando el email no existe,
+    * asi el login tarda lo mismo exista o no el usuario*/
+    private volatile String dummyHash;
 
     /*
     public UsuarioService(UsuarioRepository userRepository,
                           PasswordEncoder passwordEncoder,
-                          AuthenticationManager authenticationManager,
-                          JwtService jwtService) {
+                          TokenService tokenService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.authenticationManager = authenticationManager;
-        this.jwtService = jwtService;
+        this.tokenService = tokenService;
     }*/
 
     public void register(RegistroUsuarioDTO req) {
-        if (userRepository.findByEmail(req.getEmail()).isPresent()) {
-            throw new IllegalArgumentException("Email ya registrado");
-        }
-
         LocalDate fecha = null;
         try {
             fecha = LocalDate.parse(req.getFechaNacimiento());
@@ -61,28 +68,65 @@ public class UsuarioService {
                 .codigoPromo(req.getCodigoPromo())
                 .build();
 
-        userRepository.save(u);
+        //sin consulta previa: el unique de email decide y se traduce a 409
+        try {
+            userRepository.saveAndFlush(u);
+        } catch (DataIntegrityViolationException ex) {
+            if (esEmailDuplicado(ex)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Email ya registrado");
+            }
+            throw ex;
+        }
     }
 
+    /*solo un unique_violation (23505) sobre la columna email es un email repetido;
+    * cualquier otra restriccion (largo, not null) sigue siendo un error de datos*/
+    private static boolean esEmailDuplicado(DataIntegrityViolationException ex) {
+        if (!(ex.getMostSpecificCause() instanceof SQLException sql) || !"23505".equals(sql.getSQLState())) {
+            return false;
+        }
+        String mensaje = sql.getMessage();
+        return mensaje != null && mensaje.toLowerCase(Locale.ROOT).contains("email");
+    }
+
+    /*login en una sola consulta: se carga el usuario una vez y con esa misma
+    * entidad se verifica la clave, se arma el token y los flags del perfil*/
     public LoginResponseDTO login(LoginRequestDTO req) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(req.getEmail(), req.getPassword())
-        );
+        Usuario u = userRepository.findByEmail(req.getEmail()).orElse(null);
 
-        Usuario u = userRepository.findByEmail(req.getEmail())
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+        if (u == null) {
+            passwordEncoder.matches(req.getPassword(), getDummyHash());
+            throw new BadCredentialsException("Credenciales incorrectas");
+        }
+        if (!passwordEncoder.matches(req.getPassword(), u.getPassword())) {
+            throw new BadCredentialsException("Credenciales incorrectas");
+        }
 
-        String token = jwtService.generateToken(u.getEmail());
+        //rehash transparente si el costo guardado no es el calibrado (único punto de rehash)
+        if (passwordEncoder.upgradeEncoding(u.getPassword())) {
+            u.setPassword(passwordEncoder.encode(req.getPassword()));
+            userRepository.save(u);
+        }
+
+        TokenResponseDTO tokens = tokenService.emitir(u.getEmail());
         PerfilUsuario perfil = buildProfile(u);
 
         return new LoginResponseDTO(
-                token,
+                tokens.getToken(),
                 perfil.flag50(),
                 perfil.flag10(),
-                perfil.flagCumple()
+                perfil.flagCumple(),
+                tokens.getRefreshToken()
         );
     }
 
+    private String getDummyHash() {
+        if (dummyHash == null) {
+            dummyHash = passwordEncoder.encode("usuario-inexistente");
+        }
+        return dummyHash;
+    }
+
     public Optional<Usuario> findById(Long id) {
         return userRepository.findById(id);
     }
@@ -110,6 +154,30 @@ public class UsuarioService {
         return userRepository.save(u);
     }
 
+    //segmentos para campañas: leen solo las filas que calzan via indice
+    public Page<PerfilUsuario> cumpleanosHoy(Pageable pageable) {
+        return userRepository.findByMesDiaNacimiento(Usuario.mesDia(LocalDate.now()), pageable)
+                .map(this::buildProfile);
+    }
+
+    public Page<PerfilUsuario> porRangoEdad(int edadMin, Integer edadMax, Pageable pageable) {
+        LocalDate hoy = LocalDate.now();
+        //edad >= edadMin  <=>  nacio a mas tardar hoy - edadMin años
+        LocalDate hasta = hoy.minusYears(edadMin);
+        //edad <= edadMax  <=>  nacio despues de hoy - (edadMax + 1) años
+        LocalDate desde = edadMax == null ? LocalDate.of(1900, 1, 1) : hoy.minusYears(edadMax + 1L).plusDays(1);
+        return userRepository.findByFechaNacimientoBetween(desde, hasta, pageable)
+                .map(this::buildProfile);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rellenarMesDiaNacimiento() {
+        int filas = userRepository.rellenarMesDiaNacimiento();
+        if (filas > 0) {
+            log.info("mes_dia_nacimiento rellenado en {} usuarios", filas);
+        }
+    }
+
     public PerfilUsuario buildProfile(Usuario u) {
         LocalDate hoy = LocalDate.now();
         LocalDate nacimiento = u.getFechaNacimiento();
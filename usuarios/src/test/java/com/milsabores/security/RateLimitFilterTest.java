@@ -0,0 +1,83 @@
+package com.milsabores.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(20, 60_000, 2, 60_000, 1000);
+
+    @Test
+    void entregaElBodyIntactoAlController() throws Exception {
+        String json = "{\"email\":\"ana@duoc.cl\",\"password\":\"clave123\"}";
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = ejecutar(login(json), chain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        HttpServletRequest recibido = (HttpServletRequest) chain.getRequest();
+        assertThat(new String(recibido.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(json);
+    }
+
+    @Test
+    void limitaPorEmailConRetryAfter() throws Exception {
+        String json = "{\"email\":\"Ana@Duoc.cl\",\"password\":\"x\"}";
+        ejecutar(login(json), new MockFilterChain());
+        ejecutar(login(json.replace("Ana", "ana")), new MockFilterChain());
+
+        MockHttpServletResponse response = ejecutar(login(json), new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("30");
+    }
+
+    @Test
+    void rechazaBodiesMasGrandesQueElTopeCon413() throws Exception {
+        String json = "{\"email\":\"ana@duoc.cl\",\"nombre\":\"" + "x".repeat(9000) + "\"}";
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = ejecutar(login(json), chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void rechazaBodiesGrandesSinContentLength() throws Exception {
+        //con transfer-encoding chunked no hay Content-Length: el tope se aplica al leer
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/usuarios/registrar") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setServletPath("/usuarios/registrar");
+        chunked.setContent(("{\"nombre\":\"" + "x".repeat(9000) + "\"}").getBytes(StandardCharsets.UTF_8));
+
+        MockHttpServletResponse response = ejecutar(chunked, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(413);
+    }
+
+    private MockHttpServletResponse ejecutar(MockHttpServletRequest request, MockFilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest login(String json) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/usuarios/login");
+        request.setServletPath("/usuarios/login");
+        request.setRemoteAddr("192.168.0.10");
+        request.setContentType("application/json");
+        request.setContent(json.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
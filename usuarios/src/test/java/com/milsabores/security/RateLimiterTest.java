@@ -0,0 +1,103 @@
+package com.milsabores.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class RateLimiterTest {
+
+    @Test
+    void permiteLaRafagaYLuegoPideEsperar() {
+        RateLimiter limiter = new RateLimiter(5, 60_000, 64, 1000);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("1.2.3.4")).isZero();
+        }
+        long espera = limiter.tryAcquire("1.2.3.4");
+
+        //con 5 pedidos por minuto el siguiente cupo llega en ~12 s
+        assertThat(espera).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(12));
+        assertThat(limiter.tryAcquire("5.6.7.8")).isZero();
+    }
+
+    @Test
+    void elTopeDeClavesAcotaLaMemoria() {
+        RateLimiter limiter = new RateLimiter(5, 60_000, 16, 1000);
+
+        for (int i = 0; i < 100_000; i++) {
+            limiter.tryAcquire("ip-" + i);
+        }
+
+        assertThat(limiter.size()).isLessThanOrEqualTo(16 * Math.max(16, 1000 / 16));
+    }
+
+    @Test
+    void evictIdleBorraLosBucketsLlenos() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(10, 10, 16, 1000);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("ip-" + i);
+        }
+
+        Thread.sleep(20);
+        limiter.evictIdle();
+
+        assertThat(limiter.size()).isZero();
+    }
+
+    /*estres: muchos hilos golpeando claves repartidas (y algunas muy calientes) para medir
+    * lo que agrega el limitador por pedido; el tope es holgado a proposito para no fallar en CI lento*/
+    @Test
+    void elLimitadorAgregaSoloMicrosegundosPorPedido() throws Exception {
+        int hilos = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        int pedidosPorHilo = 200_000;
+        RateLimiter limiter = new RateLimiter(20, 60_000, 64, 100_000);
+        CountDownLatch largada = new CountDownLatch(1);
+
+        List<Future<long[]>> resultados = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(hilos)) {
+            for (int h = 0; h < hilos; h++) {
+                int hilo = h;
+                resultados.add(executor.submit(() -> {
+                    String[] claves = new String[1024];
+                    for (int i = 0; i < claves.length; i++) {
+                        //una de cada 8 claves es compartida por todos los hilos
+                        claves[i] = (i % 8 == 0) ? "10.0.0." + (i % 64) : "10." + hilo + "." + (i / 256) + "." + (i % 256);
+                    }
+                    largada.await();
+                    long rechazados = 0;
+                    long inicio = System.nanoTime();
+                    for (int i = 0; i < pedidosPorHilo; i++) {
+                        if (limiter.tryAcquire(claves[i & (claves.length - 1)]) > 0) {
+                            rechazados++;
+                        }
+                    }
+                    return new long[]{System.nanoTime() - inicio, rechazados};
+                }));
+            }
+            largada.countDown();
+        }
+
+        long nanosTotales = 0;
+        long rechazados = 0;
+        for (Future<long[]> r : resultados) {
+            nanosTotales += r.get()[0];
+            rechazados += r.get()[1];
+        }
+        double nanosPorPedido = (double) nanosTotales / ((long) hilos * pedidosPorHilo);
+        log.info("rate limiter: {} hilos, {} ns por pedido, {} rechazados",
+                hilos, Math.round(nanosPorPedido), rechazados);
+
+        assertThat(rechazados).isPositive();
+        assertThat(nanosPorPedido).isLessThan(20_000);
+    }
+}
@@ -0,0 +1,122 @@
+package com.milsabores.service;
+
+import com.milsabores.dto.TokenResponseDTO;
+import com.milsabores.repository.RefreshTokenRepository;
+import com.milsabores.repository.TokenRevocadoRepository;
+import com.milsabores.security.JwtService;
+import com.milsabores.security.TokenRevocationList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/*rotacion de refresh tokens con transacciones reales (sin la transaccion envolvente del test),
+* para que los refresh concurrentes compitan por la misma fila*/
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import(TokenService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenServiceTest {
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private TokenRevocadoRepository tokenRevocadoRepository;
+
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        when(jwtService.generateAccessToken(anyString())).thenAnswer(inv -> new JwtService.AccessToken(
+                "access", UUID.randomUUID().toString(), Instant.now().plusSeconds(900)));
+    }
+
+    @AfterEach
+    void limpiar() {
+        refreshTokenRepository.deleteAll();
+        tokenRevocadoRepository.deleteAll();
+    }
+
+    @Test
+    void reusoDeUnRefreshRotadoRevocaLaSesion() {
+        TokenResponseDTO inicial = tokenService.emitir("ana@duoc.cl");
+        TokenResponseDTO rotado = tokenService.refrescar(inicial.getRefreshToken());
+
+        assertThatThrownBy(() -> tokenService.refrescar(inicial.getRefreshToken()))
+                .isInstanceOf(BadCredentialsException.class);
+        //el reuso revoca tambien el refresh emitido en la rotacion
+        assertThatThrownBy(() -> tokenService.refrescar(rotado.getRefreshToken()))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void refreshTrasLogoutNoRevocaLasOtrasSesiones() {
+        TokenResponseDTO cerrada = tokenService.emitir("ana@duoc.cl");
+        TokenResponseDTO otroDispositivo = tokenService.emitir("ana@duoc.cl");
+        tokenService.logout(cerrada.getRefreshToken(), null);
+
+        //una pestaña vieja o un reintento tras el logout solo recibe 401
+        assertThatThrownBy(() -> tokenService.refrescar(cerrada.getRefreshToken()))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Refresh token revocado");
+        assertThat(tokenService.refrescar(otroDispositivo.getRefreshToken()).getRefreshToken()).isNotBlank();
+    }
+
+    @Test
+    void refreshConcurrentesConElMismoTokenEmitenUnaSolaSesion() throws Exception {
+        int hilos = 8;
+        String refresh = tokenService.emitir("ana@duoc.cl").getRefreshToken();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(hilos)) {
+            for (int i = 0; i < hilos; i++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    try {
+                        tokenService.refrescar(refresh);
+                        return true;
+                    } catch (RuntimeException e) {
+                        return false;
+                    }
+                }));
+            }
+            largada.countDown();
+        }
+
+        long exitosos = 0;
+        for (Future<Boolean> r : resultados) {
+            if (r.get()) exitosos++;
+        }
+        assertThat(exitosos).isEqualTo(1);
+    }
+}
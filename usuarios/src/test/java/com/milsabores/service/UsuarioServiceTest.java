@@ -0,0 +1,181 @@
+package com.milsabores.service;
+
+import com.milsabores.dto.LoginRequestDTO;
+import com.milsabores.dto.LoginResponseDTO;
+import com.milsabores.dto.RegistroUsuarioDTO;
+import com.milsabores.dto.TokenResponseDTO;
+import com.milsabores.model.Usuario;
+import com.milsabores.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/*login y registro contra H2: se cuentan las sentencias JDBC con las estadisticas de Hibernate
+* y se reporta la latencia p50/p99 del login (bcrypt con costo minimo para medir solo el acceso a datos)*/
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({UsuarioService.class, UsuarioServiceTest.Config.class})
+@Slf4j
+class UsuarioServiceTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+    }
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private TokenService tokenService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        when(tokenService.emitir(anyString())).thenReturn(new TokenResponseDTO("access", "refresh"));
+    }
+
+    @Test
+    void loginCargaElUsuarioEnUnaSolaConsulta() {
+        crearUsuario("ana@duoc.cl", "clave123");
+        statistics.clear();
+
+        LoginResponseDTO respuesta = usuarioService.login(login("ana@duoc.cl", "clave123"));
+
+        assertThat(respuesta.getToken()).isEqualTo("access");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void loginConClaveIncorrectaTambienHaceUnaSolaConsulta() {
+        crearUsuario("ana@duoc.cl", "clave123");
+        statistics.clear();
+
+        assertThatThrownBy(() -> usuarioService.login(login("ana@duoc.cl", "otra")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void registroNoConsultaAntesDeInsertar() {
+        statistics.clear();
+
+        usuarioService.register(registro("nuevo@duoc.cl"));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+    }
+
+    @Test
+    void registroConEmailRepetidoDevuelve409() {
+        usuarioService.register(registro("repetido@duoc.cl"));
+
+        assertThatThrownBy(() -> usuarioService.register(registro("repetido@duoc.cl")))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    }
+
+    @Test
+    void otraRestriccionNoSeReportaComoEmailRepetido() {
+        //email de 101 caracteres: viola el largo de la columna, no el unique
+        String largo = "a".repeat(93) + "@duoc.cl";
+
+        assertThatThrownBy(() -> usuarioService.register(registro(largo)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void latenciaDelLogin() {
+        int usuarios = 50;
+        int vueltas = 400;
+        for (int i = 0; i < usuarios; i++) {
+            crearUsuario("u" + i + "@duoc.cl", "clave123");
+        }
+        statistics.clear();
+
+        long[] nanos = new long[vueltas];
+        for (int i = 0; i < vueltas; i++) {
+            LoginRequestDTO req = login("u" + (i % usuarios) + "@duoc.cl", "clave123");
+            long inicio = System.nanoTime();
+            usuarioService.login(req);
+            nanos[i] = System.nanoTime() - inicio;
+            entityManager.clear();
+        }
+        Arrays.sort(nanos);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(vueltas);
+        log.info("login: {} sentencias en {} logins, p50={} ms p99={} ms",
+                statistics.getPrepareStatementCount(), vueltas,
+                String.format("%.2f", nanos[vueltas / 2] / 1e6), String.format("%.2f", nanos[(int) (vueltas * 0.99)] / 1e6));
+    }
+
+    private void crearUsuario(String email, String clave) {
+        usuarioRepository.saveAndFlush(Usuario.builder()
+                .nombre("Ana")
+                .apellidos("Pérez")
+                .email(email)
+                .fechaNacimiento(LocalDate.of(1990, 5, 20))
+                .password(passwordEncoder.encode(clave))
+                .build());
+        entityManager.clear();
+    }
+
+    private static LoginRequestDTO login(String email, String clave) {
+        LoginRequestDTO req = new LoginRequestDTO();
+        req.setEmail(email);
+        req.setPassword(clave);
+        return req;
+    }
+
+    private static RegistroUsuarioDTO registro(String email) {
+        RegistroUsuarioDTO req = new RegistroUsuarioDTO();
+        req.setNombre("Ana");
+        req.setApellidos("Pérez");
+        req.setEmail(email);
+        req.setFechaNacimiento("1990-05-20");
+        req.setPassword("clave123");
+        return req;
+    }
+}
@@ -3,6 +3,7 @@ package com.milsabores;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Aplicación principal del microservicio de Ventas/Órdenes
@@ -10,6 +11,7 @@ import org.springframework.context.annotation.ComponentScan;
  * Swagger UI: http://localhost:8083/swagger-ui/index.html
  */
 @SpringBootApplication
+@EnableScheduling
 @ComponentScan(basePackages = {"com.milsabores", "com.milsabores.ventas"})
 public class VentasApp {
 
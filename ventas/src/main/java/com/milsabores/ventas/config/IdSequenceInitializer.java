@@ -0,0 +1,48 @@
+package com.milsabores.ventas.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Alinea las secuencias de ids de órdenes con los datos existentes
+ * Hibernate crea orders_seq y order_items_seq desde 1; en una base con órdenes
+ * previas (ids BIGSERIAL) se adelantan más allá del id máximo antes de atender solicitudes
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class IdSequenceInitializer {
+
+    /**
+     * Debe coincidir con el allocationSize de las entidades
+     */
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final String ALIGN_SQL =
+            "SELECT setval('%1$s', t.max_id + %3$d, false) " +
+            "FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM %2$s) t, %1$s s " +
+            "WHERE s.last_value <= t.max_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignSequences() {
+        align("orders_seq", "orders");
+        align("order_items_seq", "order_items");
+    }
+
+    private void align(String sequence, String table) {
+        List<Long> result = jdbcTemplate.queryForList(
+                String.format(ALIGN_SQL, sequence, table, ALLOCATION_SIZE), Long.class);
+        if (!result.isEmpty()) {
+            log.info("Secuencia {} adelantada a {} según los ids existentes en {}", sequence, result.get(0), table);
+        }
+    }
+}
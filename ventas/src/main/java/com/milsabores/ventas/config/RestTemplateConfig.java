@@ -1,22 +1,38 @@
 package com.milsabores.ventas.config;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 /**
  * Configuración del RestTemplate para llamadas HTTP a Transbank
+ * Usa el HttpClient del JDK: negocia HTTP/2 por ALPN y mantiene un pool de conexiones
+ * keep-alive, así las llamadas no pagan un handshake TCP+TLS cada vez.
+ * El pool de ese cliente es global a la JVM (no por host) y sólo se configura con flags de
+ * arranque, leídos una vez al cargar la clase: -Djdk.httpclient.keepalive.timeout (segundos,
+ * 30 por defecto) y -Djdk.httpclient.connectionPoolSize (0 = sin límite). El tope de llamadas
+ * simultáneas a Transbank lo impone el bulkhead de TransbankHttpClient (max-concurrent-calls),
+ * no el pool
  */
 @Configuration
 public class RestTemplateConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(10000); // 10 segundos
-        factory.setReadTimeout(30000);    // 30 segundos
+    public RestTemplate restTemplate(TransbankProperties transbankProperties) {
+        TransbankProperties.Client client = transbankProperties.getClient();
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(client.getConnectTimeoutMs()))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(client.getReadTimeoutMs()));
         return new RestTemplate(factory);
     }
 }
@@ -47,6 +47,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/payments/webpay/commit").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/payments/webpay/abort").permitAll()
 
+                        // Operaciones de mantenimiento - sólo administradores
+                        .requestMatchers(HttpMethod.POST, "/api/orders/series/backfill").hasRole("ADMIN")
+
                         // Endpoints protegidos - requieren JWT válido
                         .requestMatchers("/api/payments/**").authenticated()
                         .requestMatchers("/api/orders/**").authenticated()
@@ -75,7 +78,9 @@ public class SecurityConfig {
         config.setAllowedHeaders(List.of(
                 "Authorization",
                 "Content-Type",
-                "Accept"
+                "Accept",
+                "Idempotency-Key",
+                "Last-Event-ID"
         ));
         config.setAllowCredentials(true);
 
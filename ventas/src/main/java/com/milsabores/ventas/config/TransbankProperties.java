@@ -43,4 +43,55 @@ public class TransbankProperties {
      * URL base de la API en ambiente de producción
      */
     private String apiUrlProduction;
+
+    /**
+     * Cliente HTTP hacia Transbank (pool, límites y corte de circuito)
+     */
+    private Client client = new Client();
+
+    @Getter
+    @Setter
+    public static class Client {
+
+        /**
+         * Tiempo máximo para abrir la conexión
+         */
+        private int connectTimeoutMs = 2000;
+
+        /**
+         * Tiempo máximo de espera por la respuesta
+         */
+        private int readTimeoutMs = 10000;
+
+        /**
+         * Máximo de llamadas simultáneas a Transbank (bulkhead); es el único tope de
+         * concurrencia hacia WebPay, el pool del HttpClient del JDK no lo limita
+         */
+        private int maxConcurrentCalls = 20;
+
+        /**
+         * Espera máxima por un cupo del bulkhead antes de rechazar
+         */
+        private int bulkheadWaitMs = 250;
+
+        /**
+         * Cantidad de llamadas recientes que evalúa el circuito
+         */
+        private int circuitWindowSize = 20;
+
+        /**
+         * Llamadas mínimas en la ventana antes de poder abrir el circuito
+         */
+        private int circuitMinimumCalls = 10;
+
+        /**
+         * Porcentaje de fallas (0-100) que abre el circuito
+         */
+        private int circuitFailureRatePercent = 50;
+
+        /**
+         * Tiempo que el circuito permanece abierto antes de dejar pasar una llamada de prueba
+         */
+        private int circuitOpenMs = 30000;
+    }
 }
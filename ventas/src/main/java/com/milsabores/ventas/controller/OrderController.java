@@ -1,8 +1,14 @@
 package com.milsabores.ventas.controller;
 
 import com.milsabores.ventas.dto.*;
+import com.milsabores.ventas.entity.ExportFormat;
 import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.entity.RollupGranularity;
+import com.milsabores.ventas.service.OrderExportService;
 import com.milsabores.ventas.service.OrderService;
+import com.milsabores.ventas.service.OrderStreamService;
+import com.milsabores.ventas.service.SalesRollupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,12 +22,19 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.security.Principal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Controlador REST para la gestión de órdenes
@@ -33,18 +46,27 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final SalesRollupService salesRollupService;
+    private final OrderExportService orderExportService;
+    private final OrderStreamService orderStreamService;
 
     @PostMapping
     @Operation(summary = "Crear una nueva orden", description = "Crea una nueva orden de compra a partir del carrito del cliente")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Orden creada exitosamente",
                     content = @Content(schema = @Schema(implementation = OrderResponseDTO.class))),
-            @ApiResponse(responseCode = "400", description = "Datos de la orden inválidos"),
-            @ApiResponse(responseCode = "409", description = "Ya existe una orden con ese número")
+            @ApiResponse(responseCode = "202", description = "La orden se está confirmando; consultar /buyorder/{buyOrder} antes de reintentar"),
+            @ApiResponse(responseCode = "400", description = "Datos de la orden inválidos o monto distinto al de sus productos"),
+            @ApiResponse(responseCode = "409", description = "Ya existe una orden con ese número o un precio cambió en el catálogo"),
+            @ApiResponse(responseCode = "422", description = "La clave de idempotencia ya fue usada con otro payload"),
+            @ApiResponse(responseCode = "503", description = "Catálogo de precios o cola de órdenes no disponible")
     })
     public ResponseEntity<ApiResponseDTO<OrderResponseDTO>> createOrder(
-            @Valid @RequestBody CreateOrderRequestDTO request) {
-        OrderResponseDTO order = orderService.createOrder(request);
+            @Parameter(description = "Clave para reintentar la creación sin duplicar la orden")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody CreateOrderRequestDTO request,
+            @Parameter(hidden = true) Principal principal) {
+        OrderResponseDTO order = orderService.createOrder(request, idempotencyKey, principal.getName());
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .body(ApiResponseDTO.success("Orden creada exitosamente", order));
@@ -84,6 +106,22 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponseDTO.success("Órdenes obtenidas", orders));
     }
 
+    @GetMapping("/summaries")
+    @Operation(summary = "Listar resúmenes de órdenes",
+               description = "Listado liviano para administración, de la orden más reciente a la más antigua, " +
+                       "paginado por cursor y opcionalmente filtrado por estado")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resúmenes obtenidos"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    })
+    public ResponseEntity<ApiResponseDTO<OrderSummaryPageDTO>> getOrderSummaries(
+            @Parameter(description = "Estado de la orden") @RequestParam(required = false) OrderStatus status,
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máximo 100)") @RequestParam(defaultValue = "20") int size) {
+        OrderSummaryPageDTO page = orderService.getOrderSummaries(status, cursor, size);
+        return ResponseEntity.ok(ApiResponseDTO.success("Órdenes obtenidas", page));
+    }
+
     @GetMapping("/status/{status}")
     @Operation(summary = "Listar órdenes por estado", description = "Obtiene todas las órdenes con un estado específico")
     @ApiResponse(responseCode = "200", description = "Lista de órdenes obtenida")
@@ -104,6 +142,35 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponseDTO.success("Órdenes del cliente obtenidas", orders));
     }
 
+    @GetMapping("/customer/{email}/history")
+    @Operation(summary = "Historial de órdenes de un cliente",
+               description = "Órdenes del cliente de la más reciente a la más antigua, paginadas por cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Historial obtenido"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    })
+    public ResponseEntity<ApiResponseDTO<OrderHistoryPageDTO>> getCustomerOrderHistory(
+            @Parameter(description = "Email del cliente", example = "cliente@email.com")
+            @PathVariable String email,
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máximo 100)") @RequestParam(defaultValue = "10") int size) {
+        OrderHistoryPageDTO history = orderService.getCustomerOrderHistory(email, cursor, size);
+        return ResponseEntity.ok(ApiResponseDTO.success("Historial del cliente obtenido", history));
+    }
+
+    @PatchMapping("/status")
+    @Operation(summary = "Actualizar estado de varias órdenes",
+               description = "Cambia el estado de varias órdenes (por ID o número de orden) y devuelve el resultado de cada una")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote procesado; ver el resultado por orden"),
+            @ApiResponse(responseCode = "400", description = "Solicitud inválida")
+    })
+    public ResponseEntity<ApiResponseDTO<BulkOrderStatusResultDTO>> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkUpdateOrderStatusDTO request) {
+        BulkOrderStatusResultDTO result = orderService.bulkUpdateOrderStatus(request);
+        return ResponseEntity.ok(ApiResponseDTO.success("Actualización masiva procesada", result));
+    }
+
     @PatchMapping("/{id}/status")
     @Operation(summary = "Actualizar estado de orden", description = "Actualiza el estado de una orden (pago, preparación, entrega)")
     @ApiResponses(value = {
@@ -158,6 +225,17 @@ public class OrderController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Feed en vivo de órdenes",
+               description = "Eventos SSE order-created, status-changed y order-deleted emitidos tras cada commit. " +
+                             "Al reconectar con Last-Event-ID se reenvían los eventos perdidos que sigan en el buffer; " +
+                             "si ya no están se envía un evento reset")
+    @ApiResponse(responseCode = "200", description = "Suscripción abierta")
+    public SseEmitter streamOrders(
+            @Parameter(description = "Último evento recibido") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return orderStreamService.subscribe(lastEventId);
+    }
+
     @GetMapping("/recent")
     @Operation(summary = "Obtener órdenes recientes", description = "Obtiene las últimas 10 órdenes creadas")
     @ApiResponse(responseCode = "200", description = "Órdenes recientes obtenidas")
@@ -179,6 +257,29 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponseDTO.success("Órdenes obtenidas", orders));
     }
 
+    @GetMapping("/export")
+    @Operation(summary = "Exportar órdenes por rango de fechas",
+               description = "Descarga las órdenes y sus items en NDJSON (una orden por línea) o CSV (un item por fila), " +
+                       "escritos en streaming sin cargar el rango en memoria")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportación en curso"),
+            @ApiResponse(responseCode = "400", description = "Formato inválido")
+    })
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "Fecha de inicio (ISO format)", example = "2024-01-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "Fecha de fin (ISO format)", example = "2024-12-31T23:59:59")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "Formato: ndjson o csv") @RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        StreamingResponseBody body = out -> orderExportService.exportOrders(startDate, endDate, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"ordenes." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     @GetMapping("/stats")
     @Operation(summary = "Obtener estadísticas de órdenes", 
                description = "Obtiene estadísticas generales de las órdenes")
@@ -187,4 +288,49 @@ public class OrderController {
         OrderStatsDTO stats = orderService.getOrderStats();
         return ResponseEntity.ok(ApiResponseDTO.success("Estadísticas obtenidas", stats));
     }
+
+    @GetMapping("/series")
+    @Operation(summary = "Serie temporal de ventas",
+               description = "Órdenes, unidades e ingresos por hora o por día, calculados desde los rollups. " +
+                             "Por defecto considera solo estados pagados (APPROVED, PROCESSING, READY, DELIVERED)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Serie obtenida"),
+            @ApiResponse(responseCode = "400", description = "Parámetros inválidos")
+    })
+    public ResponseEntity<ApiResponseDTO<List<SalesSeriesPointDTO>>> getSalesSeries(
+            @Parameter(description = "Granularidad: hour o day", example = "hour")
+            @RequestParam String granularity,
+            @Parameter(description = "Fecha de inicio (ISO format)", example = "2024-11-30T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Fecha de fin, exclusiva (ISO format)", example = "2024-12-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Estados a considerar (opcional)")
+            @RequestParam(required = false) Set<OrderStatus> status,
+            @Parameter(description = "Métodos de pago a considerar (opcional)")
+            @RequestParam(required = false) Set<PaymentMethod> paymentMethod) {
+        RollupGranularity rollupGranularity = RollupGranularity.valueOf(granularity.toUpperCase());
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("La fecha de inicio debe ser anterior a la de fin");
+        }
+        List<SalesSeriesPointDTO> series = salesRollupService.getSeries(rollupGranularity, from, to, status, paymentMethod);
+        return ResponseEntity.ok(ApiResponseDTO.success("Serie obtenida", series));
+    }
+
+    @PostMapping("/series/backfill")
+    @Operation(summary = "Recalcular rollups de ventas",
+               description = "Recalcula los rollups horarios y diarios de un rango de hasta 366 días desde las órdenes, "
+                       + "un día por tarea en paralelo. Requiere rol ADMIN")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rollups recalculados"),
+            @ApiResponse(responseCode = "400", description = "Rango invertido o mayor a 366 días"),
+            @ApiResponse(responseCode = "403", description = "El usuario no es administrador")
+    })
+    public ResponseEntity<ApiResponseDTO<Map<String, Integer>>> backfillSalesSeries(
+            @Parameter(description = "Fecha de inicio (ISO format)", example = "2024-01-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Fecha de fin, exclusiva (ISO format)", example = "2024-12-31T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        int days = salesRollupService.backfill(from, to);
+        return ResponseEntity.ok(ApiResponseDTO.success("Rollups recalculados", Map.of("days", days)));
+    }
 }
@@ -0,0 +1,47 @@
+package com.milsabores.ventas.controller;
+
+import com.milsabores.ventas.dto.ApiResponseDTO;
+import com.milsabores.ventas.dto.TopProductDTO;
+import com.milsabores.ventas.entity.SalesWindow;
+import com.milsabores.ventas.service.TopSellersService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST para estadísticas de productos vendidos
+ */
+@RestController
+@RequestMapping("/api/products")
+@RequiredArgsConstructor
+@Tag(name = "Productos vendidos", description = "API para rankings de productos más vendidos")
+public class ProductStatsController {
+
+    private final TopSellersService topSellersService;
+
+    @GetMapping("/top")
+    @Operation(summary = "Productos más vendidos",
+               description = "Obtiene los K productos con más unidades vendidas (órdenes pagadas) en la ventana indicada")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ranking obtenido"),
+            @ApiResponse(responseCode = "400", description = "Ventana inválida")
+    })
+    public ResponseEntity<ApiResponseDTO<List<TopProductDTO>>> getTopSellers(
+            @Parameter(description = "Ventana: hour, day, 30d (o month) y all", example = "day")
+            @RequestParam(defaultValue = "day") String window,
+            @Parameter(description = "Cantidad de productos (máximo 100)", example = "10")
+            @RequestParam(defaultValue = "10") int k) {
+        SalesWindow salesWindow = "30d".equalsIgnoreCase(window)
+                ? SalesWindow.MONTH
+                : SalesWindow.valueOf(window.toUpperCase());
+        List<TopProductDTO> top = topSellersService.getTopSellers(salesWindow, k);
+        return ResponseEntity.ok(ApiResponseDTO.success("Ranking obtenido", top));
+    }
+}
@@ -35,7 +35,7 @@ public class WebPayController {
     @Operation(
             summary = "Iniciar pago",
             description = """
-                    Inicia una transacción de pago con WebPay Plus.
+                    Inicia una transacción de pago con WebPay Plus por el monto final guardado en la orden.
                     
                     Retorna un token y una URL. El frontend debe redirigir al usuario a:
                     `redirectUrl` o `url + "?token_ws=" + token`
@@ -47,16 +47,16 @@ public class WebPayController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Transacción iniciada exitosamente"),
             @ApiResponse(responseCode = "400", description = "Datos inválidos"),
+            @ApiResponse(responseCode = "409", description = "La orden no existe o ya no está pendiente de pago"),
             @ApiResponse(responseCode = "500", description = "Error al comunicarse con Transbank")
     })
     public ResponseEntity<ApiResponseDTO<InitPaymentResponseDTO>> initPayment(
             @Valid @RequestBody InitPaymentRequestDTO request) {
 
-        log.info("Iniciando pago WebPay - Orden: {}, Monto: {}", request.getBuyOrder(), request.getAmount());
+        log.info("Iniciando pago WebPay - Orden: {}", request.getBuyOrder());
 
         InitPaymentResponseDTO response = transbankService.initTransaction(
                 request.getBuyOrder(),
-                request.getAmount(),
                 request.getSessionId()
         );
 
@@ -0,0 +1,30 @@
+package com.milsabores.ventas.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una actualización masiva de estado
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Resultado de la actualización masiva de estado")
+public class BulkOrderStatusResultDTO {
+
+    @Schema(description = "Estado solicitado", example = "READY")
+    private String status;
+
+    @Schema(description = "Órdenes solicitadas", example = "3")
+    private int requested;
+
+    @Schema(description = "Órdenes actualizadas", example = "2")
+    private int updated;
+
+    @Schema(description = "Resultado por orden")
+    private List<OrderStatusUpdateResultDTO> results;
+}
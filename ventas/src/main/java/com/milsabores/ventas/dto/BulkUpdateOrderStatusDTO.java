@@ -0,0 +1,38 @@
+package com.milsabores.ventas.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO para cambiar el estado de varias órdenes a la vez
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Datos para actualizar el estado de varias órdenes")
+public class BulkUpdateOrderStatusDTO {
+
+    @Builder.Default
+    @Size(max = 500, message = "Máximo 500 ids por solicitud")
+    @Schema(description = "IDs de las órdenes", example = "[101, 102, 103]")
+    private List<Long> ids = new ArrayList<>();
+
+    @Builder.Default
+    @Size(max = 500, message = "Máximo 500 números de orden por solicitud")
+    @Schema(description = "Números de orden", example = "[\"ORD-1234567890\"]")
+    private List<String> buyOrders = new ArrayList<>();
+
+    // Mismos estados que OrderServiceImpl.BULK_TARGETS
+    @NotBlank(message = "El estado es requerido")
+    @Pattern(regexp = "PROCESSING|READY|DELIVERED", message = "Estado inválido para actualización masiva")
+    @Schema(description = "Nuevo estado de las órdenes", example = "READY")
+    private String status;
+}
@@ -27,11 +27,13 @@ public class CreateOrderRequestDTO {
 
     @NotNull(message = "El monto total es requerido")
     @DecimalMin(value = "0.01", message = "El monto debe ser mayor a 0")
+    @Digits(integer = 12, fraction = 0, message = "El monto debe ser un número entero de pesos")
     @Schema(description = "Monto total de la orden en CLP", example = "45000")
     private BigDecimal amount;
 
     @DecimalMin(value = "0.00", message = "El descuento no puede ser negativo")
-    @Schema(description = "Monto de descuento aplicado", example = "5000")
+    @Digits(integer = 12, fraction = 0, message = "El descuento debe ser un número entero de pesos")
+    @Schema(description = "Monto de descuento; debe ser 0 mientras los descuentos no se calculen en el servidor", example = "0")
     private BigDecimal discountAmount;
 
     @NotBlank(message = "El método de pago es requerido")
@@ -0,0 +1,30 @@
+package com.milsabores.ventas.dto;
+
+/**
+ * Resultado de reservar una clave de idempotencia
+ */
+public record IdempotencyClaim(Outcome outcome, OrderResponseDTO response) {
+
+    public enum Outcome {
+        /** La clave quedó reservada para esta solicitud */
+        ACQUIRED,
+        /** La clave ya fue usada con el mismo payload: se repite la respuesta original */
+        REPLAYED,
+        /** La clave ya fue usada con otro payload */
+        MISMATCH,
+        /** La clave está reservada pero la orden aún no se confirma */
+        IN_PROGRESS
+    }
+
+    public static IdempotencyClaim acquired() {
+        return new IdempotencyClaim(Outcome.ACQUIRED, null);
+    }
+
+    public static IdempotencyClaim replayed(OrderResponseDTO response) {
+        return new IdempotencyClaim(Outcome.REPLAYED, response);
+    }
+
+    public static IdempotencyClaim of(Outcome outcome) {
+        return new IdempotencyClaim(outcome, null);
+    }
+}
@@ -0,0 +1,27 @@
+package com.milsabores.ventas.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO para una página del historial de órdenes de un cliente paginada por cursor
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Página del historial de órdenes de un cliente")
+public class OrderHistoryPageDTO {
+
+    @Schema(description = "Órdenes de la página, de la más reciente a la más antigua")
+    private List<OrderResponseDTO> orders;
+
+    @Schema(description = "Cursor para pedir la página siguiente (null si no hay más)")
+    private String nextCursor;
+
+    @Schema(description = "Indica si hay más órdenes después de esta página", example = "false")
+    private boolean hasMore;
+}
@@ -30,6 +30,7 @@ public class OrderItemDTO {
 
     @NotNull(message = "El precio es requerido")
     @DecimalMin(value = "0.01", message = "El precio debe ser mayor a 0")
+    @Digits(integer = 10, fraction = 0, message = "El precio debe ser un número entero de pesos")
     @Schema(description = "Precio unitario en CLP", example = "45000")
     private BigDecimal priceCLP;
 
@@ -1,10 +1,9 @@
 package com.milsabores.ventas.dto;
 
+import com.milsabores.ventas.entity.Clp;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
 
-import java.math.BigDecimal;
-
 /**
  * DTO para la respuesta de un item de orden
  */
@@ -26,13 +25,13 @@ public class OrderItemResponseDTO {
     private String productName;
 
     @Schema(description = "Precio unitario en CLP", example = "45000")
-    private BigDecimal unitPrice;
+    private Clp unitPrice;
 
     @Schema(description = "Cantidad de unidades", example = "2")
     private Integer quantity;
 
     @Schema(description = "Subtotal del item", example = "90000")
-    private BigDecimal subtotal;
+    private Clp subtotal;
 
     @Schema(description = "Tamaño seleccionado", example = "12 porciones")
     private String sizeOption;
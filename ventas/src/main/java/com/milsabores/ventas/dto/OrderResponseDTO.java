@@ -1,11 +1,11 @@
 package com.milsabores.ventas.dto;
 
+import com.milsabores.ventas.entity.Clp;
 import com.milsabores.ventas.entity.OrderStatus;
 import com.milsabores.ventas.entity.PaymentMethod;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -31,13 +31,13 @@ public class OrderResponseDTO {
     private OrderStatus status;
 
     @Schema(description = "Monto subtotal en CLP", example = "90000")
-    private BigDecimal amount;
+    private Clp amount;
 
     @Schema(description = "Monto de descuento aplicado", example = "5000")
-    private BigDecimal discountAmount;
+    private Clp discountAmount;
 
     @Schema(description = "Monto final después de descuentos", example = "85000")
-    private BigDecimal finalAmount;
+    private Clp finalAmount;
 
     @Schema(description = "Código de autorización del pago", example = "123456")
     private String authorizationCode;
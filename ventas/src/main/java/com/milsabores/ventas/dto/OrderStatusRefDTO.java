@@ -0,0 +1,9 @@
+package com.milsabores.ventas.dto;
+
+import com.milsabores.ventas.entity.OrderStatus;
+
+/**
+ * Identificación y estado actual de una orden (sin cargar la entidad)
+ */
+public record OrderStatusRefDTO(Long id, String buyOrder, OrderStatus status) {
+}
@@ -0,0 +1,39 @@
+package com.milsabores.ventas.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+/**
+ * DTO con el resultado de la actualización de estado de una orden dentro de un lote
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Resultado del cambio de estado de una orden")
+public class OrderStatusUpdateResultDTO {
+
+    /**
+     * Resultado posible para cada orden
+     */
+    public enum Outcome { UPDATED, NOT_FOUND, INVALID_TRANSITION }
+
+    @Schema(description = "ID de la orden (null si no se encontró por ID)", example = "101")
+    private Long id;
+
+    @Schema(description = "Número de orden", example = "ORD-1234567890")
+    private String buyOrder;
+
+    @Schema(description = "Estado anterior", example = "PROCESSING")
+    private String previousStatus;
+
+    @Schema(description = "Estado tras la operación", example = "READY")
+    private String status;
+
+    @Schema(description = "Resultado", example = "UPDATED")
+    private Outcome outcome;
+
+    @Schema(description = "Detalle cuando la orden no se actualizó")
+    private String message;
+}
@@ -0,0 +1,52 @@
+package com.milsabores.ventas.dto;
+
+import com.milsabores.ventas.entity.Clp;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un evento del feed de órdenes en vivo (SSE)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Evento de creación o cambio de estado de una orden")
+public class OrderStreamEventDTO {
+
+    @Schema(description = "Id del evento (se usa como Last-Event-ID al reconectar)", example = "1024")
+    private long eventId;
+
+    @Schema(description = "Tipo de evento", example = "status-changed")
+    private String type;
+
+    @Schema(description = "ID de la orden", example = "1")
+    private Long orderId;
+
+    @Schema(description = "Número de orden", example = "ORD-1234567890")
+    private String buyOrder;
+
+    @Schema(description = "Estado anterior (null al crear)", example = "PROCESSING")
+    private String previousStatus;
+
+    @Schema(description = "Estado nuevo (null al eliminar)", example = "READY")
+    private String status;
+
+    @Schema(description = "Método de pago", example = "WEBPAY")
+    private String paymentMethod;
+
+    @Schema(description = "Monto final", example = "28000")
+    private Clp finalAmount;
+
+    @Schema(description = "Nombre del cliente", example = "Juan Pérez")
+    private String customerName;
+
+    @Schema(description = "Fecha de creación de la orden")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Momento del cambio")
+    private LocalDateTime occurredAt;
+}
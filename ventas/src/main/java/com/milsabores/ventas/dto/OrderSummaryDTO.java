@@ -0,0 +1,42 @@
+package com.milsabores.ventas.dto;
+
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.OrderStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO con el resumen de una orden para listados de administración
+ * Se proyecta directo desde JPQL, sin cargar la entidad ni sus items
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Resumen de una orden")
+public class OrderSummaryDTO {
+
+    @Schema(description = "ID de la orden", example = "1")
+    private Long id;
+
+    @Schema(description = "Número de orden", example = "ORD-1701234567890")
+    private String buyOrder;
+
+    @Schema(description = "Estado de la orden", example = "APPROVED")
+    private OrderStatus status;
+
+    @Schema(description = "Monto final en CLP", example = "45000")
+    private Clp finalAmount;
+
+    @Schema(description = "Nombre del cliente", example = "Juan Pérez")
+    private String customerName;
+
+    @Schema(description = "Cantidad de items", example = "3")
+    private Long itemCount;
+
+    @Schema(description = "Fecha de creación", example = "2024-11-30T15:30:00")
+    private LocalDateTime createdAt;
+}
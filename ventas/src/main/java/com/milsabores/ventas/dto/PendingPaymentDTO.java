@@ -0,0 +1,9 @@
+package com.milsabores.ventas.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Orden WebPay pendiente a conciliar (sólo los campos necesarios para consultar su estado)
+ */
+public record PendingPaymentDTO(Long id, String buyOrder, String webpayToken, LocalDateTime createdAt) {
+}
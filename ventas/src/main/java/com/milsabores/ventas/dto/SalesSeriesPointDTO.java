@@ -0,0 +1,31 @@
+package com.milsabores.ventas.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO para un punto de la serie temporal de ventas
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Punto de la serie temporal de ventas")
+public class SalesSeriesPointDTO {
+
+    @Schema(description = "Inicio del bucket", example = "2024-11-30T15:00:00")
+    private LocalDateTime bucketStart;
+
+    @Schema(description = "Cantidad de órdenes", example = "12")
+    private Long orders;
+
+    @Schema(description = "Unidades vendidas", example = "18")
+    private Long units;
+
+    @Schema(description = "Ingresos del bucket en CLP", example = "540000")
+    private BigDecimal revenue;
+}
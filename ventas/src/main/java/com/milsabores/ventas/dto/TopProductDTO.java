@@ -0,0 +1,25 @@
+package com.milsabores.ventas.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+/**
+ * DTO para un producto del ranking de más vendidos
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Producto en el ranking de más vendidos")
+public class TopProductDTO {
+
+    @Schema(description = "Código del producto", example = "TC001")
+    private String productCode;
+
+    @Schema(description = "Nombre del producto", example = "Torta Cuadrada de Chocolate")
+    private String productName;
+
+    @Schema(description = "Unidades vendidas en la ventana", example = "42")
+    private Long units;
+}
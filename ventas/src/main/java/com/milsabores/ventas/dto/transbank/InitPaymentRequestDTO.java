@@ -3,7 +3,6 @@ package com.milsabores.ventas.dto.transbank;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
 /**
@@ -21,9 +20,11 @@ public class InitPaymentRequestDTO {
     @Schema(description = "Número único de la orden", example = "ORD-1701234567890")
     private String buyOrder;
 
-    @NotNull(message = "El monto es requerido")
+    /**
+     * Se acepta por compatibilidad con el frontend, pero no se usa: se cobra el monto final de la orden
+     */
     @Min(value = 1, message = "El monto debe ser mayor a 0")
-    @Schema(description = "Monto total a pagar en CLP", example = "50000")
+    @Schema(description = "Ignorado: se cobra el monto final guardado en la orden", example = "50000", deprecated = true)
     private Integer amount;
 
     @Schema(description = "ID de sesión opcional del usuario", example = "user-session-abc123")
@@ -0,0 +1,103 @@
+package com.milsabores.ventas.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+/**
+ * Monto en pesos chilenos (CLP)
+ * El peso no tiene decimales: el monto se guarda en un long y toda la aritmética es exacta
+ * y sin asignar objetos intermedios. Las operaciones que desbordan lanzan ArithmeticException.
+ * En JSON se representa como un número entero.
+ */
+@Schema(type = "integer", format = "int64", description = "Monto en CLP", example = "45000")
+public final class Clp implements Comparable<Clp> {
+
+    public static final Clp ZERO = new Clp(0);
+
+    private final long value;
+
+    private Clp(long value) {
+        this.value = value;
+    }
+
+    public static Clp of(long value) {
+        return value == 0 ? ZERO : new Clp(value);
+    }
+
+    /**
+     * Convierte un monto recibido como decimal; rechaza fracciones de peso
+     * @throws IllegalArgumentException si el monto tiene decimales o no cabe en un long
+     */
+    @JsonCreator
+    public static Clp of(BigDecimal value) {
+        if (value == null) return null;
+        try {
+            // Los montos del request llegan sin escala: solo se normaliza si trae decimales
+            BigDecimal integral = value.scale() <= 0 ? value : value.stripTrailingZeros();
+            return of(integral.longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Monto CLP inválido (sin decimales): " + value.toPlainString());
+        }
+    }
+
+    /**
+     * Suma de dos montos; null cuenta como cero
+     */
+    public static Clp sum(Clp a, Clp b) {
+        if (a == null) return b != null ? b : ZERO;
+        if (b == null) return a;
+        return a.plus(b);
+    }
+
+    @JsonValue
+    public long value() {
+        return value;
+    }
+
+    public Clp plus(Clp other) {
+        return of(Math.addExact(value, other.value));
+    }
+
+    public Clp minus(Clp other) {
+        return of(Math.subtractExact(value, other.value));
+    }
+
+    public Clp times(long factor) {
+        return of(Math.multiplyExact(value, factor));
+    }
+
+    public Clp negate() {
+        return of(Math.negateExact(value));
+    }
+
+    public int signum() {
+        return Long.signum(value);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(value);
+    }
+
+    @Override
+    public int compareTo(Clp other) {
+        return Long.compare(value, other.value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Clp other && value == other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(value);
+    }
+}
@@ -0,0 +1,25 @@
+package com.milsabores.ventas.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Convierte {@link Clp} a las columnas DECIMAL existentes (el esquema no cambia)
+ * Al leer se redondea al peso: datos antiguos con decimales no impiden cargar la orden
+ */
+@Converter(autoApply = true)
+public class ClpConverter implements AttributeConverter<Clp, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Clp attribute) {
+        return attribute != null ? attribute.toBigDecimal() : null;
+    }
+
+    @Override
+    public Clp convertToEntityAttribute(BigDecimal dbData) {
+        return dbData != null ? Clp.of(dbData.setScale(0, RoundingMode.HALF_UP).longValueExact()) : null;
+    }
+}
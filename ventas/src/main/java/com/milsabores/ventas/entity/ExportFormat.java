@@ -0,0 +1,32 @@
+package com.milsabores.ventas.entity;
+
+/**
+ * Enum que representa los formatos de exportación de órdenes
+ */
+public enum ExportFormat {
+    /**
+     * Una orden por línea en JSON, con sus items anidados
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+
+    /**
+     * Un item por fila, con los datos de su orden repetidos
+     */
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,54 @@
+package com.milsabores.ventas.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro de una clave de idempotencia usada al crear una orden
+ * Guarda el hash del payload y la respuesta original para repetirla en reintentos
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    /**
+     * SHA-256 del usuario autenticado y la clave enviada en el header Idempotency-Key
+     */
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String key;
+
+    /**
+     * SHA-256 del payload de la solicitud
+     */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /**
+     * Orden creada con esta clave
+     */
+    @Column(name = "order_id")
+    private Long orderId;
+
+    /**
+     * Respuesta original serializada en JSON
+     */
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Fecha a partir de la cual la clave puede reutilizarse
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
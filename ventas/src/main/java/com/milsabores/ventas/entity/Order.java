@@ -2,8 +2,8 @@ package com.milsabores.ventas.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,7 +13,12 @@ import java.util.List;
  * Mapea la tabla 'orders' en la base de datos PostgreSQL
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_payment_id", columnList = "status, payment_method, id"),
+        @Index(name = "idx_orders_created_at", columnList = "created_at"),
+        @Index(name = "idx_orders_status_created_at", columnList = "status, created_at"),
+        @Index(name = "idx_orders_customer_email_created_at", columnList = "customer_email, created_at DESC, id DESC")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,8 +26,13 @@ import java.util.List;
 @Builder
 public class Order {
 
+    /**
+     * Id asignado desde la secuencia orders_seq en bloques de 50 (optimizador pooled),
+     * así Hibernate puede agrupar los INSERT en lotes JDBC
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_gen")
+    @SequenceGenerator(name = "orders_id_gen", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -42,19 +52,19 @@ public class Order {
      * Monto total de la orden en CLP
      */
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal amount;
+    private Clp amount;
 
     /**
      * Monto de descuento aplicado
      */
     @Column(name = "discount_amount", precision = 12, scale = 2)
-    private BigDecimal discountAmount;
+    private Clp discountAmount;
 
     /**
      * Monto final después de descuentos
      */
     @Column(name = "final_amount", nullable = false, precision = 12, scale = 2)
-    private BigDecimal finalAmount;
+    private Clp finalAmount;
 
     /**
      * Código de autorización del pago (si fue aprobado)
@@ -81,6 +91,20 @@ public class Order {
     @Column(name = "error_message", length = 255)
     private String errorMessage;
 
+    /**
+     * Token de la transacción WebPay (permite consultar su estado si el cliente no vuelve)
+     */
+    @Column(name = "webpay_token", length = 64)
+    private String webpayToken;
+
+    /**
+     * Versión para bloqueo optimista: dos cambios concurrentes no se sobrescriben
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
      * Fecha de creación de la orden
      */
@@ -3,14 +3,16 @@ package com.milsabores.ventas.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * Entidad que representa un item dentro de una orden
  * Corresponde a un producto en el carrito del frontend
  */
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_order_id", columnList = "order_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,8 +20,13 @@ import java.math.BigDecimal;
 @Builder
 public class OrderItem {
 
+    /**
+     * Id asignado desde la secuencia order_items_seq en bloques de 50 (optimizador pooled),
+     * así Hibernate puede agrupar los INSERT en lotes JDBC
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_id_gen")
+    @SequenceGenerator(name = "order_items_id_gen", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -38,7 +45,7 @@ public class OrderItem {
      * Precio unitario en CLP
      */
     @Column(name = "unit_price", nullable = false, precision = 10, scale = 2)
-    private BigDecimal unitPrice;
+    private Clp unitPrice;
 
     /**
      * Cantidad de unidades
@@ -50,7 +57,7 @@ public class OrderItem {
      * Subtotal (precio * cantidad)
      */
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal subtotal;
+    private Clp subtotal;
 
     /**
      * Tamaño seleccionado (8 porciones, 12 porciones, 20 porciones)
@@ -71,6 +78,12 @@ public class OrderItem {
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
+    /**
+     * Fecha de creación de la orden (clave de partición mensual de order_items)
+     */
+    @Column(name = "order_created_at", updatable = false)
+    private LocalDateTime orderCreatedAt;
+
     /**
      * Calcula el subtotal antes de persistir
      */
@@ -78,7 +91,10 @@ public class OrderItem {
     @PreUpdate
     protected void calculateSubtotal() {
         if (unitPrice != null && quantity != null) {
-            subtotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+            subtotal = unitPrice.times(quantity);
+        }
+        if (orderCreatedAt == null && order != null) {
+            orderCreatedAt = order.getCreatedAt();
         }
     }
 }
@@ -1,5 +1,11 @@
 package com.milsabores.ventas.entity;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Enum que representa los posibles estados de una orden
  */
@@ -37,5 +43,34 @@ public enum OrderStatus {
     /**
      * Orden entregada
      */
-    DELIVERED
+    DELIVERED;
+
+    /**
+     * Transiciones permitidas desde cada estado; los estados finales no tienen salida
+     */
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(APPROVED, REJECTED, CANCELLED));
+        TRANSITIONS.put(APPROVED, EnumSet.of(PROCESSING, CANCELLED));
+        TRANSITIONS.put(PROCESSING, EnumSet.of(READY, CANCELLED));
+        TRANSITIONS.put(READY, EnumSet.of(DELIVERED));
+        TRANSITIONS.put(REJECTED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(DELIVERED, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    /**
+     * Indica si una orden en este estado puede pasar al estado indicado
+     */
+    public boolean canTransitionTo(OrderStatus target) {
+        return TRANSITIONS.get(this).contains(target);
+    }
+
+    /**
+     * Estados a los que se puede pasar desde este estado
+     */
+    public Set<OrderStatus> allowedTransitions() {
+        return Collections.unmodifiableSet(TRANSITIONS.get(this));
+    }
 }
@@ -0,0 +1,42 @@
+package com.milsabores.ventas.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales por estado de las órdenes de meses archivados
+ * Los escribe PartitionMaintenanceService al desenganchar una partición; la reconciliación
+ * de estadísticas los suma a los de la tabla orders para que archivar no cambie los totales.
+ * Para sacar meses archivados de las estadísticas hay que borrar o ajustar estas filas.
+ */
+@Entity
+@Table(name = "order_status_archive")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStatusArchive {
+
+    /**
+     * Estado al que corresponde la fila
+     */
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private OrderStatus status;
+
+    /**
+     * Cantidad de órdenes archivadas en este estado
+     */
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    /**
+     * Suma de final_amount de las órdenes archivadas en este estado
+     */
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+}
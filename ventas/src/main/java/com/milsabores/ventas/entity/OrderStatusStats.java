@@ -0,0 +1,41 @@
+package com.milsabores.ventas.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Agregado de estadísticas por estado de orden
+ * Se mantiene incrementalmente en cada transición de estado, de modo que
+ * las estadísticas se leen en O(1) sin recorrer la tabla orders
+ */
+@Entity
+@Table(name = "order_status_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStatusStats {
+
+    /**
+     * Estado al que corresponde la fila
+     */
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private OrderStatus status;
+
+    /**
+     * Cantidad de órdenes en este estado
+     */
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    /**
+     * Suma de final_amount de las órdenes en este estado
+     */
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,39 @@
+package com.milsabores.ventas.entity;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Enum que representa la granularidad de los rollups de ventas
+ */
+public enum RollupGranularity {
+    /**
+     * Bucket de una hora
+     */
+    HOUR(ChronoUnit.HOURS),
+
+    /**
+     * Bucket de un día
+     */
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Inicio del bucket que contiene la fecha dada
+     */
+    public LocalDateTime bucketStart(LocalDateTime dateTime) {
+        return dateTime.truncatedTo(unit);
+    }
+
+    /**
+     * Unidad equivalente de date_trunc en PostgreSQL
+     */
+    public String sqlUnit() {
+        return this == HOUR ? "hour" : "day";
+    }
+}
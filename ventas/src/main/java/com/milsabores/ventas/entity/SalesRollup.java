@@ -0,0 +1,74 @@
+package com.milsabores.ventas.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Rollup de ventas por bucket de tiempo, estado y método de pago
+ * Las órdenes se asignan al bucket de su fecha de creación; cada transición
+ * de estado mueve la orden entre filas del mismo bucket
+ */
+@Entity
+@Table(name = "sales_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_rollups_bucket",
+                columnNames = {"granularity", "bucket_start", "status", "payment_method"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Granularidad del bucket: HOUR o DAY
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    /**
+     * Inicio del bucket (truncado a hora o día)
+     */
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    /**
+     * Estado de las órdenes contadas en esta fila
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OrderStatus status;
+
+    /**
+     * Método de pago de las órdenes contadas en esta fila
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", nullable = false, length = 20)
+    private PaymentMethod paymentMethod;
+
+    /**
+     * Cantidad de órdenes
+     */
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    /**
+     * Unidades vendidas (suma de cantidades de los items)
+     */
+    @Column(nullable = false)
+    private long units;
+
+    /**
+     * Suma de final_amount
+     */
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+}
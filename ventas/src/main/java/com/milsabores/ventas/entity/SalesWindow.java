@@ -0,0 +1,26 @@
+package com.milsabores.ventas.entity;
+
+/**
+ * Enum que representa las ventanas de tiempo del ranking de más vendidos
+ */
+public enum SalesWindow {
+    /**
+     * Última hora (buckets de 1 minuto)
+     */
+    HOUR,
+
+    /**
+     * Últimas 24 horas (buckets de 15 minutos)
+     */
+    DAY,
+
+    /**
+     * Últimos 30 días (buckets de 6 horas)
+     */
+    MONTH,
+
+    /**
+     * Todo el histórico
+     */
+    ALL
+}
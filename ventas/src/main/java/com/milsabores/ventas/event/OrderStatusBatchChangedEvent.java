@@ -0,0 +1,13 @@
+package com.milsabores.ventas.event;
+
+import java.util.List;
+
+/**
+ * Evento publicado una vez por cada cambio masivo de estado
+ * Agrupa las transiciones de todas las órdenes del lote para que los listeners
+ * ajusten sus datos derivados una sola vez; se publica dentro de la transacción
+ *
+ * @param changes Transición de cada orden actualizada
+ */
+public record OrderStatusBatchChangedEvent(List<OrderStatusChangedEvent> changes) {
+}
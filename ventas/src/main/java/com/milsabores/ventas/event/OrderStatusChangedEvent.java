@@ -0,0 +1,24 @@
+package com.milsabores.ventas.event;
+
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+
+/**
+ * Evento publicado en cada transición de estado de una orden
+ * Se publica dentro de la transacción que modifica la orden: los listeners
+ * síncronos participan de ella y los transaccionales pueden esperar al commit
+ *
+ * @param order Orden afectada
+ * @param previousStatus Estado anterior (null si la orden se acaba de crear)
+ * @param newStatus Estado nuevo (null si la orden se eliminó)
+ */
+public record OrderStatusChangedEvent(Order order, OrderStatus previousStatus, OrderStatus newStatus) {
+
+    public boolean isCreation() {
+        return previousStatus == null;
+    }
+
+    public boolean isDeletion() {
+        return newStatus == null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.milsabores.ventas.exception;
+
+/**
+ * Excepción lanzada cuando el precio de un producto del carrito no coincide con el del catálogo
+ */
+public class CartPriceMismatchException extends RuntimeException {
+
+    public CartPriceMismatchException(String message) {
+        super(message);
+    }
+}
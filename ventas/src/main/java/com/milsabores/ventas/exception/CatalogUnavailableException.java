@@ -0,0 +1,11 @@
+package com.milsabores.ventas.exception;
+
+/**
+ * Excepción lanzada cuando no hay catálogo de precios cargado para validar una orden
+ */
+public class CatalogUnavailableException extends RuntimeException {
+
+    public CatalogUnavailableException(String message) {
+        super(message);
+    }
+}
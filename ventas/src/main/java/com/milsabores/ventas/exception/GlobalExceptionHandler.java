@@ -2,6 +2,8 @@ package com.milsabores.ventas.exception;
 
 import com.milsabores.ventas.dto.ApiResponseDTO;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -9,7 +11,9 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -41,6 +45,96 @@ public class GlobalExceptionHandler {
                 .body(ApiResponseDTO.error(ex.getMessage()));
     }
 
+    /**
+     * Maneja reintentos con una clave de idempotencia ya usada para otro payload
+     */
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<ApiResponseDTO<Void>> handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException ex) {
+        log.warn("Clave de idempotencia reutilizada: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ApiResponseDTO.error(ex.getMessage()));
+    }
+
+    /**
+     * Maneja violaciones de restricciones únicas (p. ej. dos órdenes con el mismo número en paralelo)
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiResponseDTO<Void>> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        log.warn("Conflicto de integridad de datos: {}", ex.getMostSpecificCause().getMessage());
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponseDTO.error("El recurso ya existe o entra en conflicto con otro"));
+    }
+
+    /**
+     * Maneja cambios concurrentes sobre la misma orden (bloqueo optimista)
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponseDTO<Void>> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        log.warn("Conflicto de versión: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponseDTO.error("La orden fue modificada por otra operación, intente nuevamente"));
+    }
+
+    /**
+     * Maneja órdenes encoladas cuyo lote no se confirmó a tiempo: 202 con el buy order para consultarla
+     */
+    @ExceptionHandler(OrderConfirmationPendingException.class)
+    public ResponseEntity<ApiResponseDTO<Map<String, String>>> handleOrderConfirmationPendingException(
+            OrderConfirmationPendingException ex) {
+        log.warn("Orden aún sin confirmar: {}", ex.getBuyOrder());
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/orders/buyorder/" + ex.getBuyOrder()))
+                .body(ApiResponseDTO.success(ex.getMessage(), Map.of("buyOrder", ex.getBuyOrder())));
+    }
+
+    /**
+     * Maneja la cola de ingesta de órdenes saturada
+     */
+    @ExceptionHandler(OrderIngestionUnavailableException.class)
+    public ResponseEntity<ApiResponseDTO<Void>> handleOrderIngestionUnavailableException(OrderIngestionUnavailableException ex) {
+        log.warn("Ingesta de órdenes no disponible: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponseDTO.error(ex.getMessage()));
+    }
+
+    /**
+     * Maneja carritos con precios distintos a los del catálogo
+     */
+    @ExceptionHandler(CartPriceMismatchException.class)
+    public ResponseEntity<ApiResponseDTO<Void>> handleCartPriceMismatchException(CartPriceMismatchException ex) {
+        log.warn("Precio de carrito rechazado: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponseDTO.error(ex.getMessage()));
+    }
+
+    /**
+     * Maneja pagos de órdenes que ya no están pendientes
+     */
+    @ExceptionHandler(OrderNotPayableException.class)
+    public ResponseEntity<ApiResponseDTO<Void>> handleOrderNotPayableException(OrderNotPayableException ex) {
+        log.warn("Pago rechazado: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponseDTO.error(ex.getMessage()));
+    }
+
+    /**
+     * Maneja el catálogo de precios aún no cargado
+     */
+    @ExceptionHandler(CatalogUnavailableException.class)
+    public ResponseEntity<ApiResponseDTO<Void>> handleCatalogUnavailableException(CatalogUnavailableException ex) {
+        log.warn("Catálogo no disponible: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponseDTO.error(ex.getMessage()));
+    }
+
     /**
      * Maneja excepciones de operación inválida
      */
@@ -52,6 +146,17 @@ public class GlobalExceptionHandler {
                 .body(ApiResponseDTO.error(ex.getMessage()));
     }
 
+    /**
+     * Maneja Transbank no disponible (circuito abierto o bulkhead lleno)
+     */
+    @ExceptionHandler(TransbankUnavailableException.class)
+    public ResponseEntity<ApiResponseDTO<Void>> handleTransbankUnavailableException(TransbankUnavailableException ex) {
+        log.warn("Transbank no disponible: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponseDTO.error(ex.getMessage()));
+    }
+
     /**
      * Maneja excepciones de Transbank
      */
@@ -0,0 +1,15 @@
+package com.milsabores.ventas.exception;
+
+/**
+ * Excepción lanzada cuando se reutiliza una clave de idempotencia con un payload distinto
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+
+    public IdempotencyKeyMismatchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
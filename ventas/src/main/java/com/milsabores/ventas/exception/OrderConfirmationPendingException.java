@@ -0,0 +1,18 @@
+package com.milsabores.ventas.exception;
+
+import lombok.Getter;
+
+/**
+ * Excepción lanzada cuando la orden quedó en la cola de ingesta pero su lote no se confirmó a tiempo
+ * La orden aún puede crearse: el cliente debe consultarla por su buy order en lugar de reintentar
+ */
+@Getter
+public class OrderConfirmationPendingException extends RuntimeException {
+
+    private final String buyOrder;
+
+    public OrderConfirmationPendingException(String buyOrder) {
+        super("La orden " + buyOrder + " se está confirmando; consulte su estado antes de reintentar");
+        this.buyOrder = buyOrder;
+    }
+}
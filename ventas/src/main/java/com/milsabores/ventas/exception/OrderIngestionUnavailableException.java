@@ -0,0 +1,15 @@
+package com.milsabores.ventas.exception;
+
+/**
+ * Excepción lanzada cuando la cola de ingesta de órdenes no puede aceptar o confirmar una orden a tiempo
+ */
+public class OrderIngestionUnavailableException extends RuntimeException {
+
+    public OrderIngestionUnavailableException(String message) {
+        super(message);
+    }
+
+    public OrderIngestionUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package com.milsabores.ventas.exception;
+
+/**
+ * Excepción lanzada cuando se intenta pagar una orden que ya no está pendiente de pago
+ */
+public class OrderNotPayableException extends RuntimeException {
+
+    public OrderNotPayableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.milsabores.ventas.exception;
+
+/**
+ * Excepción lanzada cuando no se llama a Transbank porque el circuito está abierto
+ * o se alcanzó el máximo de llamadas simultáneas
+ */
+public class TransbankUnavailableException extends TransbankException {
+
+    public TransbankUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -4,7 +4,6 @@ import com.milsabores.ventas.dto.*;
 import com.milsabores.ventas.entity.*;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -18,11 +17,14 @@ public class OrderMapper {
      * Convierte un DTO de creación a entidad Order
      */
     public Order toEntity(CreateOrderRequestDTO dto) {
+        Clp amount = Clp.of(dto.getAmount());
+        Clp discount = dto.getDiscountAmount() != null ? Clp.of(dto.getDiscountAmount()) : Clp.ZERO;
+
         Order order = Order.builder()
                 .buyOrder(dto.getBuyOrder())
-                .amount(dto.getAmount())
-                .discountAmount(dto.getDiscountAmount() != null ? dto.getDiscountAmount() : BigDecimal.ZERO)
-                .finalAmount(calculateFinalAmount(dto.getAmount(), dto.getDiscountAmount()))
+                .amount(amount)
+                .discountAmount(discount)
+                .finalAmount(calculateFinalAmount(amount, discount))
                 .status(OrderStatus.PENDING)
                 .paymentMethod(PaymentMethod.valueOf(dto.getPaymentMethod()))
                 .customerInfo(toCustomerInfo(dto.getCustomer()))
@@ -61,12 +63,13 @@ public class OrderMapper {
     public OrderItem toOrderItem(OrderItemDTO dto) {
         if (dto == null) return null;
 
+        Clp unitPrice = Clp.of(dto.getPriceCLP());
         return OrderItem.builder()
                 .productCode(dto.getCode())
                 .productName(dto.getName())
-                .unitPrice(dto.getPriceCLP())
+                .unitPrice(unitPrice)
                 .quantity(dto.getQty())
-                .subtotal(dto.getPriceCLP().multiply(BigDecimal.valueOf(dto.getQty())))
+                .subtotal(unitPrice.times(dto.getQty()))
                 .sizeOption(dto.getOpciones() != null ? dto.getOpciones().getTamano() : null)
                 .customMessage(dto.getOpciones() != null ? dto.getOpciones().getMensaje() : null)
                 .build();
@@ -155,9 +158,9 @@ public class OrderMapper {
     /**
      * Calcula el monto final después de descuentos
      */
-    private BigDecimal calculateFinalAmount(BigDecimal amount, BigDecimal discount) {
-        if (amount == null) return BigDecimal.ZERO;
+    private Clp calculateFinalAmount(Clp amount, Clp discount) {
+        if (amount == null) return Clp.ZERO;
         if (discount == null) return amount;
-        return amount.subtract(discount);
+        return amount.minus(discount);
     }
 }
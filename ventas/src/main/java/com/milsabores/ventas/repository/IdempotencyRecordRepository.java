@@ -0,0 +1,60 @@
+package com.milsabores.ventas.repository;
+
+import com.milsabores.ventas.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repositorio JPA para las claves de idempotencia
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Reserva la clave de forma atómica: inserta o reutiliza una clave vencida
+     * Si otra transacción tiene la clave sin confirmar, PostgreSQL espera a que termine
+     * @return 1 si la clave quedó reservada para esta transacción, 0 si ya existía
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, created_at, expires_at) " +
+                   "VALUES (:key, :requestHash, :now, :expiresAt) " +
+                   "ON CONFLICT (idempotency_key) DO UPDATE SET " +
+                   "request_hash = EXCLUDED.request_hash, created_at = EXCLUDED.created_at, " +
+                   "expires_at = EXCLUDED.expires_at, order_id = NULL, response_body = NULL " +
+                   "WHERE idempotency_keys.expires_at < :now",
+           nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Guarda la respuesta de la orden creada con la clave
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.orderId = :orderId, r.responseBody = :responseBody WHERE r.key = :key")
+    int complete(@Param("key") String key,
+                 @Param("orderId") Long orderId,
+                 @Param("responseBody") String responseBody);
+
+    /**
+     * Elimina una clave reservada
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key")
+    int release(@Param("key") String key);
+
+    /**
+     * Elimina las claves vencidas
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
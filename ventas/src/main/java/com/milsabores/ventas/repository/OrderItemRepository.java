@@ -1,11 +1,14 @@
 package com.milsabores.ventas.repository;
 
 import com.milsabores.ventas.entity.OrderItem;
+import com.milsabores.ventas.entity.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -38,4 +41,30 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
      */
     @Query("SELECT COALESCE(SUM(i.quantity), 0) FROM OrderItem i WHERE i.productCode = :productCode")
     Long countTotalQuantityByProductCode(@Param("productCode") String productCode);
+
+    /**
+     * Unidades vendidas por producto en órdenes con los estados dados (histórico)
+     */
+    @Query("SELECT i.productCode, i.productName, SUM(i.quantity) " +
+           "FROM OrderItem i JOIN i.order o " +
+           "WHERE o.status IN :statuses " +
+           "GROUP BY i.productCode, i.productName")
+    List<Object[]> sumQuantityByProduct(@Param("statuses") Collection<OrderStatus> statuses);
+
+    /**
+     * Items vendidos desde una fecha (código, nombre, fecha de transacción, cantidad)
+     */
+    @Query("SELECT i.productCode, i.productName, o.transactionDate, i.quantity " +
+           "FROM OrderItem i JOIN i.order o " +
+           "WHERE o.status IN :statuses AND o.transactionDate >= :since")
+    List<Object[]> findSoldSince(@Param("statuses") Collection<OrderStatus> statuses,
+                                 @Param("since") LocalDateTime since);
+
+    /**
+     * Órdenes, entre las dadas, que tienen items y están en alguno de los estados
+     */
+    @Query("SELECT DISTINCT o.id FROM OrderItem i JOIN i.order o " +
+           "WHERE o.id IN :orderIds AND o.status IN :statuses")
+    List<Long> findOrderIdsWithStatus(@Param("orderIds") Collection<Long> orderIds,
+                                      @Param("statuses") Collection<OrderStatus> statuses);
 }
@@ -1,17 +1,26 @@
 package com.milsabores.ventas.repository;
 
+import com.milsabores.ventas.dto.OrderStatusRefDTO;
+import com.milsabores.ventas.dto.OrderSummaryDTO;
+import com.milsabores.ventas.dto.PendingPaymentDTO;
 import com.milsabores.ventas.entity.Order;
 import com.milsabores.ventas.entity.OrderStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Repositorio JPA para la entidad Order
@@ -29,6 +38,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     boolean existsByBuyOrder(String buyOrder);
 
+    /**
+     * Devuelve cuáles de los números de orden ya existen (una consulta por lote)
+     */
+    @Query("SELECT o.buyOrder FROM Order o WHERE o.buyOrder IN :buyOrders")
+    Set<String> findExistingBuyOrders(@Param("buyOrders") Collection<String> buyOrders);
+
     /**
      * Busca órdenes por estado
      */
@@ -69,6 +84,18 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     long countByStatus(OrderStatus status);
 
+    /**
+     * Conteo e ingresos agrupados por estado (reconciliación de estadísticas)
+     * Incluye los totales de los meses archivados; una sola sentencia lee ambas tablas en la misma foto
+     */
+    @Query(value = "SELECT status, SUM(order_count), SUM(revenue) FROM (" +
+                   "SELECT status, COUNT(*) AS order_count, COALESCE(SUM(final_amount), 0) AS revenue " +
+                   "FROM orders GROUP BY status " +
+                   "UNION ALL SELECT status, order_count, revenue FROM order_status_archive) t " +
+                   "GROUP BY status",
+           nativeQuery = true)
+    List<Object[]> aggregateByStatus();
+
     /**
      * Busca órdenes que contienen un producto específico
      */
@@ -84,4 +111,198 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      * Busca órdenes por teléfono del cliente
      */
     List<Order> findByCustomerInfoTelefono(String telefono);
+
+    // =====================================================
+    // Consultas en dos fases para listados: primero se pagina sobre ids
+    // y luego se cargan esas órdenes con sus items en una sola consulta IN,
+    // evitando el N+1 de la colección LAZY sin paginar en memoria
+    // =====================================================
+
+    /**
+     * Página de ids de todas las órdenes
+     */
+    @Query(value = "SELECT o.id FROM Order o",
+           countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<Long> findIds(Pageable pageable);
+
+    /**
+     * Página de ids de órdenes por estado
+     */
+    @Query(value = "SELECT o.id FROM Order o WHERE o.status = :status",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status")
+    Page<Long> findIdsByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    /**
+     * Ids de las órdenes más recientes
+     */
+    @Query("SELECT o.id FROM Order o ORDER BY o.createdAt DESC")
+    List<Long> findRecentIds(Pageable pageable);
+
+    /**
+     * Carga órdenes con sus items a partir de sus ids
+     */
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Busca órdenes por estado cargando sus items
+     */
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.status = :status")
+    List<Order> findWithItemsByStatus(@Param("status") OrderStatus status);
+
+    /**
+     * Busca órdenes por email del cliente cargando sus items
+     */
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.customerInfo.email = :email")
+    List<Order> findWithItemsByCustomerEmail(@Param("email") String email);
+
+    /**
+     * Busca órdenes creadas entre dos fechas cargando sus items
+     */
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.createdAt BETWEEN :startDate AND :endDate")
+    List<Order> findWithItemsByCreatedAtBetween(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate
+    );
+
+    /**
+     * Aplica el resultado de un pago sólo si la orden sigue en el estado esperado
+     * Actualización corta y condicionada: no requiere bloquear la fila durante la llamada a Transbank.
+     * Incrementa la versión para que una edición concurrente de la entidad detecte el cambio
+     * @return 1 si se aplicó, 0 si otra operación ya cambió el estado
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.authorizationCode = :authorizationCode, " +
+           "o.cardNumber = :cardNumber, o.errorMessage = :errorMessage, " +
+           "o.transactionDate = :transactionDate, o.updatedAt = :updatedAt, o.version = o.version + 1 " +
+           "WHERE o.buyOrder = :buyOrder AND o.status = :expectedStatus")
+    int applyPaymentResult(@Param("buyOrder") String buyOrder,
+                           @Param("expectedStatus") OrderStatus expectedStatus,
+                           @Param("status") OrderStatus status,
+                           @Param("authorizationCode") String authorizationCode,
+                           @Param("cardNumber") String cardNumber,
+                           @Param("errorMessage") String errorMessage,
+                           @Param("transactionDate") LocalDateTime transactionDate,
+                           @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Guarda el token WebPay de la orden al iniciar el pago, sólo si sigue pendiente
+     * @return 0 si la orden no existe o ya no admite pagos (p. ej. la venció la expiración de pendientes)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.webpayToken = :token, o.version = o.version + 1 " +
+           "WHERE o.buyOrder = :buyOrder AND o.status = com.milsabores.ventas.entity.OrderStatus.PENDING")
+    int assignWebpayToken(@Param("buyOrder") String buyOrder, @Param("token") String token);
+
+    /**
+     * Deja constancia en la orden de un cobro aprobado que no se pudo aplicar, sin cambiar su estado
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.errorMessage = :errorMessage, o.updatedAt = :updatedAt, o.version = o.version + 1 " +
+           "WHERE o.buyOrder = :buyOrder")
+    int recordPaymentError(@Param("buyOrder") String buyOrder,
+                           @Param("errorMessage") String errorMessage,
+                           @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Página de órdenes WebPay pendientes creadas en el rango, por keyset sobre el id
+     * El límite inferior acota la consulta a las particiones recientes
+     */
+    @Query("SELECT new com.milsabores.ventas.dto.PendingPaymentDTO(o.id, o.buyOrder, o.webpayToken, o.createdAt) " +
+           "FROM Order o WHERE o.status = com.milsabores.ventas.entity.OrderStatus.PENDING " +
+           "AND o.paymentMethod = com.milsabores.ventas.entity.PaymentMethod.WEBPAY " +
+           "AND o.webpayToken IS NOT NULL AND o.createdAt >= :createdAfter AND o.createdAt < :createdBefore " +
+           "AND o.id > :afterId ORDER BY o.id")
+    List<PendingPaymentDTO> findPendingWebpayAfter(@Param("afterId") Long afterId,
+                                                   @Param("createdAfter") LocalDateTime createdAfter,
+                                                   @Param("createdBefore") LocalDateTime createdBefore,
+                                                   Pageable pageable);
+
+    /**
+     * Página de las órdenes WebPay pendientes que nunca obtuvieron token, por keyset sobre el id
+     * Recorre el índice (status, payment_method, id); las que tienen token las resuelve la conciliación
+     */
+    @Query("SELECT new com.milsabores.ventas.dto.PendingPaymentDTO(o.id, o.buyOrder, o.webpayToken, o.createdAt) " +
+           "FROM Order o WHERE o.status = com.milsabores.ventas.entity.OrderStatus.PENDING " +
+           "AND o.paymentMethod = com.milsabores.ventas.entity.PaymentMethod.WEBPAY " +
+           "AND o.webpayToken IS NULL AND o.id > :afterId ORDER BY o.id")
+    List<PendingPaymentDTO> findPendingWebpayWithoutTokenAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Cantidad de órdenes WebPay pendientes creadas en el rango
+     */
+    @Query("SELECT COUNT(o) FROM Order o WHERE o.status = com.milsabores.ventas.entity.OrderStatus.PENDING " +
+           "AND o.paymentMethod = com.milsabores.ventas.entity.PaymentMethod.WEBPAY " +
+           "AND o.webpayToken IS NOT NULL AND o.createdAt >= :createdAfter AND o.createdAt < :createdBefore")
+    long countPendingWebpay(@Param("createdAfter") LocalDateTime createdAfter,
+                            @Param("createdBefore") LocalDateTime createdBefore);
+
+    /**
+     * Resúmenes de órdenes anteriores al cursor (created_at, id), de la más reciente a la más antigua
+     */
+    @Query("SELECT new com.milsabores.ventas.dto.OrderSummaryDTO(o.id, o.buyOrder, o.status, o.finalAmount, " +
+           "o.customerInfo.nombre, (SELECT COUNT(i) FROM OrderItem i WHERE i.order = o), o.createdAt) " +
+           "FROM Order o WHERE (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryDTO> findSummariesBefore(@Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
+
+    /**
+     * Resúmenes de órdenes con el estado dado anteriores al cursor (created_at, id)
+     */
+    @Query("SELECT new com.milsabores.ventas.dto.OrderSummaryDTO(o.id, o.buyOrder, o.status, o.finalAmount, " +
+           "o.customerInfo.nombre, (SELECT COUNT(i) FROM OrderItem i WHERE i.order = o), o.createdAt) " +
+           "FROM Order o WHERE o.status = :status AND (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryDTO> findSummariesByStatusBefore(@Param("status") OrderStatus status,
+                                                      @Param("createdAt") LocalDateTime createdAt,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
+
+    /**
+     * Ids del historial de un cliente anteriores al cursor (created_at, id), de la más reciente a la más antigua
+     * Recorre el índice (customer_email, created_at DESC, id DESC): el costo depende del tamaño de la página
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.customerInfo.email = :email " +
+           "AND (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findHistoryIdsBefore(@Param("email") String email,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable pageable);
+
+    /**
+     * Estado actual de las órdenes indicadas por id o por número de orden, bloqueando sus filas
+     * (en orden de id para que dos lotes concurrentes no se bloqueen mutuamente)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.milsabores.ventas.dto.OrderStatusRefDTO(o.id, o.buyOrder, o.status) " +
+           "FROM Order o WHERE o.id IN :ids OR o.buyOrder IN :buyOrders ORDER BY o.id")
+    List<OrderStatusRefDTO> lockStatusByIdOrBuyOrder(@Param("ids") Collection<Long> ids,
+                                                      @Param("buyOrders") Collection<String> buyOrders);
+
+    /**
+     * Ids de las órdenes indicadas que siguen pendientes y sin token WebPay, bloqueando sus filas
+     * (en orden de id); una orden con token puede estar pagada y sólo se resuelve consultando a Transbank
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids " +
+           "AND o.status = com.milsabores.ventas.entity.OrderStatus.PENDING " +
+           "AND o.webpayToken IS NULL ORDER BY o.id")
+    List<Long> lockPendingWithoutToken(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Cambia el estado de varias órdenes en un solo UPDATE, sólo si siguen en el estado esperado
+     * @return cantidad de órdenes actualizadas
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :updatedAt, o.version = o.version + 1 " +
+           "WHERE o.id IN :ids AND o.status = :expectedStatus")
+    int transitionStatus(@Param("ids") Collection<Long> ids,
+                         @Param("expectedStatus") OrderStatus expectedStatus,
+                         @Param("status") OrderStatus status,
+                         @Param("updatedAt") LocalDateTime updatedAt);
 }
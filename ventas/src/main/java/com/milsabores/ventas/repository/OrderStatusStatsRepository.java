@@ -0,0 +1,38 @@
+package com.milsabores.ventas.repository;
+
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.OrderStatusStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Repositorio JPA para el agregado de estadísticas por estado
+ */
+@Repository
+public interface OrderStatusStatsRepository extends JpaRepository<OrderStatusStats, OrderStatus> {
+
+    /**
+     * Suma (o resta) conteo e ingresos a la fila de un estado
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE OrderStatusStats s SET s.orderCount = s.orderCount + :count, " +
+           "s.revenue = s.revenue + :amount WHERE s.status = :status")
+    int increment(@Param("status") OrderStatus status,
+                  @Param("count") long count,
+                  @Param("amount") BigDecimal amount);
+
+    /**
+     * Bloquea la fila de un estado (la reconciliación las recorre en orden ordinal)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM OrderStatusStats s WHERE s.status = :status")
+    Optional<OrderStatusStats> lockByStatus(@Param("status") OrderStatus status);
+}
@@ -0,0 +1,86 @@
+package com.milsabores.ventas.repository;
+
+import com.milsabores.ventas.dto.SalesSeriesPointDTO;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.entity.RollupGranularity;
+import com.milsabores.ventas.entity.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio JPA para los rollups de ventas
+ */
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+
+    /**
+     * Suma (o resta) un delta a un bucket, creándolo si no existe
+     */
+    @Modifying
+    @Query(value = "INSERT INTO sales_rollups (granularity, bucket_start, status, payment_method, order_count, units, revenue) " +
+                   "VALUES (:granularity, :bucketStart, :status, :paymentMethod, :count, :units, :revenue) " +
+                   "ON CONFLICT (granularity, bucket_start, status, payment_method) DO UPDATE SET " +
+                   "order_count = sales_rollups.order_count + EXCLUDED.order_count, " +
+                   "units = sales_rollups.units + EXCLUDED.units, " +
+                   "revenue = sales_rollups.revenue + EXCLUDED.revenue",
+           nativeQuery = true)
+    void upsertDelta(@Param("granularity") String granularity,
+                     @Param("bucketStart") LocalDateTime bucketStart,
+                     @Param("status") String status,
+                     @Param("paymentMethod") String paymentMethod,
+                     @Param("count") long count,
+                     @Param("units") long units,
+                     @Param("revenue") BigDecimal revenue);
+
+    /**
+     * Serie temporal agregada desde los rollups
+     */
+    @Query("SELECT new com.milsabores.ventas.dto.SalesSeriesPointDTO(" +
+           "r.bucketStart, SUM(r.orderCount), SUM(r.units), SUM(r.revenue)) " +
+           "FROM SalesRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "AND r.status IN :statuses AND r.paymentMethod IN :paymentMethods " +
+           "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<SalesSeriesPointDTO> findSeries(@Param("granularity") RollupGranularity granularity,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to,
+                                         @Param("statuses") Collection<OrderStatus> statuses,
+                                         @Param("paymentMethods") Collection<PaymentMethod> paymentMethods);
+
+    /**
+     * Borra los rollups de un rango (antes de recalcularlo)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM sales_rollups WHERE granularity = :granularity " +
+                   "AND bucket_start >= :from AND bucket_start < :to",
+           nativeQuery = true)
+    int deleteRange(@Param("granularity") String granularity,
+                    @Param("from") LocalDateTime from,
+                    @Param("to") LocalDateTime to);
+
+    /**
+     * Recalcula los rollups de un rango directamente desde orders y order_items
+     */
+    @Modifying
+    @Query(value = "INSERT INTO sales_rollups (granularity, bucket_start, status, payment_method, order_count, units, revenue) " +
+                   "SELECT :granularity, date_trunc(:unit, o.created_at), o.status, o.payment_method, " +
+                   "COUNT(*), COALESCE(SUM(u.units), 0), COALESCE(SUM(o.final_amount), 0) " +
+                   "FROM orders o " +
+                   "LEFT JOIN LATERAL (SELECT SUM(i.quantity) AS units FROM order_items i WHERE i.order_id = o.id) u ON TRUE " +
+                   "WHERE o.created_at >= :from AND o.created_at < :to " +
+                   "GROUP BY 2, 3, 4",
+           nativeQuery = true)
+    int rebuildRange(@Param("granularity") String granularity,
+                     @Param("unit") String unit,
+                     @Param("from") LocalDateTime from,
+                     @Param("to") LocalDateTime to);
+}
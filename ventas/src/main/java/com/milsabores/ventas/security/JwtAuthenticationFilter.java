@@ -1,12 +1,15 @@
 package com.milsabores.ventas.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -14,6 +17,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Filtro de autenticación JWT
@@ -26,6 +30,13 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final TokenRevocationList revocationList;
+
+    /**
+     * Correos con rol ADMIN; el token de usuarios no incluye roles, así que se asignan aquí
+     */
+    @Value("${app.security.admin-emails:}")
+    private List<String> adminEmails;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -44,13 +55,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String jwt = authHeader.substring(7);
 
         if (jwtService.isTokenValid(jwt)) {
-            String username = jwtService.extractUsername(jwt);
+            Claims claims = jwtService.extractClaims(jwt);
+            String username = claims.getSubject();
+
+            // Token revocado en usuarios (logout o reuso de refresh token)
+            if (revocationList.isRevoked(claims.getId())) {
+                log.debug("Token JWT revocado para usuario: {}", username);
+                filterChain.doFilter(request, response);
+                return;
+            }
 
             log.debug("Token JWT válido para usuario: {}", username);
 
-            // Crear autenticación sin roles (el token de usuarios no incluye roles)
+            // El token de usuarios no incluye roles: sólo los correos configurados reciben ROLE_ADMIN
             UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                    username, null, Collections.emptyList());
+                    username, null, isAdmin(username)
+                            ? List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))
+                            : Collections.emptyList());
 
             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -60,4 +81,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private boolean isAdmin(String username) {
+        return username != null && adminEmails.stream().anyMatch(username::equalsIgnoreCase);
+    }
 }
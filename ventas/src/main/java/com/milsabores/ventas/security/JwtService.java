@@ -25,15 +25,21 @@ public class JwtService {
     }
 
     /**
-     * Extrae el nombre de usuario (subject) del token JWT
+     * Extrae los claims del token JWT (valida firma y expiración)
      */
-    public String extractUsername(String token) {
+    public Claims extractClaims(String token) {
         return Jwts.parserBuilder()
                 .setSigningKey(getSignKey())
                 .build()
                 .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+                .getBody();
+    }
+
+    /**
+     * Extrae el nombre de usuario (subject) del token JWT
+     */
+    public String extractUsername(String token) {
+        return extractClaims(token).getSubject();
     }
 
     /**
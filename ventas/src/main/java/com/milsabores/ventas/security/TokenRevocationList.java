@@ -0,0 +1,107 @@
+package com.milsabores.ventas.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lista en memoria de access tokens revocados por el servicio de usuarios.
+ * El chequeo por request no va a la base de datos: el filtro de Bloom descarta
+ * en tiempo constante los tokens no revocados y solo los positivos se confirman
+ * en el mapa exacto. Se alimenta leyendo incrementalmente la tabla tokens_revocados.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationList {
+
+    private static final int BATCH_SIZE = 500;
+
+    // Se relee un pequeño tramo hacia atrás por si un insert con id menor se confirmó tarde
+    private static final long OVERLAP = 50;
+
+    private static final String SQL_INCREMENTAL =
+            "SELECT id, jti, expira_en FROM tokens_revocados " +
+            "WHERE id > ? AND expira_en > ? ORDER BY id LIMIT " + BATCH_SIZE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.jwt.revocation.expected-size:10000}")
+    private int expectedSize;
+
+    // jti -> vencimiento del access token (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+    private volatile long lastId;
+
+    /**
+     * Indica si el token con el jti dado fue revocado
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) return false;
+        BloomFilter current = bloom;
+        if (current != null && !current.mightContain(jti)) {
+            return false;
+        }
+        return revoked.containsKey(jti);
+    }
+
+    /**
+     * Lee las revocaciones nuevas desde la última vista
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.refresh-ms:5000}")
+    public void refresh() {
+        if (bloom == null) {
+            bloom = new BloomFilter(expectedSize, 0.01);
+        }
+        try {
+            long from = Math.max(0, lastId - OVERLAP);
+            while (true) {
+                List<Entry> batch = jdbcTemplate.query(SQL_INCREMENTAL,
+                        (rs, i) -> new Entry(rs.getLong("id"), rs.getString("jti"),
+                                rs.getTimestamp("expira_en").toInstant()),
+                        from, Timestamp.from(Instant.now()));
+                for (Entry e : batch) {
+                    // Primero el mapa y luego el filtro vigente: compact() re-agrega lo que vea en el mapa
+                    revoked.put(e.jti(), e.expiresAt().toEpochMilli());
+                    bloom.add(e.jti());
+                    from = e.id();
+                }
+                lastId = Math.max(lastId, from);
+                if (batch.size() < BATCH_SIZE) break;
+            }
+        } catch (DataAccessException e) {
+            // La tabla la crea el servicio de usuarios; puede no existir aún
+            log.debug("No se pudo leer tokens_revocados: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Saca los tokens vencidos y reconstruye el filtro (no admite borrado)
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.compact-ms:600000}")
+    public void compact() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(exp -> exp < now);
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedSize, revoked.size() * 2), 0.01);
+        revoked.keySet().forEach(rebuilt::add);
+        bloom = rebuilt;
+        // Un refresh concurrente pudo agregar al filtro anterior algo que el recorrido no vio;
+        // ya está en el mapa, así que una segunda pasada tras el cambio lo lleva al filtro nuevo
+        revoked.keySet().forEach(rebuilt::add);
+        log.debug("Lista de revocación compactada: {} tokens", revoked.size());
+    }
+
+    private record Entry(long id, String jti, Instant expiresAt) {}
+}
@@ -0,0 +1,54 @@
+package com.milsabores.ventas.service;
+
+import com.milsabores.ventas.dto.IdempotencyClaim;
+import com.milsabores.ventas.dto.OrderResponseDTO;
+
+import java.util.Optional;
+
+/**
+ * Interfaz del almacén de claves de idempotencia para la creación de órdenes
+ */
+public interface IdempotencyService {
+
+    /**
+     * Calcula el hash del payload de la solicitud
+     */
+    String hashRequest(Object request);
+
+    /**
+     * Valida el formato de la clave enviada por el cliente
+     */
+    void validateKey(String key);
+
+    /**
+     * Clave con la que se guarda el registro: la del cliente acotada al usuario autenticado
+     */
+    String scopeKey(String subject, String key);
+
+    /**
+     * Busca la respuesta ya confirmada para la clave, sin reservarla
+     * Vacío si la clave no existe, venció o su orden aún no se confirma; si no, REPLAYED o MISMATCH
+     */
+    Optional<IdempotencyClaim> findCompleted(String key, String requestHash);
+
+    /**
+     * Reserva la clave dentro de la transacción actual
+     * No lanza excepciones por claves repetidas: el resultado indica si se debe repetir la respuesta original
+     */
+    IdempotencyClaim claim(String key, String requestHash);
+
+    /**
+     * Libera una clave reservada cuya orden no se pudo crear
+     */
+    void release(String key);
+
+    /**
+     * Guarda la respuesta de la orden creada con la clave reservada
+     */
+    void complete(String key, String requestHash, OrderResponseDTO response);
+
+    /**
+     * Elimina las claves vencidas
+     */
+    void purgeExpired();
+}
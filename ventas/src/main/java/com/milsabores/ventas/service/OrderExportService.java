@@ -0,0 +1,21 @@
+package com.milsabores.ventas.service;
+
+import com.milsabores.ventas.entity.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * Interfaz del servicio de exportación de órdenes
+ */
+public interface OrderExportService {
+
+    /**
+     * Escribe las órdenes creadas en el rango y sus items en el stream, fila a fila
+     * @param startDate inicio del rango (inclusive)
+     * @param endDate fin del rango (inclusive)
+     */
+    void exportOrders(LocalDateTime startDate, LocalDateTime endDate, ExportFormat format, OutputStream out)
+            throws IOException;
+}
@@ -0,0 +1,15 @@
+package com.milsabores.ventas.service;
+
+import com.milsabores.ventas.dto.CreateOrderRequestDTO;
+
+/**
+ * Interfaz del servicio de precios de órdenes
+ */
+public interface OrderPricingService {
+
+    /**
+     * Valida el carrito contra el catálogo local: cada producto debe existir con el precio enviado
+     * y el monto total debe coincidir con la suma de las líneas. Deja en los items el nombre del catálogo
+     */
+    void priceOrder(CreateOrderRequestDTO request);
+}
@@ -19,6 +19,13 @@ public interface OrderService {
      */
     OrderResponseDTO createOrder(CreateOrderRequestDTO request);
 
+    /**
+     * Crea una nueva orden con una clave de idempotencia
+     * La clave vale sólo para el usuario que la envía; un reintento suyo con la misma clave y payload
+     * devuelve la orden original, aunque el catálogo haya cambiado
+     */
+    OrderResponseDTO createOrder(CreateOrderRequestDTO request, String idempotencyKey, String subject);
+
     /**
      * Obtiene una orden por ID
      */
@@ -59,6 +66,12 @@ public interface OrderService {
      */
     OrderResponseDTO updateOrderStatusByBuyOrder(String buyOrder, UpdateOrderStatusDTO request);
 
+    /**
+     * Cambia el estado de varias órdenes (por id o número de orden) con UPDATE por lote
+     * @return resultado por orden; las que no existen o no admiten la transición no se modifican
+     */
+    BulkOrderStatusResultDTO bulkUpdateOrderStatus(BulkUpdateOrderStatusDTO request);
+
     /**
      * Cancela una orden
      */
@@ -79,6 +92,18 @@ public interface OrderService {
      */
     List<OrderResponseDTO> getOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate);
 
+    /**
+     * Historial de órdenes de un cliente, de la más reciente a la más antigua, paginado por cursor
+     * @param cursor cursor devuelto por la página anterior, o null para la primera
+     */
+    OrderHistoryPageDTO getCustomerOrderHistory(String email, String cursor, int size);
+
+    /**
+     * Lista resúmenes de órdenes paginados por cursor (created_at, id), opcionalmente por estado
+     * @param cursor cursor devuelto por la página anterior, o null para la primera
+     */
+    OrderSummaryPageDTO getOrderSummaries(OrderStatus status, String cursor, int size);
+
     /**
      * Obtiene estadísticas de órdenes
      */
@@ -0,0 +1,29 @@
+package com.milsabores.ventas.service;
+
+import com.milsabores.ventas.dto.OrderStatsDTO;
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.OrderStatus;
+
+/**
+ * Interfaz del servicio de estadísticas de órdenes mantenidas incrementalmente
+ */
+public interface OrderStatsService {
+
+    /**
+     * Registra una transición de estado dentro de la transacción actual
+     * @param from Estado anterior (null si la orden se acaba de crear)
+     * @param to Estado nuevo (null si la orden se eliminó)
+     * @param finalAmount Monto final de la orden
+     */
+    void recordTransition(OrderStatus from, OrderStatus to, Clp finalAmount);
+
+    /**
+     * Obtiene las estadísticas actuales (lectura O(1))
+     */
+    OrderStatsDTO getStats();
+
+    /**
+     * Recalcula el agregado desde la tabla orders más los totales de los meses archivados
+     */
+    void reconcile();
+}
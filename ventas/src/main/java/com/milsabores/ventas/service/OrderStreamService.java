@@ -0,0 +1,16 @@
+package com.milsabores.ventas.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Interfaz del servicio de feed en vivo de órdenes (Server-Sent Events)
+ */
+public interface OrderStreamService {
+
+    /**
+     * Registra un suscriptor al feed
+     * @param lastEventId último evento recibido antes de reconectar (null en la primera conexión);
+     *                    si sigue en el buffer se reenvían los posteriores
+     */
+    SseEmitter subscribe(String lastEventId);
+}
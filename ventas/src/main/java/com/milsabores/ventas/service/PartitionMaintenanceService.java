@@ -0,0 +1,19 @@
+package com.milsabores.ventas.service;
+
+/**
+ * Interfaz del mantenimiento de particiones mensuales de órdenes
+ */
+public interface PartitionMaintenanceService {
+
+    /**
+     * Crea las particiones de los próximos meses si faltan
+     */
+    void ensureUpcomingPartitions();
+
+    /**
+     * Exporta a disco y desengancha las particiones antiguas cuyas órdenes están cerradas
+     * Sus totales pasan a order_status_archive y sus buy orders se liberan de order_buy_orders
+     * @return cantidad de meses archivados
+     */
+    int archiveClosedPartitions();
+}
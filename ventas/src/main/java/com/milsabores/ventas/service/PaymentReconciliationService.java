@@ -0,0 +1,13 @@
+package com.milsabores.ventas.service;
+
+/**
+ * Interfaz del servicio de conciliación de pagos WebPay pendientes
+ */
+public interface PaymentReconciliationService {
+
+    /**
+     * Consulta en Transbank las órdenes WebPay pendientes y aplica su resultado
+     * @return cantidad de órdenes cuyo estado cambió
+     */
+    int reconcilePendingPayments();
+}
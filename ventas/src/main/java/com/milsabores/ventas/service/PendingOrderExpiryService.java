@@ -0,0 +1,19 @@
+package com.milsabores.ventas.service;
+
+/**
+ * Interfaz del servicio de vencimiento de órdenes WebPay pendientes
+ */
+public interface PendingOrderExpiryService {
+
+    /**
+     * Programa el vencimiento de las órdenes WebPay pendientes sin token (al iniciar)
+     * @return cantidad de órdenes programadas
+     */
+    int loadPendingOrders();
+
+    /**
+     * Cancela las órdenes cuyo plazo ya venció y que siguen sin token WebPay
+     * @return cantidad de órdenes canceladas
+     */
+    int expireDueOrders();
+}
@@ -0,0 +1,34 @@
+package com.milsabores.ventas.service;
+
+import com.milsabores.ventas.dto.SalesSeriesPointDTO;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.entity.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Interfaz del servicio de rollups de ventas por hora y por día
+ */
+public interface SalesRollupService {
+
+    /**
+     * Obtiene la serie temporal desde los rollups
+     * @param granularity HOUR o DAY
+     * @param from Inicio del rango (inclusive)
+     * @param to Fin del rango (exclusivo)
+     * @param statuses Estados a considerar (vacío = estados pagados)
+     * @param paymentMethods Métodos de pago a considerar (vacío = todos)
+     */
+    List<SalesSeriesPointDTO> getSeries(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                        Set<OrderStatus> statuses, Set<PaymentMethod> paymentMethods);
+
+    /**
+     * Recalcula los rollups de un rango de fechas, un día por tarea en paralelo
+     * @throws IllegalArgumentException si el rango está invertido o supera los 366 días
+     * @return Cantidad de días recalculados
+     */
+    int backfill(LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,22 @@
+package com.milsabores.ventas.service;
+
+import com.milsabores.ventas.dto.TopProductDTO;
+import com.milsabores.ventas.entity.SalesWindow;
+
+import java.util.List;
+
+/**
+ * Interfaz del servicio de productos más vendidos
+ */
+public interface TopSellersService {
+
+    /**
+     * Obtiene los K productos más vendidos en la ventana indicada
+     */
+    List<TopProductDTO> getTopSellers(SalesWindow window, int k);
+
+    /**
+     * Reconstruye los contadores desde la base de datos
+     */
+    void rebuild();
+}
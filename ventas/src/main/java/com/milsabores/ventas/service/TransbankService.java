@@ -8,13 +8,12 @@ import com.milsabores.ventas.dto.transbank.*;
 public interface TransbankService {
 
     /**
-     * Inicia una transacción de pago en WebPay
+     * Inicia una transacción de pago en WebPay por el monto final guardado en la orden
      * @param buyOrder Número de orden
-     * @param amount Monto a pagar
      * @param sessionId ID de sesión (opcional)
      * @return Datos para redirigir al formulario de pago
      */
-    InitPaymentResponseDTO initTransaction(String buyOrder, int amount, String sessionId);
+    InitPaymentResponseDTO initTransaction(String buyOrder, String sessionId);
 
     /**
      * Confirma una transacción después del retorno de WebPay
@@ -0,0 +1,111 @@
+package com.milsabores.ventas.service.impl;
+
+import java.util.Arrays;
+
+/**
+ * Corte de circuito por conteo sobre las últimas N llamadas
+ * CLOSED: deja pasar todo y registra resultados; si la tasa de fallas supera el umbral pasa a OPEN.
+ * OPEN: rechaza sin llamar hasta que vence el plazo; luego HALF_OPEN deja pasar una sola llamada de prueba
+ * que cierra el circuito si sale bien o lo vuelve a abrir si falla.
+ */
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] failuresRing;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int index;
+    private int calls;
+    private int failures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    CircuitBreaker(int windowSize, int minimumCalls, int failureRatePercent, long openMillis) {
+        this.failuresRing = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRatePercent = failureRatePercent;
+        this.openNanos = openMillis * 1_000_000L;
+    }
+
+    /**
+     * Indica si se puede hacer la llamada; en HALF_OPEN reserva el único cupo de prueba
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                return false;
+            }
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    /**
+     * Devuelve el permiso de una llamada que finalmente no se hizo
+     */
+    synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (calls >= minimumCalls && failures * 100 >= calls * failureRatePercent) {
+            open();
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == failuresRing.length) {
+            if (failuresRing[index]) failures--;
+        } else {
+            calls++;
+        }
+        failuresRing[index] = failure;
+        if (failure) failures++;
+        index = (index + 1) % failuresRing.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        probeInFlight = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        index = 0;
+        calls = 0;
+        failures = 0;
+        probeInFlight = false;
+        Arrays.fill(failuresRing, false);
+    }
+}
@@ -0,0 +1,117 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.OrderHistoryPageDTO;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Caché de las primeras páginas del historial de órdenes de cada cliente
+ * Se invalida por cliente con cada creación o cambio de estado de sus órdenes (después del commit).
+ * Un contador de generación por franja de emails evita que una lectura que empezó antes
+ * de la invalidación deje en el caché una página vieja.
+ */
+@Component
+class CustomerHistoryCache {
+
+    private static final int STRIPES = 1024;
+
+    private final int maxPagesPerCustomer;
+    private final Map<String, Map<String, OrderHistoryPageDTO>> pagesByCustomer;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    CustomerHistoryCache(@Value("${ventas.history-cache.max-customers:10000}") int maxCustomers,
+                         @Value("${ventas.history-cache.pages-per-customer:3}") int maxPagesPerCustomer) {
+        this.maxPagesPerCustomer = maxPagesPerCustomer;
+        this.pagesByCustomer = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, OrderHistoryPageDTO>> eldest) {
+                return size() > maxCustomers;
+            }
+        };
+    }
+
+    /**
+     * Generación actual del cliente; se pasa a {@link #put} para descartar lecturas obsoletas
+     */
+    long generation(String email) {
+        return generations.get(stripe(email));
+    }
+
+    OrderHistoryPageDTO get(String email, String cursor, int size) {
+        synchronized (pagesByCustomer) {
+            Map<String, OrderHistoryPageDTO> pages = pagesByCustomer.get(email);
+            return pages != null ? pages.get(pageKey(cursor, size)) : null;
+        }
+    }
+
+    void put(String email, String cursor, int size, OrderHistoryPageDTO page, long generation) {
+        synchronized (pagesByCustomer) {
+            if (generations.get(stripe(email)) != generation) {
+                return;
+            }
+            pagesByCustomer.computeIfAbsent(email, k -> new LinkedHashMap<>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, OrderHistoryPageDTO> eldest) {
+                    return size() > maxPagesPerCustomer;
+                }
+            }).put(pageKey(cursor, size), page);
+        }
+    }
+
+    void invalidate(String email) {
+        synchronized (pagesByCustomer) {
+            generations.incrementAndGet(stripe(email));
+            pagesByCustomer.remove(email);
+        }
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.order().getCustomerInfo() != null) {
+            invalidateAfterCommit(Set.of(event.order().getCustomerInfo().getEmail()));
+        }
+    }
+
+    @EventListener
+    public void onBatchStatusChanged(OrderStatusBatchChangedEvent event) {
+        Set<String> emails = new HashSet<>();
+        for (OrderStatusChangedEvent change : event.changes()) {
+            if (change.order().getCustomerInfo() != null) {
+                emails.add(change.order().getCustomerInfo().getEmail());
+            }
+        }
+        invalidateAfterCommit(emails);
+    }
+
+    private void invalidateAfterCommit(Set<String> emails) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    emails.forEach(CustomerHistoryCache.this::invalidate);
+                }
+            });
+        } else {
+            emails.forEach(this::invalidate);
+        }
+    }
+
+    private String pageKey(String cursor, int size) {
+        return (cursor != null ? cursor : "") + "#" + size;
+    }
+
+    private int stripe(String email) {
+        return (email.hashCode() & 0x7fffffff) % STRIPES;
+    }
+}
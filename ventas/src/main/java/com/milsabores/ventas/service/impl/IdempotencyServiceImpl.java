@@ -0,0 +1,213 @@
+package com.milsabores.ventas.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milsabores.ventas.dto.IdempotencyClaim;
+import com.milsabores.ventas.dto.OrderResponseDTO;
+import com.milsabores.ventas.repository.IdempotencyRecordRepository;
+import com.milsabores.ventas.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Implementación del almacén de idempotencia
+ * La tabla idempotency_keys es la fuente de verdad; un caché LRU en memoria
+ * responde los reintentos frecuentes sin ir a la base de datos
+ * Las claves llegan ya acotadas al usuario (ver scopeKey)
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Map<String, CachedResponse> hotCache;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  ObjectMapper objectMapper,
+                                  @Value("${ventas.idempotency.ttl-hours:24}") long ttlHours,
+                                  @Value("${ventas.idempotency.cache-size:10000}") int cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.hotCache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public String hashRequest(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular el hash de la solicitud", e);
+        }
+    }
+
+    @Override
+    public void validateKey(String key) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("La clave de idempotencia no puede superar " + MAX_KEY_LENGTH + " caracteres");
+        }
+    }
+
+    /**
+     * SHA-256 de usuario y clave: cabe en la columna aunque el correo sea largo
+     */
+    @Override
+    public String scopeKey(String subject, String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(subject.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular la clave de idempotencia", e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<IdempotencyClaim> findCompleted(String key, String requestHash) {
+        return loadCompleted(key, LocalDateTime.now())
+                .map(completed -> replay(key, completed.requestHash(), requestHash, completed.response()));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public IdempotencyClaim claim(String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        CachedResponse cached = getCached(key, now);
+        if (cached != null) {
+            return replay(key, cached.requestHash(), requestHash, cached.response());
+        }
+
+        // Si otra solicitud con la misma clave sigue en curso, el INSERT espera a que confirme
+        if (idempotencyRecordRepository.claim(key, requestHash, now, now.plus(ttl)) == 1) {
+            return IdempotencyClaim.acquired();
+        }
+
+        return loadCompleted(key, now)
+                .map(completed -> replay(key, completed.requestHash(), requestHash, completed.response()))
+                .orElseGet(() -> IdempotencyClaim.of(IdempotencyClaim.Outcome.IN_PROGRESS));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String key) {
+        idempotencyRecordRepository.release(key);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void complete(String key, String requestHash, OrderResponseDTO response) {
+        idempotencyRecordRepository.complete(key, response.getId(), writeResponse(response));
+
+        // Publicar en el caché sólo si la orden quedó confirmada
+        CachedResponse cached = new CachedResponse(requestHash, response, LocalDateTime.now().plus(ttl));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                putCached(key, cached);
+            }
+        });
+    }
+
+    @Override
+    @Scheduled(cron = "${ventas.idempotency.purge-cron:0 30 * * * *}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = idempotencyRecordRepository.deleteExpired(now);
+        synchronized (hotCache) {
+            hotCache.values().removeIf(c -> c.expiresAt().isBefore(now));
+        }
+        if (deleted > 0) {
+            log.info("Claves de idempotencia vencidas eliminadas: {}", deleted);
+        }
+    }
+
+    /**
+     * Devuelve la respuesta original si el payload coincide con el de la clave
+     */
+    private IdempotencyClaim replay(String key, String storedHash, String requestHash, OrderResponseDTO response) {
+        if (!storedHash.equals(requestHash)) {
+            return IdempotencyClaim.of(IdempotencyClaim.Outcome.MISMATCH);
+        }
+        log.info("Reintento con clave de idempotencia {}: se devuelve la orden {}", key, response.getId());
+        return IdempotencyClaim.replayed(response);
+    }
+
+    /**
+     * Respuesta confirmada y vigente de la clave, desde el caché o la tabla
+     */
+    private Optional<CachedResponse> loadCompleted(String key, LocalDateTime now) {
+        CachedResponse cached = getCached(key, now);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<CachedResponse> stored = idempotencyRecordRepository.findById(key)
+                .filter(r -> r.getResponseBody() != null && !r.getExpiresAt().isBefore(now))
+                .map(r -> new CachedResponse(r.getRequestHash(), readResponse(r.getResponseBody()), r.getExpiresAt()));
+        stored.ifPresent(c -> putCached(key, c));
+        return stored;
+    }
+
+    private CachedResponse getCached(String key, LocalDateTime now) {
+        synchronized (hotCache) {
+            CachedResponse cached = hotCache.get(key);
+            if (cached != null && cached.expiresAt().isBefore(now)) {
+                hotCache.remove(key);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private void putCached(String key, CachedResponse cached) {
+        synchronized (hotCache) {
+            hotCache.put(key, cached);
+        }
+    }
+
+    private String writeResponse(OrderResponseDTO response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta de la orden", e);
+        }
+    }
+
+    private OrderResponseDTO readResponse(String body) {
+        try {
+            return objectMapper.readValue(body, OrderResponseDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo leer la respuesta guardada de la orden", e);
+        }
+    }
+
+    private record CachedResponse(String requestHash, OrderResponseDTO response, LocalDateTime expiresAt) {
+    }
+}
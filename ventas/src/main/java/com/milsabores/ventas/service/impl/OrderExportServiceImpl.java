@@ -0,0 +1,246 @@
+package com.milsabores.ventas.service.impl;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milsabores.ventas.entity.ExportFormat;
+import com.milsabores.ventas.service.OrderExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Exportación de órdenes en streaming
+ * Lee órdenes e items con un solo JOIN sobre un cursor JDBC de sólo avance (fetch size fijo)
+ * y escribe cada fila a la respuesta apenas llega: la memoria usada no depende del rango
+ */
+@Service
+@Slf4j
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private static final String EXPORT_SQL =
+            "SELECT o.id, o.buy_order, o.status, o.payment_method, o.amount, o.discount_amount, o.final_amount, " +
+            "o.authorization_code, o.card_number, o.error_message, o.created_at, o.transaction_date, " +
+            "o.customer_name, o.customer_email, o.customer_phone, o.customer_address, o.customer_comuna, o.customer_city, " +
+            "i.id AS item_id, i.product_code, i.product_name, i.unit_price, i.quantity, i.subtotal, " +
+            "i.size_option, i.custom_message " +
+            "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id " +
+            "WHERE o.created_at BETWEEN ? AND ? " +
+            "ORDER BY o.id, i.id";
+
+    private static final String CSV_HEADER =
+            "order_id,buy_order,status,payment_method,amount,discount_amount,final_amount,authorization_code," +
+            "created_at,transaction_date,customer_name,customer_email,customer_comuna,customer_city," +
+            "item_id,product_code,product_name,unit_price,quantity,subtotal,size_option,custom_message\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public OrderExportServiceImpl(DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  @Value("${ventas.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL sólo usa cursor (y respeta el fetch size) con autocommit desactivado
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void exportOrders(LocalDateTime startDate, LocalDateTime endDate, ExportFormat format, OutputStream out)
+            throws IOException {
+        log.info("Exportando órdenes {} entre {} y {}", format, startDate, endDate);
+        try {
+            if (format == ExportFormat.NDJSON) {
+                exportNdjson(startDate, endDate, out);
+            } else {
+                exportCsv(startDate, endDate, out);
+            }
+        } catch (UncheckedIOException e) {
+            // El cliente cortó la descarga
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Una línea JSON por orden; los items de una orden llegan contiguos gracias al ORDER BY
+     */
+    private void exportNdjson(LocalDateTime startDate, LocalDateTime endDate, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            long[] currentOrder = {-1L};
+            query(startDate, endDate, rs -> {
+                long orderId = rs.getLong("id");
+                if (orderId != currentOrder[0]) {
+                    if (currentOrder[0] != -1L) {
+                        endOrder(json);
+                    }
+                    startOrder(json, rs);
+                    currentOrder[0] = orderId;
+                }
+                long itemId = rs.getLong("item_id");
+                if (!rs.wasNull()) {
+                    writeItem(json, rs, itemId);
+                }
+            });
+            if (currentOrder[0] != -1L) {
+                endOrder(json);
+            }
+        }
+    }
+
+    private void startOrder(JsonGenerator json, ResultSet rs) throws SQLException {
+        try {
+            json.writeStartObject();
+            json.writeNumberField("id", rs.getLong("id"));
+            json.writeStringField("buyOrder", rs.getString("buy_order"));
+            json.writeStringField("status", rs.getString("status"));
+            json.writeStringField("paymentMethod", rs.getString("payment_method"));
+            writeDecimal(json, "amount", rs.getBigDecimal("amount"));
+            writeDecimal(json, "discountAmount", rs.getBigDecimal("discount_amount"));
+            writeDecimal(json, "finalAmount", rs.getBigDecimal("final_amount"));
+            json.writeStringField("authorizationCode", rs.getString("authorization_code"));
+            json.writeStringField("cardNumber", rs.getString("card_number"));
+            json.writeStringField("errorMessage", rs.getString("error_message"));
+            json.writeStringField("createdAt", formatTimestamp(rs.getTimestamp("created_at")));
+            json.writeStringField("transactionDate", formatTimestamp(rs.getTimestamp("transaction_date")));
+            json.writeObjectFieldStart("customer");
+            json.writeStringField("nombre", rs.getString("customer_name"));
+            json.writeStringField("email", rs.getString("customer_email"));
+            json.writeStringField("telefono", rs.getString("customer_phone"));
+            json.writeStringField("direccion", rs.getString("customer_address"));
+            json.writeStringField("comuna", rs.getString("customer_comuna"));
+            json.writeStringField("ciudad", rs.getString("customer_city"));
+            json.writeEndObject();
+            json.writeArrayFieldStart("items");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeItem(JsonGenerator json, ResultSet rs, long itemId) throws SQLException {
+        try {
+            json.writeStartObject();
+            json.writeNumberField("id", itemId);
+            json.writeStringField("productCode", rs.getString("product_code"));
+            json.writeStringField("productName", rs.getString("product_name"));
+            writeDecimal(json, "unitPrice", rs.getBigDecimal("unit_price"));
+            json.writeNumberField("quantity", rs.getInt("quantity"));
+            writeDecimal(json, "subtotal", rs.getBigDecimal("subtotal"));
+            json.writeStringField("sizeOption", rs.getString("size_option"));
+            json.writeStringField("customMessage", rs.getString("custom_message"));
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void endOrder(JsonGenerator json) {
+        try {
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeDecimal(JsonGenerator json, String field, BigDecimal value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value);
+        }
+    }
+
+    /**
+     * Un item por fila; las órdenes sin items salen con las columnas de item vacías
+     */
+    private void exportCsv(LocalDateTime startDate, LocalDateTime endDate, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        writer.write(CSV_HEADER);
+        StringBuilder line = new StringBuilder(256);
+        query(startDate, endDate, rs -> {
+            line.setLength(0);
+            appendCsv(line, rs.getLong("id"));
+            appendCsv(line, rs.getString("buy_order"));
+            appendCsv(line, rs.getString("status"));
+            appendCsv(line, rs.getString("payment_method"));
+            appendCsv(line, rs.getBigDecimal("amount"));
+            appendCsv(line, rs.getBigDecimal("discount_amount"));
+            appendCsv(line, rs.getBigDecimal("final_amount"));
+            appendCsv(line, rs.getString("authorization_code"));
+            appendCsv(line, formatTimestamp(rs.getTimestamp("created_at")));
+            appendCsv(line, formatTimestamp(rs.getTimestamp("transaction_date")));
+            appendCsv(line, rs.getString("customer_name"));
+            appendCsv(line, rs.getString("customer_email"));
+            appendCsv(line, rs.getString("customer_comuna"));
+            appendCsv(line, rs.getString("customer_city"));
+            appendCsv(line, rs.getObject("item_id"));
+            appendCsv(line, rs.getString("product_code"));
+            appendCsv(line, rs.getString("product_name"));
+            appendCsv(line, rs.getBigDecimal("unit_price"));
+            appendCsv(line, rs.getObject("quantity"));
+            appendCsv(line, rs.getBigDecimal("subtotal"));
+            appendCsv(line, rs.getString("size_option"));
+            appendCsv(line, rs.getString("custom_message"));
+            line.setCharAt(line.length() - 1, '\n');
+            try {
+                writer.append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private void appendCsv(StringBuilder line, Object value) {
+        if (value != null) {
+            String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                line.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(text);
+            }
+        }
+        line.append(',');
+    }
+
+    private String formatTimestamp(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+    }
+
+    /**
+     * Recorre el resultado en una transacción de sólo lectura para que el driver use cursor
+     */
+    private void query(LocalDateTime startDate, LocalDateTime endDate, RowWriter rowWriter) {
+        readOnlyTransaction.executeWithoutResult(status ->
+                jdbcTemplate.query(EXPORT_SQL, (RowCallbackHandler) rowWriter::write,
+                        Timestamp.valueOf(startDate), Timestamp.valueOf(endDate)));
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,309 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.CreateOrderRequestDTO;
+import com.milsabores.ventas.dto.IdempotencyClaim;
+import com.milsabores.ventas.dto.OrderResponseDTO;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.exception.DuplicateOrderException;
+import com.milsabores.ventas.exception.IdempotencyKeyMismatchException;
+import com.milsabores.ventas.exception.OrderConfirmationPendingException;
+import com.milsabores.ventas.exception.OrderIngestionUnavailableException;
+import com.milsabores.ventas.mapper.OrderMapper;
+import com.milsabores.ventas.repository.OrderRepository;
+import com.milsabores.ventas.service.IdempotencyService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Ingesta de órdenes con commit agrupado
+ * Las solicitudes entran a una cola acotada y un único escritor las guarda en lotes:
+ * una transacción y un INSERT por lote JDBC para muchas órdenes e items.
+ * Cada llamador espera de forma síncrona hasta que su lote se confirma
+ */
+@Component
+@Slf4j
+public class OrderIngestionPipeline {
+
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+    private final IdempotencyService idempotencyService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingOrder> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long submitTimeoutMs;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public OrderIngestionPipeline(OrderRepository orderRepository,
+                                  OrderMapper orderMapper,
+                                  IdempotencyService idempotencyService,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${ventas.ingestion.queue-capacity:2000}") int queueCapacity,
+                                  @Value("${ventas.ingestion.batch-size:100}") int batchSize,
+                                  @Value("${ventas.ingestion.linger-ms:2}") long lingerMs,
+                                  @Value("${ventas.ingestion.submit-timeout-ms:10000}") long submitTimeoutMs) {
+        this.orderRepository = orderRepository;
+        this.orderMapper = orderMapper;
+        this.idempotencyService = idempotencyService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.submitTimeoutMs = submitTimeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("order-ingestion-writer").daemon(true).start(this::runWriter);
+    }
+
+    /**
+     * Deja de aceptar órdenes y espera a que el escritor vacíe la cola
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        PendingOrder pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(
+                    new OrderIngestionUnavailableException("El servicio se está deteniendo, intente nuevamente"));
+        }
+    }
+
+    /**
+     * Encola la orden y espera la confirmación de su lote
+     * @param requestHash hash del payload original; requerido si hay clave de idempotencia
+     */
+    public OrderResponseDTO submit(CreateOrderRequestDTO request, String idempotencyKey, String requestHash) {
+        PendingOrder pending = new PendingOrder(request, idempotencyKey, requestHash);
+
+        try {
+            if (!running || !queue.offer(pending, submitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new OrderIngestionUnavailableException("La cola de órdenes está llena, intente nuevamente");
+            }
+            return pending.future.get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Error al crear la orden", e.getCause());
+        } catch (TimeoutException e) {
+            // La orden ya está en la cola y aún puede confirmarse: no se informa como fallida,
+            // porque un reintento sin Idempotency-Key recibiría un 409 por duplicada
+            throw new OrderConfirmationPendingException(request.getBuyOrder());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderIngestionUnavailableException("Creación de la orden interrumpida", e);
+        }
+    }
+
+    private void runWriter() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Escritor de órdenes interrumpido");
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error inesperado en el escritor de órdenes", e);
+                batch.forEach(p -> p.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Completa el lote con lo que ya está en cola, esperando a lo más linger-ms por más órdenes
+     */
+    private void collectBatch(List<PendingOrder> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Escribe el lote en una transacción; si falla, reintenta cada orden por separado
+     * para que una orden inválida no arrastre al resto
+     */
+    private void writeBatch(List<PendingOrder> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> persistBatch(batch));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).error = e;
+            } else {
+                log.warn("Falló el lote de {} órdenes, reintentando una por una: {}", batch.size(), e.getMessage());
+                batch.forEach(p -> writeBatch(List.of(p)));
+                return;
+            }
+        }
+        batch.forEach(PendingOrder::complete);
+        log.debug("Lote de {} órdenes confirmado", batch.size());
+    }
+
+    private void persistBatch(List<PendingOrder> batch) {
+        batch.forEach(PendingOrder::reset);
+
+        // 1) Reservar claves y descartar duplicados antes de persistir: las consultas nativas
+        //    de la reserva forzarían un flush por orden y romperían el lote JDBC
+        Set<String> buyOrders = new HashSet<>(orderRepository.findExistingBuyOrders(
+                batch.stream().map(p -> p.request.getBuyOrder()).collect(Collectors.toSet())));
+        Map<String, PendingOrder> keysInBatch = new HashMap<>();
+        List<PendingOrder> accepted = new ArrayList<>(batch.size());
+
+        for (PendingOrder p : batch) {
+            if (p.key != null) {
+                PendingOrder sameKey = keysInBatch.putIfAbsent(p.key, p);
+                if (sameKey != null) {
+                    p.sameKeyAs = sameKey;
+                    continue;
+                }
+                IdempotencyClaim claim = idempotencyService.claim(p.key, p.requestHash);
+                switch (claim.outcome()) {
+                    case REPLAYED -> {
+                        p.response = claim.response();
+                        continue;
+                    }
+                    case MISMATCH -> {
+                        p.error = new IdempotencyKeyMismatchException("La clave de idempotencia ya fue usada con otra solicitud");
+                        continue;
+                    }
+                    case IN_PROGRESS -> {
+                        p.error = new DuplicateOrderException("La solicitud con esta clave de idempotencia aún está en proceso");
+                        continue;
+                    }
+                    case ACQUIRED -> { }
+                }
+            }
+            if (!buyOrders.add(p.request.getBuyOrder())) {
+                if (p.key != null) {
+                    idempotencyService.release(p.key);
+                }
+                p.error = new DuplicateOrderException("Ya existe una orden con el número: " + p.request.getBuyOrder());
+                continue;
+            }
+            accepted.add(p);
+        }
+
+        // 2) Persistir todo y enviar los INSERT en lotes JDBC (ids ya asignados desde la secuencia)
+        for (PendingOrder p : accepted) {
+            p.order = orderRepository.save(orderMapper.toEntity(p.request));
+        }
+        orderRepository.flush();
+
+        // 3) Respuestas, claves de idempotencia y un solo evento para todo el lote
+        List<OrderStatusChangedEvent> changes = new ArrayList<>(accepted.size());
+        for (PendingOrder p : accepted) {
+            p.response = orderMapper.toResponseDTO(p.order);
+            changes.add(new OrderStatusChangedEvent(p.order, null, p.order.getStatus()));
+            if (p.key != null) {
+                idempotencyService.complete(p.key, p.requestHash, p.response);
+            }
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new OrderStatusBatchChangedEvent(changes));
+        }
+        for (PendingOrder p : batch) {
+            if (p.sameKeyAs != null) {
+                p.resolveFromSameKey();
+            }
+        }
+        log.info("Lote de ingesta: {} órdenes creadas de {} recibidas", accepted.size(), batch.size());
+    }
+
+    /**
+     * Orden en espera dentro de la cola
+     */
+    private static final class PendingOrder {
+        private final CreateOrderRequestDTO request;
+        private final String key;
+        private final String requestHash;
+        private final CompletableFuture<OrderResponseDTO> future = new CompletableFuture<>();
+
+        private Order order;
+        private OrderResponseDTO response;
+        private RuntimeException error;
+        private PendingOrder sameKeyAs;
+
+        private PendingOrder(CreateOrderRequestDTO request, String key, String requestHash) {
+            this.request = request;
+            this.key = key;
+            this.requestHash = requestHash;
+        }
+
+        private void reset() {
+            order = null;
+            response = null;
+            error = null;
+            sameKeyAs = null;
+        }
+
+        /**
+         * Reintento con la misma clave dentro del mismo lote
+         */
+        private void resolveFromSameKey() {
+            if (!sameKeyAs.requestHash.equals(requestHash)) {
+                error = new IdempotencyKeyMismatchException("La clave de idempotencia ya fue usada con otra solicitud");
+            } else {
+                response = sameKeyAs.response;
+                error = sameKeyAs.error;
+            }
+        }
+
+        private void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(response);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.CreateOrderRequestDTO;
+import com.milsabores.ventas.dto.OrderItemDTO;
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.exception.CartPriceMismatchException;
+import com.milsabores.ventas.exception.CatalogUnavailableException;
+import com.milsabores.ventas.exception.InvalidOrderOperationException;
+import com.milsabores.ventas.service.OrderPricingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Precios de las órdenes calculados en el servidor
+ * El carrito se valida en memoria contra la caché local del catálogo, sin llamadas por item:
+ * el cliente ya no puede fijar el precio de un producto ni el monto total de la orden.
+ * Tampoco puede fijar descuentos: mientras no exista una fuente de reglas en el servidor
+ * se rechaza cualquier descuento distinto de cero
+ */
+@Service
+@Slf4j
+public class OrderPricingServiceImpl implements OrderPricingService {
+
+    private final ProductCatalogCache catalogCache;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    public OrderPricingServiceImpl(ProductCatalogCache catalogCache,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${ventas.pricing.enabled:true}") boolean enabled) {
+        this.catalogCache = catalogCache;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void priceOrder(CreateOrderRequestDTO request) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, ProductCatalogCache.CatalogProduct> catalog = catalogCache.products();
+        if (catalog == null) {
+            reject("catalog_unavailable");
+            throw new CatalogUnavailableException("El catálogo de precios no está disponible, intente nuevamente");
+        }
+
+        Clp total = Clp.ZERO;
+        for (OrderItemDTO item : request.getItems()) {
+            ProductCatalogCache.CatalogProduct product = catalog.get(item.getCode());
+            if (product == null) {
+                reject("unknown_product");
+                throw new InvalidOrderOperationException("El producto " + item.getCode() + " no existe en el catálogo");
+            }
+            if (!Clp.of(item.getPriceCLP()).equals(product.price())) {
+                reject("price_mismatch");
+                log.warn("Orden {}: precio de {} enviado {} y en catálogo {}",
+                        request.getBuyOrder(), item.getCode(), item.getPriceCLP(), product.price());
+                throw new CartPriceMismatchException("El precio de " + product.name() + " es $" + product.price()
+                        + ", actualice el carrito");
+            }
+            item.setName(product.name());
+            total = total.plus(product.price().times(item.getQty()));
+        }
+
+        if (!Clp.of(request.getAmount()).equals(total)) {
+            reject("amount_mismatch");
+            log.warn("Orden {}: monto enviado {} y calculado {}", request.getBuyOrder(), request.getAmount(), total);
+            throw new InvalidOrderOperationException("El monto de la orden no coincide con sus productos: $" + total);
+        }
+        if (request.getDiscountAmount() != null && Clp.of(request.getDiscountAmount()).signum() != 0) {
+            reject("discount_not_allowed");
+            log.warn("Orden {}: descuento enviado por el cliente {}", request.getBuyOrder(), request.getDiscountAmount());
+            throw new InvalidOrderOperationException("Los descuentos no se pueden aplicar desde el carrito");
+        }
+    }
+
+    private void reject(String reason) {
+        meterRegistry.counter("ventas.pricing.rejected", "reason", reason).increment();
+    }
+}
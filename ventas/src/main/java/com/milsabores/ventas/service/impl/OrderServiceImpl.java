@@ -3,23 +3,43 @@ package com.milsabores.ventas.service.impl;
 import com.milsabores.ventas.dto.*;
 import com.milsabores.ventas.entity.Order;
 import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.exception.IdempotencyKeyMismatchException;
 import com.milsabores.ventas.exception.OrderNotFoundException;
-import com.milsabores.ventas.exception.DuplicateOrderException;
 import com.milsabores.ventas.exception.InvalidOrderOperationException;
 import com.milsabores.ventas.mapper.OrderMapper;
 import com.milsabores.ventas.repository.OrderRepository;
+import com.milsabores.ventas.service.IdempotencyService;
+import com.milsabores.ventas.service.OrderPricingService;
 import com.milsabores.ventas.service.OrderService;
+import com.milsabores.ventas.service.OrderStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementación del servicio de órdenes
@@ -32,24 +52,58 @@ public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
     private final OrderMapper orderMapper;
+    private final OrderStatsService orderStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderIngestionPipeline orderIngestionPipeline;
+    private final CustomerHistoryCache customerHistoryCache;
+    private final OrderPricingService orderPricingService;
+    private final IdempotencyService idempotencyService;
 
+    private static final int MAX_SUMMARY_PAGE_SIZE = 100;
+
+    // El UPDATE masivo sólo cambia el estado: los resultados de pago (APPROVED/REJECTED, con fecha,
+    // autorización y mensaje de error) y las cancelaciones pasan por su flujo individual
+    static final Set<OrderStatus> BULK_TARGETS = EnumSet.of(OrderStatus.PROCESSING, OrderStatus.READY, OrderStatus.DELIVERED);
+    private static final LocalDateTime FIRST_PAGE_CREATED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    /**
+     * La orden se escribe en la cola de ingesta por lotes; este hilo no abre transacción
+     * mientras espera la confirmación
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrderResponseDTO createOrder(CreateOrderRequestDTO request) {
         log.info("Creando nueva orden: {}", request.getBuyOrder());
+        orderPricingService.priceOrder(request);
+        OrderResponseDTO response = orderIngestionPipeline.submit(request, null, null);
+        log.info("Orden creada exitosamente con ID: {}", response.getId());
+        return response;
+    }
 
-        // Verificar que no exista una orden con el mismo número
-        if (orderRepository.existsByBuyOrder(request.getBuyOrder())) {
-            throw new DuplicateOrderException("Ya existe una orden con el número: " + request.getBuyOrder());
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public OrderResponseDTO createOrder(CreateOrderRequestDTO request, String clientKey, String subject) {
+        if (clientKey == null || clientKey.isBlank()) {
+            return createOrder(request);
         }
+        log.info("Creando nueva orden {} con clave de idempotencia {}", request.getBuyOrder(), clientKey);
+        idempotencyService.validateKey(clientKey);
+        // Dos usuarios que envían la misma clave no comparten registro
+        String idempotencyKey = idempotencyService.scopeKey(subject, clientKey);
+        // Hash del payload tal como llegó: la tarificación reescribe los nombres de los items
+        String requestHash = idempotencyService.hashRequest(request);
 
-        // Convertir DTO a entidad
-        Order order = orderMapper.toEntity(request);
-
-        // Guardar orden
-        Order savedOrder = orderRepository.save(order);
-        log.info("Orden creada exitosamente con ID: {}", savedOrder.getId());
+        // Un reintento de una orden ya confirmada recibe la respuesta original aunque el catálogo haya cambiado
+        Optional<IdempotencyClaim> completed = idempotencyService.findCompleted(idempotencyKey, requestHash);
+        if (completed.isPresent()) {
+            if (completed.get().outcome() == IdempotencyClaim.Outcome.MISMATCH) {
+                throw new IdempotencyKeyMismatchException("La clave de idempotencia ya fue usada con otra solicitud");
+            }
+            return completed.get().response();
+        }
 
-        return orderMapper.toResponseDTO(savedOrder);
+        orderPricingService.priceOrder(request);
+        return orderIngestionPipeline.submit(request, idempotencyKey, requestHash);
     }
 
     @Override
@@ -73,15 +127,14 @@ public class OrderServiceImpl implements OrderService {
     @Transactional(readOnly = true)
     public Page<OrderResponseDTO> getAllOrders(Pageable pageable) {
         log.debug("Obteniendo todas las órdenes con paginación");
-        return orderRepository.findAll(pageable)
-                .map(orderMapper::toResponseDTO);
+        return toResponsePage(orderRepository.findIds(pageable));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<OrderResponseDTO> getOrdersByStatus(OrderStatus status) {
         log.debug("Buscando órdenes por estado: {}", status);
-        List<Order> orders = orderRepository.findByStatus(status);
+        List<Order> orders = orderRepository.findWithItemsByStatus(status);
         return orderMapper.toResponseDTOList(orders);
     }
 
@@ -89,15 +142,14 @@ public class OrderServiceImpl implements OrderService {
     @Transactional(readOnly = true)
     public Page<OrderResponseDTO> getOrdersByStatus(OrderStatus status, Pageable pageable) {
         log.debug("Buscando órdenes por estado con paginación: {}", status);
-        return orderRepository.findByStatus(status, pageable)
-                .map(orderMapper::toResponseDTO);
+        return toResponsePage(orderRepository.findIdsByStatus(status, pageable));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<OrderResponseDTO> getOrdersByCustomerEmail(String email) {
         log.debug("Buscando órdenes por email: {}", email);
-        List<Order> orders = orderRepository.findByCustomerInfoEmail(email);
+        List<Order> orders = orderRepository.findWithItemsByCustomerEmail(email);
         return orderMapper.toResponseDTOList(orders);
     }
 
@@ -129,6 +181,72 @@ public class OrderServiceImpl implements OrderService {
         return orderMapper.toResponseDTO(updatedOrder);
     }
 
+    /**
+     * Bloquea las filas solicitadas, valida cada transición en memoria y aplica un UPDATE
+     * por estado de origen; las estadísticas se ajustan una vez con el evento del lote
+     */
+    @Override
+    public BulkOrderStatusResultDTO bulkUpdateOrderStatus(BulkUpdateOrderStatusDTO request) {
+        OrderStatus target = OrderStatus.valueOf(request.getStatus());
+        if (!BULK_TARGETS.contains(target)) {
+            throw new InvalidOrderOperationException("Estado inválido para actualización masiva: " + target
+                    + ". Permitidos: " + BULK_TARGETS);
+        }
+        List<Long> ids = request.getIds() != null ? request.getIds() : List.of();
+        List<String> buyOrders = request.getBuyOrders() != null ? request.getBuyOrders() : List.of();
+        if (ids.isEmpty() && buyOrders.isEmpty()) {
+            throw new InvalidOrderOperationException("Debe indicar al menos una orden");
+        }
+        log.info("Actualización masiva a {}: {} ids, {} números de orden", target, ids.size(), buyOrders.size());
+
+        Map<Long, OrderStatusRefDTO> byId = new HashMap<>();
+        Map<String, OrderStatusRefDTO> byBuyOrder = new HashMap<>();
+        for (OrderStatusRefDTO ref : orderRepository.lockStatusByIdOrBuyOrder(new HashSet<>(ids), new HashSet<>(buyOrders))) {
+            byId.put(ref.id(), ref);
+            byBuyOrder.put(ref.buyOrder(), ref);
+        }
+
+        // Resultado en el orden de la solicitud; una orden pedida dos veces se informa una vez
+        List<OrderStatusUpdateResultDTO> results = new ArrayList<>(ids.size() + buyOrders.size());
+        Map<Long, OrderStatus> accepted = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (Long id : ids) {
+            classifyBulkTarget(byId.get(id), id, null, target, seen, accepted, results);
+        }
+        for (String buyOrder : buyOrders) {
+            classifyBulkTarget(byBuyOrder.get(buyOrder), null, buyOrder, target, seen, accepted, results);
+        }
+
+        if (!accepted.isEmpty()) {
+            Map<OrderStatus, List<Long>> byPrevious = new EnumMap<>(OrderStatus.class);
+            accepted.forEach((id, previous) -> byPrevious.computeIfAbsent(previous, s -> new ArrayList<>()).add(id));
+
+            LocalDateTime now = LocalDateTime.now();
+            int updated = 0;
+            for (Map.Entry<OrderStatus, List<Long>> group : byPrevious.entrySet()) {
+                updated += orderRepository.transitionStatus(group.getValue(), group.getKey(), target, now);
+            }
+            // Las filas están bloqueadas desde la lectura: cualquier diferencia es un error
+            if (updated != accepted.size()) {
+                throw new IllegalStateException("Se esperaban " + accepted.size() + " órdenes actualizadas y fueron " + updated);
+            }
+
+            List<OrderStatusChangedEvent> changes = new ArrayList<>(accepted.size());
+            for (Order order : orderRepository.findWithItemsByIdIn(accepted.keySet())) {
+                changes.add(new OrderStatusChangedEvent(order, accepted.get(order.getId()), target));
+            }
+            eventPublisher.publishEvent(new OrderStatusBatchChangedEvent(changes));
+        }
+
+        log.info("Actualización masiva a {}: {} de {} órdenes actualizadas", target, accepted.size(), results.size());
+        return BulkOrderStatusResultDTO.builder()
+                .status(target.name())
+                .requested(results.size())
+                .updated(accepted.size())
+                .results(results)
+                .build();
+    }
+
     @Override
     public OrderResponseDTO cancelOrder(Long id) {
         log.info("Cancelando orden ID: {}", id);
@@ -142,6 +260,7 @@ public class OrderServiceImpl implements OrderService {
         }
         
         order.setStatus(OrderStatus.CANCELLED);
+        publishStatusChange(order, OrderStatus.PENDING, OrderStatus.CANCELLED);
         Order cancelledOrder = orderRepository.save(order);
         
         log.info("Orden cancelada exitosamente");
@@ -160,6 +279,7 @@ public class OrderServiceImpl implements OrderService {
                 "Solo se pueden eliminar órdenes canceladas o rechazadas. Estado actual: " + order.getStatus());
         }
         
+        publishStatusChange(order, order.getStatus(), null);
         orderRepository.delete(order);
         log.info("Orden eliminada exitosamente");
     }
@@ -168,7 +288,7 @@ public class OrderServiceImpl implements OrderService {
     @Transactional(readOnly = true)
     public List<OrderResponseDTO> getRecentOrders() {
         log.debug("Obteniendo últimas órdenes");
-        List<Order> orders = orderRepository.findTop10ByOrderByCreatedAtDesc();
+        List<Order> orders = findWithItemsInOrder(orderRepository.findRecentIds(PageRequest.of(0, 10)));
         return orderMapper.toResponseDTOList(orders);
     }
 
@@ -176,42 +296,163 @@ public class OrderServiceImpl implements OrderService {
     @Transactional(readOnly = true)
     public List<OrderResponseDTO> getOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         log.debug("Buscando órdenes entre {} y {}", startDate, endDate);
-        List<Order> orders = orderRepository.findByCreatedAtBetween(startDate, endDate);
+        List<Order> orders = orderRepository.findWithItemsByCreatedAtBetween(startDate, endDate);
         return orderMapper.toResponseDTOList(orders);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public OrderStatsDTO getOrderStats() {
-        log.debug("Calculando estadísticas de órdenes");
-        
-        long totalOrders = orderRepository.count();
-        long pendingOrders = orderRepository.countByStatus(OrderStatus.PENDING);
-        long approvedOrders = orderRepository.countByStatus(OrderStatus.APPROVED);
-        long rejectedOrders = orderRepository.countByStatus(OrderStatus.REJECTED);
-        long cancelledOrders = orderRepository.countByStatus(OrderStatus.CANCELLED);
-        
-        // Calcular ingresos totales de órdenes aprobadas
-        List<Order> approved = orderRepository.findByStatus(OrderStatus.APPROVED);
-        BigDecimal totalRevenue = approved.stream()
-                .map(Order::getFinalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal averageOrderAmount = totalOrders > 0 
-                ? totalRevenue.divide(BigDecimal.valueOf(approvedOrders > 0 ? approvedOrders : 1), 2, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
-        
-        return OrderStatsDTO.builder()
-                .totalOrders(totalOrders)
-                .pendingOrders(pendingOrders)
-                .approvedOrders(approvedOrders)
-                .rejectedOrders(rejectedOrders)
-                .cancelledOrders(cancelledOrders)
-                .totalRevenue(totalRevenue)
-                .averageOrderAmount(averageOrderAmount)
+    public OrderHistoryPageDTO getCustomerOrderHistory(String email, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SUMMARY_PAGE_SIZE));
+        OrderHistoryPageDTO cached = customerHistoryCache.get(email, cursor, pageSize);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = customerHistoryCache.generation(email);
+        String[] position = decodeCursor(cursor);
+        List<Long> ids = orderRepository.findHistoryIdsBefore(email,
+                LocalDateTime.parse(position[0]), Long.parseLong(position[1]), PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = ids.size() > pageSize;
+        List<OrderResponseDTO> orders = orderMapper.toResponseDTOList(
+                findWithItemsInOrder(hasMore ? ids.subList(0, pageSize) : ids));
+        OrderResponseDTO last = orders.isEmpty() ? null : orders.get(orders.size() - 1);
+
+        OrderHistoryPageDTO page = OrderHistoryPageDTO.builder()
+                .orders(orders)
+                .nextCursor(hasMore ? encodeCursor(last.getCreatedAt(), last.getId()) : null)
+                .hasMore(hasMore)
+                .build();
+        customerHistoryCache.put(email, cursor, pageSize, page, generation);
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderSummaryPageDTO getOrderSummaries(OrderStatus status, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SUMMARY_PAGE_SIZE));
+        log.debug("Listando resúmenes de órdenes - estado: {}, cursor: {}", status, cursor);
+
+        String[] position = decodeCursor(cursor);
+        LocalDateTime createdAt = LocalDateTime.parse(position[0]);
+        long id = Long.parseLong(position[1]);
+
+        // Se pide una fila extra para saber si hay otra página sin hacer COUNT
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<OrderSummaryDTO> rows = status == null
+                ? orderRepository.findSummariesBefore(createdAt, id, limit)
+                : orderRepository.findSummariesByStatusBefore(status, createdAt, id, limit);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<OrderSummaryDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        OrderSummaryDTO last = items.isEmpty() ? null : items.get(items.size() - 1);
+        String nextCursor = hasMore ? encodeCursor(last.getCreatedAt(), last.getId()) : null;
+
+        return OrderSummaryPageDTO.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
                 .build();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public OrderStatsDTO getOrderStats() {
+        log.debug("Obteniendo estadísticas de órdenes");
+        return orderStatsService.getStats();
+    }
+
+    /**
+     * Cursor opaco con la posición (created_at, id) de la última orden entregada
+     */
+    private String encodeCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica el cursor en {created_at, id}; sin cursor devuelve una posición posterior a todas las órdenes
+     */
+    private String[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new String[]{FIRST_PAGE_CREATED_AT.toString(), String.valueOf(Long.MAX_VALUE)};
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+
+    /**
+     * Convierte una página de ids en una página de DTOs cargando órdenes e items en una consulta
+     */
+    private Page<OrderResponseDTO> toResponsePage(Page<Long> ids) {
+        List<Order> orders = findWithItemsInOrder(ids.getContent());
+        return new PageImpl<>(orderMapper.toResponseDTOList(orders), ids.getPageable(), ids.getTotalElements());
+    }
+
+    /**
+     * Carga órdenes con sus items respetando el orden de los ids recibidos
+     */
+    private List<Order> findWithItemsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, Order> byId = orderRepository.findWithItemsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Agrega el resultado de una orden de la actualización masiva y la acepta si la transición es válida
+     */
+    private void classifyBulkTarget(OrderStatusRefDTO ref, Long id, String buyOrder, OrderStatus target,
+                                    Set<Long> seen, Map<Long, OrderStatus> accepted,
+                                    List<OrderStatusUpdateResultDTO> results) {
+        if (ref == null) {
+            results.add(OrderStatusUpdateResultDTO.builder()
+                    .id(id)
+                    .buyOrder(buyOrder)
+                    .outcome(OrderStatusUpdateResultDTO.Outcome.NOT_FOUND)
+                    .message("Orden no encontrada")
+                    .build());
+            return;
+        }
+        if (!seen.add(ref.id())) {
+            return;
+        }
+
+        OrderStatusUpdateResultDTO.OrderStatusUpdateResultDTOBuilder result = OrderStatusUpdateResultDTO.builder()
+                .id(ref.id())
+                .buyOrder(ref.buyOrder())
+                .previousStatus(ref.status().name());
+        if (ref.status().canTransitionTo(target)) {
+            accepted.put(ref.id(), ref.status());
+            result.status(target.name()).outcome(OrderStatusUpdateResultDTO.Outcome.UPDATED);
+        } else {
+            result.status(ref.status().name())
+                    .outcome(OrderStatusUpdateResultDTO.Outcome.INVALID_TRANSITION)
+                    .message("No se puede pasar de " + ref.status() + " a " + target);
+        }
+        results.add(result.build());
+    }
+
+    /**
+     * Publica la transición de estado (estadísticas, rollups, etc. la escuchan)
+     */
+    private void publishStatusChange(Order order, OrderStatus previousStatus, OrderStatus newStatus) {
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order, previousStatus, newStatus));
+    }
+
     /**
      * Busca una orden por ID o lanza excepción
      */
@@ -222,10 +463,22 @@ public class OrderServiceImpl implements OrderService {
 
     /**
      * Actualiza los campos de estado de una orden
+     * Valida la transición contra la tabla de OrderStatus; repetir el estado actual no hace nada.
+     * Si otra operación modificó la orden, la versión hace fallar el commit con 409
      */
     private void updateOrderStatusFields(Order order, UpdateOrderStatusDTO request) {
+        OrderStatus previousStatus = order.getStatus();
         OrderStatus newStatus = OrderStatus.valueOf(request.getStatus());
+        if (previousStatus == newStatus) {
+            return;
+        }
+        if (!previousStatus.canTransitionTo(newStatus)) {
+            throw new InvalidOrderOperationException(
+                "No se puede pasar de " + previousStatus + " a " + newStatus
+                    + ". Estados permitidos: " + previousStatus.allowedTransitions());
+        }
         order.setStatus(newStatus);
+        publishStatusChange(order, previousStatus, newStatus);
         
         if (newStatus == OrderStatus.APPROVED) {
             order.setAuthorizationCode(request.getAuthorizationCode());
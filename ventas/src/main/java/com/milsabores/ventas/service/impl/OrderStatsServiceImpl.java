@@ -0,0 +1,181 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.OrderStatsDTO;
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.OrderStatusStats;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.repository.OrderRepository;
+import com.milsabores.ventas.repository.OrderStatusStatsRepository;
+import com.milsabores.ventas.service.OrderStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación del servicio de estadísticas de órdenes
+ * Cada transición ajusta las filas de order_status_stats en la misma transacción
+ * que modifica la orden; una reconciliación periódica corrige cualquier desvío
+ * Las filas se actualizan y bloquean siempre en orden ordinal de OrderStatus para que
+ * dos transacciones que tocan los mismos estados no se bloqueen mutuamente
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatsServiceImpl implements OrderStatsService {
+
+    private final OrderStatusStatsRepository statsRepository;
+    private final OrderRepository orderRepository;
+
+    /**
+     * Aplica cada transición publicada dentro de la misma transacción
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        recordTransition(event.previousStatus(), event.newStatus(), event.order().getFinalAmount());
+    }
+
+    /**
+     * Suma los deltas de todo el lote y aplica un solo ajuste por estado afectado
+     * El EnumMap itera en orden ordinal
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onBatchStatusChanged(OrderStatusBatchChangedEvent event) {
+        // Por estado: {conteo, monto en pesos}
+        Map<OrderStatus, long[]> deltas = new EnumMap<>(OrderStatus.class);
+        for (OrderStatusChangedEvent change : event.changes()) {
+            if (change.previousStatus() == change.newStatus()) continue;
+            long amount = change.order().getFinalAmount() != null ? change.order().getFinalAmount().value() : 0L;
+            if (change.previousStatus() != null) {
+                long[] delta = deltas.computeIfAbsent(change.previousStatus(), s -> new long[2]);
+                delta[0]--;
+                delta[1] = Math.subtractExact(delta[1], amount);
+            }
+            if (change.newStatus() != null) {
+                long[] delta = deltas.computeIfAbsent(change.newStatus(), s -> new long[2]);
+                delta[0]++;
+                delta[1] = Math.addExact(delta[1], amount);
+            }
+        }
+        deltas.forEach((status, delta) -> increment(status, delta[0], Clp.of(delta[1])));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(OrderStatus from, OrderStatus to, Clp finalAmount) {
+        if (from == to) return;
+        Clp amount = finalAmount != null ? finalAmount : Clp.ZERO;
+
+        // Mismo orden que el lote: PROCESSING -> CANCELLED actualiza CANCELLED primero
+        if (from != null && to != null && to.ordinal() < from.ordinal()) {
+            increment(to, 1, amount);
+            increment(from, -1, amount.negate());
+            return;
+        }
+        if (from != null) {
+            increment(from, -1, amount.negate());
+        }
+        if (to != null) {
+            increment(to, 1, amount);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderStatsDTO getStats() {
+        Map<OrderStatus, OrderStatusStats> byStatus = new EnumMap<>(OrderStatus.class);
+        statsRepository.findAll().forEach(s -> byStatus.put(s.getStatus(), s));
+
+        long totalOrders = byStatus.values().stream().mapToLong(OrderStatusStats::getOrderCount).sum();
+        long approvedOrders = count(byStatus, OrderStatus.APPROVED);
+        BigDecimal totalRevenue = byStatus.containsKey(OrderStatus.APPROVED)
+                ? byStatus.get(OrderStatus.APPROVED).getRevenue()
+                : BigDecimal.ZERO;
+
+        BigDecimal averageOrderAmount = totalOrders > 0
+                ? totalRevenue.divide(BigDecimal.valueOf(approvedOrders > 0 ? approvedOrders : 1), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        return OrderStatsDTO.builder()
+                .totalOrders(totalOrders)
+                .pendingOrders(count(byStatus, OrderStatus.PENDING))
+                .approvedOrders(approvedOrders)
+                .rejectedOrders(count(byStatus, OrderStatus.REJECTED))
+                .cancelledOrders(count(byStatus, OrderStatus.CANCELLED))
+                .totalRevenue(totalRevenue)
+                .averageOrderAmount(averageOrderAmount)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${ventas.stats.reconcile-cron:0 0 4 * * *}")
+    public void reconcile() {
+        // Bloquear las filas primero: las transiciones en curso esperan y el GROUP BY
+        // ve todo lo confirmado antes del bloqueo, sin perder ni duplicar deltas
+        // Fila por fila en orden ordinal, igual que los incrementos
+        Map<OrderStatus, OrderStatusStats> byStatus = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            statsRepository.lockByStatus(status).ifPresent(s -> byStatus.put(status, s));
+        }
+
+        Map<OrderStatus, Object[]> actual = new EnumMap<>(OrderStatus.class);
+        for (Object[] row : orderRepository.aggregateByStatus()) {
+            actual.put(OrderStatus.valueOf((String) row[0]), row);
+        }
+
+        int corrected = 0;
+        for (OrderStatus status : OrderStatus.values()) {
+            Object[] row = actual.get(status);
+            long count = row != null ? ((Number) row[1]).longValue() : 0L;
+            BigDecimal revenue = row != null ? toBigDecimal(row[2]) : BigDecimal.ZERO;
+
+            OrderStatusStats stats = byStatus.get(status);
+            if (stats == null) {
+                statsRepository.save(new OrderStatusStats(status, count, revenue));
+                corrected++;
+            } else if (stats.getOrderCount() != count || stats.getRevenue().compareTo(revenue) != 0) {
+                log.warn("Estadísticas desviadas para {}: {} / {} -> {} / {}",
+                        status, stats.getOrderCount(), stats.getRevenue(), count, revenue);
+                stats.setOrderCount(count);
+                stats.setRevenue(revenue);
+                corrected++;
+            }
+        }
+        log.info("Reconciliación de estadísticas completada ({} filas corregidas)", corrected);
+    }
+
+    /**
+     * Aplica un delta a la fila de un estado
+     */
+    private void increment(OrderStatus status, long count, Clp amount) {
+        if (statsRepository.increment(status, count, amount.toBigDecimal()) == 0) {
+            log.warn("No existe fila de estadísticas para {}; se corregirá en la reconciliación", status);
+        }
+    }
+
+    private long count(Map<OrderStatus, OrderStatusStats> byStatus, OrderStatus status) {
+        OrderStatusStats stats = byStatus.get(status);
+        return stats != null ? stats.getOrderCount() : 0L;
+    }
+
+    private BigDecimal toBigDecimal(Object value) {
+        if (value instanceof BigDecimal bd) return bd;
+        return new BigDecimal(value.toString());
+    }
+}
@@ -0,0 +1,312 @@
+package com.milsabores.ventas.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milsabores.ventas.dto.OrderStreamEventDTO;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.service.OrderStreamService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Feed en vivo de órdenes por Server-Sent Events
+ * Los eventos se emiten después del commit, se serializan una sola vez y se guardan en un
+ * anillo con los más recientes para reanudar con Last-Event-ID. Cada suscriptor tiene una
+ * cola acotada (si se llena se descarta el más antiguo) que vacía su propio hilo virtual:
+ * un cliente lento no frena a los demás ni al hilo que confirmó la orden
+ */
+@Service
+@Slf4j
+public class OrderStreamServiceImpl implements OrderStreamService {
+
+    private static final String TYPE_CREATED = "order-created";
+    private static final String TYPE_STATUS_CHANGED = "status-changed";
+    private static final String TYPE_DELETED = "order-deleted";
+    private static final String TYPE_RESET = "reset";
+
+    /**
+     * Marca interna para enviar un comentario de keep-alive
+     */
+    private static final StreamEvent HEARTBEAT = new StreamEvent(-1, null, null);
+
+    private final ObjectMapper objectMapper;
+    private final long emitterTimeoutMs;
+    private final int subscriberBuffer;
+    private final StreamEvent[] ring;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter dropped;
+
+    private long nextEventId = 1;
+
+    public OrderStreamServiceImpl(ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${ventas.stream.timeout-ms:1800000}") long emitterTimeoutMs,
+                                  @Value("${ventas.stream.subscriber-buffer:256}") int subscriberBuffer,
+                                  @Value("${ventas.stream.replay-size:1024}") int replaySize) {
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.subscriberBuffer = subscriberBuffer;
+        this.ring = new StreamEvent[replaySize];
+
+        Gauge.builder("ventas.stream.subscribers", subscribers, Set::size)
+                .description("Suscriptores conectados al feed de órdenes")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("ventas.stream.dropped")
+                .description("Eventos descartados por suscriptores lentos")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+
+        // Bajo el mismo lock que la difusión: no se pierde ni se duplica ningún evento entre la
+        // repetición del anillo y el alta del suscriptor
+        synchronized (ring) {
+            replay(subscriber, parseEventId(lastEventId));
+            subscribers.add(subscriber);
+        }
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        Thread.ofVirtual().name("order-stream-subscriber").start(subscriber::run);
+        return emitter;
+    }
+
+    @EventListener
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        publishAfterCommit(List.of(toPayload(event)));
+    }
+
+    @EventListener
+    public void onBatchStatusChanged(OrderStatusBatchChangedEvent event) {
+        List<OrderStreamEventDTO> payloads = new ArrayList<>(event.changes().size());
+        for (OrderStatusChangedEvent change : event.changes()) {
+            payloads.add(toPayload(change));
+        }
+        publishAfterCommit(payloads);
+    }
+
+    /**
+     * Mantiene vivas las conexiones a través de proxies que cortan conexiones inactivas
+     */
+    @Scheduled(fixedDelayString = "${ventas.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void publishAfterCommit(List<OrderStreamEventDTO> payloads) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcast(payloads);
+                }
+            });
+        } else {
+            broadcast(payloads);
+        }
+    }
+
+    /**
+     * Numera, serializa y encola los eventos; todo bajo el lock del anillo para que
+     * cada suscriptor los reciba en el orden de sus ids
+     */
+    private void broadcast(List<OrderStreamEventDTO> payloads) {
+        synchronized (ring) {
+            for (OrderStreamEventDTO payload : payloads) {
+                payload.setEventId(nextEventId);
+                StreamEvent event = new StreamEvent(nextEventId, payload.getType(), toJson(payload));
+                ring[(int) (nextEventId % ring.length)] = event;
+                nextEventId++;
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.enqueue(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reenvía lo posterior a lastEventId que siga en el anillo; si ya salió, avisa con un
+     * evento reset para que el cliente recargue su vista
+     */
+    private void replay(Subscriber subscriber, long lastEventId) {
+        if (lastEventId < 0) {
+            return;
+        }
+        long oldest = Math.max(1, nextEventId - ring.length);
+        long from = lastEventId + 1;
+        if (from < oldest) {
+            subscriber.enqueue(new StreamEvent(oldest - 1, TYPE_RESET, "{\"lastEventId\":" + (oldest - 1) + "}"));
+            from = oldest;
+        }
+        for (long id = from; id < nextEventId; id++) {
+            subscriber.enqueue(ring[(int) (id % ring.length)]);
+        }
+    }
+
+    private OrderStreamEventDTO toPayload(OrderStatusChangedEvent event) {
+        Order order = event.order();
+        String type = event.isCreation() ? TYPE_CREATED : event.isDeletion() ? TYPE_DELETED : TYPE_STATUS_CHANGED;
+        return OrderStreamEventDTO.builder()
+                .type(type)
+                .orderId(order.getId())
+                .buyOrder(order.getBuyOrder())
+                .previousStatus(event.previousStatus() != null ? event.previousStatus().name() : null)
+                .status(event.newStatus() != null ? event.newStatus().name() : null)
+                .paymentMethod(order.getPaymentMethod() != null ? order.getPaymentMethod().name() : null)
+                .finalAmount(order.getFinalAmount())
+                .customerName(order.getCustomerInfo() != null ? order.getCustomerInfo().getNombre() : null)
+                .createdAt(order.getCreatedAt())
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+
+    private String toJson(OrderStreamEventDTO payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento de la orden " + payload.getOrderId(), e);
+        }
+    }
+
+    private long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Evento ya serializado, compartido por todos los suscriptores
+     */
+    private record StreamEvent(long id, String type, String json) {
+    }
+
+    /**
+     * Suscriptor con su cola acotada; usa ReentrantLock para no fijar el hilo virtual al esperar
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final ArrayDeque<StreamEvent> queue = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition available = lock.newCondition();
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void enqueue(StreamEvent event) {
+            lock.lock();
+            try {
+                if (closed) return;
+                if (queue.size() >= subscriberBuffer) {
+                    queue.pollFirst();
+                    dropped.increment();
+                }
+                queue.addLast(event);
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void heartbeat() {
+            lock.lock();
+            try {
+                if (!closed && queue.isEmpty()) {
+                    queue.addLast(HEARTBEAT);
+                    available.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private StreamEvent take() throws InterruptedException {
+            lock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    available.await();
+                }
+                return closed ? null : queue.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void run() {
+            try {
+                StreamEvent event;
+                while ((event = take()) != null) {
+                    if (event == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.id()))
+                                .name(event.type())
+                                .data(event.json()));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // El cliente se desconectó o el emitter ya terminó
+                log.debug("Suscriptor del feed desconectado: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        private void close() {
+            lock.lock();
+            try {
+                closed = true;
+                queue.clear();
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Transiciones de estado iniciadas por el sistema (resultado de WebPay, tareas programadas)
+ * Cada intento lee la orden, valida la transición con la tabla de {@link OrderStatus} y guarda
+ * con bloqueo optimista. Si otra operación cambió la orden entre medio, se reintenta con el
+ * estado actualizado hasta un máximo de intentos
+ */
+@Component
+@Slf4j
+class OrderTransitionExecutor {
+
+    /**
+     * Resultado de la transición
+     */
+    enum Outcome { APPLIED, UNCHANGED, NOT_ALLOWED, NOT_FOUND }
+
+    private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    OrderTransitionExecutor(OrderRepository orderRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${ventas.orders.transition-max-attempts:3}") int maxAttempts,
+                            @Value("${ventas.orders.transition-backoff-ms:20}") long backoffMs) {
+        this.orderRepository = orderRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = backoffMs;
+    }
+
+    /**
+     * Lleva la orden al estado indicado aplicando antes los cambios de campos
+     * @throws OptimisticLockingFailureException si el conflicto persiste tras el último intento
+     */
+    Outcome transition(String buyOrder, OrderStatus target, Consumer<Order> changes) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> apply(buyOrder, target, changes));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("La orden {} siguió cambiando tras {} intentos; no se aplica {}", buyOrder, attempt, target);
+                    throw e;
+                }
+                log.debug("Conflicto de versión en la orden {} (intento {}), reintentando", buyOrder, attempt);
+                pause(attempt);
+            }
+        }
+    }
+
+    private Outcome apply(String buyOrder, OrderStatus target, Consumer<Order> changes) {
+        Order order = orderRepository.findByBuyOrder(buyOrder).orElse(null);
+        if (order == null) {
+            return Outcome.NOT_FOUND;
+        }
+        OrderStatus previous = order.getStatus();
+        if (previous == target) {
+            return Outcome.UNCHANGED;
+        }
+        if (!previous.canTransitionTo(target)) {
+            return Outcome.NOT_ALLOWED;
+        }
+
+        changes.accept(order);
+        order.setStatus(target);
+        // El flush dentro del intento hace que el conflicto de versión se detecte aquí y no en el commit
+        orderRepository.saveAndFlush(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order, previous, target));
+        return Outcome.APPLIED;
+    }
+
+    /**
+     * Espera creciente con jitter para que los intentos en conflicto no vuelvan a chocar
+     */
+    private void pause(int attempt) {
+        long wait = backoffMs * attempt + ThreadLocalRandom.current().nextLong(backoffMs + 1);
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento de transición interrumpido", e);
+        }
+    }
+}
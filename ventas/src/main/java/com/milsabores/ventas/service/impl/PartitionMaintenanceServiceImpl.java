@@ -0,0 +1,236 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.service.PartitionMaintenanceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Mantenimiento de las particiones mensuales de orders y order_items (ver db/partitioning.sql)
+ * Crea por adelantado las particiones de los próximos meses y archiva las antiguas:
+ * si todas sus órdenes están cerradas, exporta ambas particiones a archivos CSV comprimidos
+ * y las desengancha, así los índices de las tablas vivas sólo cubren datos recientes.
+ * En la misma transacción guarda los totales por estado del mes en order_status_archive,
+ * para que las estadísticas sigan contándolos, y libera sus buy orders de order_buy_orders
+ * (DETACH no dispara el trigger de borrado): la unicidad de buy_order cubre sólo meses vivos.
+ * Si las tablas no están particionadas no hace nada.
+ */
+@Service
+@Slf4j
+public class PartitionMaintenanceServiceImpl implements PartitionMaintenanceService {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /**
+     * Estados finales: una partición sólo se archiva si todas sus órdenes están en uno de ellos
+     */
+    private static final Set<String> CLOSED_STATUSES = Set.of("DELIVERED", "CANCELLED", "REJECTED");
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'orders' AND c.relname ~ '^orders_p[0-9]{6}$' ORDER BY c.relname";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int archiveAfterMonths;
+    private final Path archiveDir;
+    private final boolean dropAfterArchive;
+
+    public PartitionMaintenanceServiceImpl(DataSource dataSource,
+                                           PlatformTransactionManager transactionManager,
+                                           @Value("${ventas.partitions.months-ahead:3}") int monthsAhead,
+                                           @Value("${ventas.partitions.archive-after-months:12}") int archiveAfterMonths,
+                                           @Value("${ventas.partitions.archive-dir:./archive}") String archiveDir,
+                                           @Value("${ventas.partitions.drop-after-archive:false}") boolean dropAfterArchive,
+                                           @Value("${ventas.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.archiveAfterMonths = archiveAfterMonths;
+        this.archiveDir = Path.of(archiveDir);
+        this.dropAfterArchive = dropAfterArchive;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensureUpcomingPartitions();
+    }
+
+    @Override
+    public void ensureUpcomingPartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            createPartition("orders", month);
+            createPartition("order_items", month);
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${ventas.partitions.maintenance-cron:0 15 3 * * *}")
+    public int archiveClosedPartitions() {
+        if (!isPartitioned()) {
+            return 0;
+        }
+        ensureUpcomingPartitions();
+
+        YearMonth cutoff = YearMonth.now().minusMonths(archiveAfterMonths);
+        int archived = 0;
+        for (String partition : jdbcTemplate.queryForList(PARTITIONS_SQL, String.class)) {
+            YearMonth month = YearMonth.parse(partition.substring("orders_p".length()), SUFFIX);
+            if (!month.isBefore(cutoff)) {
+                break;
+            }
+            if (archive(month)) {
+                archived++;
+            }
+        }
+        return archived;
+    }
+
+    private boolean archive(YearMonth month) {
+        String suffix = month.format(SUFFIX);
+        String orders = "orders_p" + suffix;
+        String items = "order_items_p" + suffix;
+
+        Long open = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + orders + " WHERE status NOT IN ('" + String.join("','", CLOSED_STATUSES) + "')",
+                Long.class);
+        if (open != null && open > 0) {
+            log.warn("Partición {} no se archiva: {} órdenes siguen abiertas", orders, open);
+            return false;
+        }
+
+        try {
+            Files.createDirectories(archiveDir);
+            long orderRows = exportTable(orders);
+            long itemRows = exportTable(items);
+
+            // Primero items: su FK apunta a la partición de órdenes
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("ALTER TABLE order_items DETACH PARTITION " + items);
+                jdbcTemplate.execute("ALTER TABLE orders DETACH PARTITION " + orders);
+                // El DETACH bloquea orders hasta el commit: la reconciliación no ve el mes dos veces ni lo pierde
+                jdbcTemplate.update("INSERT INTO order_status_archive (status, order_count, revenue) " +
+                        "SELECT status, COUNT(*), COALESCE(SUM(final_amount), 0) FROM " + orders + " GROUP BY status " +
+                        "ON CONFLICT (status) DO UPDATE SET " +
+                        "order_count = order_status_archive.order_count + EXCLUDED.order_count, " +
+                        "revenue = order_status_archive.revenue + EXCLUDED.revenue");
+                jdbcTemplate.update("DELETE FROM order_buy_orders b USING " + orders + " o " +
+                        "WHERE b.buy_order = o.buy_order AND b.order_id = o.id");
+                if (dropAfterArchive) {
+                    jdbcTemplate.execute("DROP TABLE " + items);
+                    jdbcTemplate.execute("DROP TABLE " + orders);
+                }
+            });
+            log.info("Mes {} archivado: {} órdenes y {} items en {}", month, orderRows, itemRows, archiveDir);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Error archivando la partición {}", orders, e);
+            return false;
+        }
+    }
+
+    /**
+     * Exporta la tabla completa a {tabla}.csv.gz leyendo con cursor; escribe a un temporal y lo renombra al final
+     */
+    private long exportTable(String table) throws IOException {
+        Path target = archiveDir.resolve(table + ".csv.gz");
+        Path tmp = archiveDir.resolve(table + ".csv.gz.tmp");
+        long[] rows = {0};
+
+        try (OutputStream file = Files.newOutputStream(tmp);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(file, 64 * 1024), StandardCharsets.UTF_8))) {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.query("SELECT * FROM " + table + " ORDER BY id", (RowCallbackHandler) rs -> {
+                        try {
+                            ResultSetMetaData meta = rs.getMetaData();
+                            int columns = meta.getColumnCount();
+                            if (rows[0] == 0) {
+                                for (int c = 1; c <= columns; c++) {
+                                    writer.write(meta.getColumnName(c));
+                                    writer.write(c < columns ? ',' : '\n');
+                                }
+                            }
+                            for (int c = 1; c <= columns; c++) {
+                                writeCsv(writer, rs.getString(c));
+                                writer.write(c < columns ? ',' : '\n');
+                            }
+                            rows[0]++;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows[0];
+    }
+
+    private void writeCsv(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    private void createPartition(String parent, YearMonth month) {
+        String name = parent + "_p" + month.format(SUFFIX);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + parent +
+                    " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        } catch (RuntimeException e) {
+            // Típicamente la partición DEFAULT ya tiene filas de ese mes
+            log.warn("No se pudo crear la partición {}: {}", name, e.getMessage());
+        }
+    }
+
+    private boolean isPartitioned() {
+        List<Integer> result = jdbcTemplate.queryForList(
+                "SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = 'orders'",
+                Integer.class);
+        return !result.isEmpty();
+    }
+}
@@ -0,0 +1,246 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.PendingPaymentDTO;
+import com.milsabores.ventas.dto.transbank.WebPayCommitResponse;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.repository.OrderRepository;
+import com.milsabores.ventas.service.PaymentReconciliationService;
+import com.milsabores.ventas.service.TransbankService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conciliación de órdenes WebPay que quedaron PENDING porque el cliente no volvió del pago
+ * Recorre las pendientes más antiguas que el umbral por keyset sobre el id, consulta su
+ * estado en Transbank en hilos virtuales con un tope global de concurrencia y aplica
+ * los resultados de cada página en una sola transacción
+ */
+@Service
+@Slf4j
+public class PaymentReconciliationServiceImpl implements PaymentReconciliationService {
+
+    /**
+     * Estados finales de WebPay que significan que el pago no se concretó
+     */
+    private static final Set<String> FAILED_STATUSES = Set.of("FAILED", "REVERSED", "NULLIFIED");
+
+    private final OrderRepository orderRepository;
+    private final TransbankService transbankService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore concurrency;
+    private final Duration minAge;
+    private final Duration abandonAfter;
+    private final Duration maxAge;
+    private final int pageSize;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Timer runTimer;
+    private final Timer orderTimer;
+    private final MeterRegistry meterRegistry;
+
+    public PaymentReconciliationServiceImpl(OrderRepository orderRepository,
+                                            TransbankService transbankService,
+                                            ApplicationEventPublisher eventPublisher,
+                                            PlatformTransactionManager transactionManager,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${ventas.reconciliation.max-concurrency:8}") int maxConcurrency,
+                                            @Value("${ventas.reconciliation.min-age-minutes:10}") long minAgeMinutes,
+                                            @Value("${ventas.reconciliation.abandon-after-minutes:60}") long abandonAfterMinutes,
+                                            @Value("${ventas.reconciliation.max-age-days:7}") long maxAgeDays,
+                                            @Value("${ventas.reconciliation.page-size:200}") int pageSize) {
+        this.orderRepository = orderRepository;
+        this.transbankService = transbankService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.concurrency = new Semaphore(maxConcurrency);
+        this.minAge = Duration.ofMinutes(minAgeMinutes);
+        this.abandonAfter = Duration.ofMinutes(abandonAfterMinutes);
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.pageSize = pageSize;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("ventas.reconciliation.backlog", backlog, AtomicLong::get)
+                .description("Órdenes WebPay pendientes más antiguas que el umbral")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("ventas.reconciliation.run")
+                .description("Duración de cada pasada de conciliación")
+                .register(meterRegistry);
+        this.orderTimer = Timer.builder("ventas.reconciliation.order.latency")
+                .description("Tiempo desde la creación de la orden hasta su conciliación")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${ventas.reconciliation.interval-ms:300000}",
+               initialDelayString = "${ventas.reconciliation.initial-delay-ms:60000}")
+    public int reconcilePendingPayments() {
+        return runTimer.record(this::reconcile);
+    }
+
+    private int reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdAfter = now.minus(maxAge);
+        LocalDateTime createdBefore = now.minus(minAge);
+        backlog.set(orderRepository.countPendingWebpay(createdAfter, createdBefore));
+        if (backlog.get() == 0) {
+            return 0;
+        }
+        log.info("Conciliando {} órdenes WebPay pendientes", backlog.get());
+
+        int changed = 0;
+        long afterId = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                List<PendingPaymentDTO> page = orderRepository.findPendingWebpayAfter(
+                        afterId, createdAfter, createdBefore, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                afterId = page.get(page.size() - 1).id();
+
+                List<Resolution> resolutions = resolvePage(executor, page);
+                if (!resolutions.isEmpty()) {
+                    changed += applyResolutions(resolutions);
+                }
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+        }
+
+        backlog.set(orderRepository.countPendingWebpay(createdAfter, createdBefore));
+        log.info("Conciliación terminada: {} órdenes actualizadas, {} siguen pendientes", changed, backlog.get());
+        return changed;
+    }
+
+    /**
+     * Consulta el estado de cada orden de la página en paralelo (tope global de concurrencia)
+     */
+    private List<Resolution> resolvePage(ExecutorService executor, List<PendingPaymentDTO> page) {
+        List<Future<Resolution>> futures = new ArrayList<>(page.size());
+        for (PendingPaymentDTO pending : page) {
+            futures.add(executor.submit(() -> resolve(pending)));
+        }
+
+        List<Resolution> resolutions = new ArrayList<>();
+        for (Future<Resolution> future : futures) {
+            try {
+                Resolution resolution = future.get();
+                if (resolution != null) {
+                    resolutions.add(resolution);
+                }
+            } catch (ExecutionException e) {
+                log.warn("Error consultando estado WebPay: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return resolutions;
+    }
+
+    private Resolution resolve(PendingPaymentDTO pending) throws InterruptedException {
+        concurrency.acquire();
+        try {
+            WebPayCommitResponse status = transbankService.getTransactionStatus(pending.webpayToken());
+            return toResolution(pending, status);
+        } catch (RuntimeException e) {
+            count("error");
+            log.warn("No se pudo consultar el estado de la orden {}: {}", pending.buyOrder(), e.getMessage());
+            return null;
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    /**
+     * Decide el nuevo estado según lo que informa Transbank; null si la orden sigue pendiente
+     */
+    private Resolution toResolution(PendingPaymentDTO pending, WebPayCommitResponse status) {
+        if (status == null) {
+            return null;
+        }
+        if (status.isApproved()) {
+            String cardNumber = status.getCardDetail() != null ? status.getCardDetail().getCardNumber() : null;
+            return new Resolution(pending, OrderStatus.APPROVED, status.getAuthorizationCode(), cardNumber, null,
+                    TransbankServiceImpl.parseTransactionDate(status.getTransactionDate()), "approved");
+        }
+        if (FAILED_STATUSES.contains(status.getStatus()) || status.getResponseCode() != 0) {
+            return new Resolution(pending, OrderStatus.REJECTED, null, null,
+                    "Código de respuesta: " + status.getResponseCode(),
+                    TransbankServiceImpl.parseTransactionDate(status.getTransactionDate()), "rejected");
+        }
+        if (pending.createdAt().isBefore(LocalDateTime.now().minus(abandonAfter))) {
+            return new Resolution(pending, OrderStatus.REJECTED, null, null,
+                    "Pago abandonado (estado WebPay: " + status.getStatus() + ")", LocalDateTime.now(), "abandoned");
+        }
+        count("pending");
+        return null;
+    }
+
+    /**
+     * Aplica los resultados de la página en una transacción; cada UPDATE exige que la orden siga PENDING
+     */
+    private int applyResolutions(List<Resolution> resolutions) {
+        Integer applied = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Resolution> updated = new ArrayList<>(resolutions.size());
+            for (Resolution r : resolutions) {
+                int rows = orderRepository.applyPaymentResult(r.pending().buyOrder(), OrderStatus.PENDING,
+                        r.status(), r.authorizationCode(), r.cardNumber(), r.errorMessage(), r.transactionDate(), now);
+                if (rows == 1) {
+                    updated.add(r);
+                }
+            }
+            if (updated.isEmpty()) {
+                return 0;
+            }
+
+            List<Order> orders = orderRepository.findWithItemsByIdIn(
+                    updated.stream().map(r -> r.pending().id()).toList());
+            for (Order order : orders) {
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(order, OrderStatus.PENDING, order.getStatus()));
+            }
+            for (Resolution r : updated) {
+                count(r.outcome());
+                orderTimer.record(Duration.between(r.pending().createdAt(), now));
+            }
+            return updated.size();
+        });
+        return applied != null ? applied : 0;
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("ventas.reconciliation.orders", "outcome", outcome).increment();
+    }
+
+    private record Resolution(PendingPaymentDTO pending, OrderStatus status, String authorizationCode,
+                              String cardNumber, String errorMessage, LocalDateTime transactionDate,
+                              String outcome) {
+    }
+}
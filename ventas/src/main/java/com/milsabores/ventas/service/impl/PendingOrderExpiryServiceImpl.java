@@ -0,0 +1,224 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.PendingPaymentDTO;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.repository.OrderRepository;
+import com.milsabores.ventas.service.PendingOrderExpiryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vencimiento de órdenes WebPay abandonadas
+ * Cada orden WebPay pendiente tiene un temporizador en una rueda jerárquica en memoria
+ * (programar es O(1) y no hay una tarea por orden): se carga desde la base al iniciar y se
+ * alimenta con cada orden creada. Un tick periódico avanza la rueda y cancela las vencidas
+ * con UPDATE por lotes condicionados a que sigan PENDING; las que se pagaron entretanto se omiten.
+ * Sólo se cancelan las que nunca obtuvieron token: con token el cliente pudo pagar en WebPay,
+ * y esas las resuelve la conciliación consultando a Transbank.
+ */
+@Service
+@Slf4j
+public class PendingOrderExpiryServiceImpl implements PendingOrderExpiryService {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration retryDelay;
+    private final int batchSize;
+    private final TimerWheel wheel;
+    private final Counter cancelled;
+
+    public PendingOrderExpiryServiceImpl(OrderRepository orderRepository,
+                                         ApplicationEventPublisher eventPublisher,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${ventas.expiry.ttl-minutes:90}") long ttlMinutes,
+                                         @Value("${ventas.expiry.tick-ms:1000}") long tickMs,
+                                         @Value("${ventas.expiry.retry-delay-ms:60000}") long retryDelayMs,
+                                         @Value("${ventas.expiry.batch-size:500}") int batchSize) {
+        this.orderRepository = orderRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.retryDelay = Duration.ofMillis(retryDelayMs);
+        this.batchSize = batchSize;
+        // 4 niveles de 256 ranuras: con ticks de 1 s cubre más que cualquier plazo razonable
+        this.wheel = new TimerWheel(tickMs, 8, 4, System.currentTimeMillis());
+
+        Gauge.builder("ventas.expiry.scheduled", this, PendingOrderExpiryServiceImpl::scheduledCount)
+                .description("Órdenes WebPay pendientes con vencimiento programado")
+                .register(meterRegistry);
+        this.cancelled = Counter.builder("ventas.expiry.cancelled")
+                .description("Órdenes canceladas por vencimiento")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public int loadPendingOrders() {
+        int loaded = 0;
+        long afterId = 0;
+        while (true) {
+            List<PendingPaymentDTO> page = orderRepository.findPendingWebpayWithoutTokenAfter(afterId, PageRequest.of(0, batchSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            synchronized (wheel) {
+                for (PendingPaymentDTO pending : page) {
+                    wheel.schedule(pending.id(), deadline(pending.createdAt()));
+                }
+            }
+            loaded += page.size();
+            afterId = page.get(page.size() - 1).id();
+            if (page.size() < batchSize) {
+                break;
+            }
+        }
+        log.info("Vencimiento programado para {} órdenes WebPay pendientes (plazo {})", loaded, ttl);
+        return loaded;
+    }
+
+    /**
+     * Programa el vencimiento de cada orden WebPay nueva una vez confirmada su creación
+     */
+    @EventListener
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        List<long[]> created = new ArrayList<>(1);
+        collectCreated(event, created);
+        scheduleAfterCommit(created);
+    }
+
+    /**
+     * Las órdenes creadas por la cola de ingesta llegan en un evento por lote
+     */
+    @EventListener
+    public void onBatchStatusChanged(OrderStatusBatchChangedEvent event) {
+        List<long[]> created = new ArrayList<>();
+        event.changes().forEach(change -> collectCreated(change, created));
+        scheduleAfterCommit(created);
+    }
+
+    /**
+     * Agrega {id, vencimiento} si el evento es la creación de una orden WebPay pendiente
+     */
+    private void collectCreated(OrderStatusChangedEvent event, List<long[]> created) {
+        Order order = event.order();
+        if (!event.isCreation() || event.newStatus() != OrderStatus.PENDING
+                || order.getPaymentMethod() != PaymentMethod.WEBPAY) {
+            return;
+        }
+        created.add(new long[]{order.getId(), deadline(order.getCreatedAt())});
+    }
+
+    private void scheduleAfterCommit(List<long[]> created) {
+        if (created.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    scheduleAll(created);
+                }
+            });
+        } else {
+            scheduleAll(created);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${ventas.expiry.tick-ms:1000}")
+    public int expireDueOrders() {
+        List<Long> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(System.currentTimeMillis(), due::add);
+        }
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        int expired = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> chunk = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                Integer applied = transactionTemplate.execute(status -> expire(chunk));
+                expired += applied != null ? applied : 0;
+            } catch (RuntimeException e) {
+                // No se pierden: se vuelven a programar para el próximo intento
+                log.warn("No se pudo cancelar un lote de {} órdenes vencidas: {}", chunk.size(), e.getMessage());
+                long retryAt = System.currentTimeMillis() + retryDelay.toMillis();
+                synchronized (wheel) {
+                    chunk.forEach(id -> wheel.schedule(id, retryAt));
+                }
+            }
+        }
+        if (expired > 0) {
+            cancelled.increment(expired);
+            log.info("{} órdenes WebPay pendientes canceladas por vencimiento", expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Cancela en un UPDATE las órdenes del lote que siguen pendientes y sin token, y publica un evento del lote
+     */
+    private int expire(List<Long> ids) {
+        List<Long> pending = orderRepository.lockPendingWithoutToken(ids);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        orderRepository.transitionStatus(pending, OrderStatus.PENDING, OrderStatus.CANCELLED, LocalDateTime.now());
+        List<OrderStatusChangedEvent> changes = new ArrayList<>(pending.size());
+        for (Order order : orderRepository.findWithItemsByIdIn(pending)) {
+            changes.add(new OrderStatusChangedEvent(order, OrderStatus.PENDING, OrderStatus.CANCELLED));
+        }
+        eventPublisher.publishEvent(new OrderStatusBatchChangedEvent(changes));
+        return pending.size();
+    }
+
+    private void scheduleAll(List<long[]> created) {
+        synchronized (wheel) {
+            for (long[] entry : created) {
+                wheel.schedule(entry[0], entry[1]);
+            }
+        }
+    }
+
+    private long scheduledCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private long deadline(LocalDateTime createdAt) {
+        LocalDateTime created = createdAt != null ? createdAt : LocalDateTime.now();
+        return created.plus(ttl).atZone(ZONE).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,156 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.entity.Clp;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia local de precios y nombres del catálogo (tabla productos del servicio de productos)
+ * Se carga completa al arrancar y luego se refresca por delta sobre actualizado_en; una recarga
+ * completa periódica recoge las bajas y los cambios hechos por SQL directo.
+ * Cada refresco publica un mapa nuevo e inmutable: un carrito se valida contra una sola foto del catálogo
+ */
+@Component
+@Slf4j
+class ProductCatalogCache {
+
+    private static final String SQL_ALL =
+            "SELECT code, nombre, precioclp, actualizado_en FROM productos";
+
+    private static final String SQL_CHANGED =
+            "SELECT code, nombre, precioclp, actualizado_en FROM productos WHERE actualizado_en >= ?";
+
+    // Se relee un tramo hacia atrás por si un cambio con marca anterior se confirmó tarde
+    private static final Duration OVERLAP = Duration.ofSeconds(30);
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, i) -> {
+        Timestamp updatedAt = rs.getTimestamp("actualizado_en");
+        return new Row(new CatalogProduct(rs.getString("code"), rs.getString("nombre"), Clp.of(rs.getLong("precioclp"))),
+                updatedAt != null ? updatedAt.toLocalDateTime() : null);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Snapshot snapshot;
+
+    ProductCatalogCache(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+
+        Gauge.builder("ventas.catalog.products", this, ProductCatalogCache::size)
+                .description("Productos en la caché local de precios")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Productos por código; null si el catálogo aún no se pudo cargar
+     */
+    Map<String, CatalogProduct> products() {
+        Snapshot current = snapshot;
+        return current != null ? current.products() : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reload();
+    }
+
+    /**
+     * Recarga completa del catálogo
+     */
+    @Scheduled(fixedDelayString = "${ventas.catalog.full-refresh-ms:600000}",
+               initialDelayString = "${ventas.catalog.full-refresh-ms:600000}")
+    public synchronized void reload() {
+        try {
+            List<Row> rows = jdbcTemplate.query(SQL_ALL, ROW_MAPPER);
+            Map<String, CatalogProduct> products = new HashMap<>(rows.size() * 2);
+            LocalDateTime cursor = null;
+            for (Row row : rows) {
+                products.put(row.product().code(), row.product());
+                cursor = latest(cursor, row.updatedAt());
+            }
+            snapshot = new Snapshot(Map.copyOf(products), cursor);
+            log.info("Catálogo de precios cargado: {} productos", products.size());
+        } catch (DataAccessException e) {
+            // La tabla la crea el servicio de productos; puede no existir aún
+            log.warn("No se pudo cargar el catálogo de precios: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica los productos modificados desde el último refresco
+     */
+    @Scheduled(fixedDelayString = "${ventas.catalog.refresh-ms:15000}",
+               initialDelayString = "${ventas.catalog.refresh-ms:15000}")
+    public synchronized void refresh() {
+        Snapshot current = snapshot;
+        if (current == null || current.cursor() == null) {
+            reload();
+            return;
+        }
+        try {
+            List<Row> rows = jdbcTemplate.query(SQL_CHANGED, ROW_MAPPER,
+                    Timestamp.valueOf(current.cursor().minus(OVERLAP)));
+            Map<String, CatalogProduct> products = null;
+            LocalDateTime cursor = current.cursor();
+            int changed = 0;
+            for (Row row : rows) {
+                cursor = latest(cursor, row.updatedAt());
+                // El tramo de solape y los cambios de stock devuelven filas sin cambios de precio ni nombre
+                if (row.product().equals(current.products().get(row.product().code()))) {
+                    continue;
+                }
+                if (products == null) {
+                    products = new HashMap<>(current.products());
+                }
+                products.put(row.product().code(), row.product());
+                changed++;
+            }
+            if (products != null) {
+                log.info("Catálogo de precios actualizado: {} productos cambiaron", changed);
+                snapshot = new Snapshot(Map.copyOf(products), cursor);
+            } else if (!cursor.equals(current.cursor())) {
+                snapshot = new Snapshot(current.products(), cursor);
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudo refrescar el catálogo de precios: {}", e.getMessage());
+        }
+    }
+
+    private int size() {
+        Snapshot current = snapshot;
+        return current != null ? current.products().size() : 0;
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return b.isAfter(a) ? b : a;
+    }
+
+    /**
+     * Precio y nombre vigentes de un producto
+     */
+    record CatalogProduct(String code, String name, Clp price) {
+    }
+
+    private record Row(CatalogProduct product, LocalDateTime updatedAt) {
+    }
+
+    private record Snapshot(Map<String, CatalogProduct> products, LocalDateTime cursor) {
+    }
+}
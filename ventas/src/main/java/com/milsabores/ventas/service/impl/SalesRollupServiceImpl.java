@@ -0,0 +1,213 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.SalesSeriesPointDTO;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderItem;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.entity.RollupGranularity;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.repository.SalesRollupRepository;
+import com.milsabores.ventas.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Implementación del servicio de rollups de ventas
+ * Los rollups se actualizan con un upsert por granularidad en cada transición,
+ * dentro de la misma transacción que modifica la orden
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesRollupServiceImpl implements SalesRollupService {
+
+    /**
+     * Estados que representan una venta pagada
+     */
+    private static final Set<OrderStatus> PAID_STATUSES = EnumSet.of(
+            OrderStatus.APPROVED, OrderStatus.PROCESSING, OrderStatus.READY, OrderStatus.DELIVERED);
+
+    /**
+     * Rango máximo de un recálculo: un año (bisiesto incluido) por solicitud
+     */
+    static final int MAX_BACKFILL_DAYS = 366;
+
+    private final SalesRollupRepository rollupRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${ventas.rollups.backfill-threads:4}")
+    private int backfillThreads;
+
+    /**
+     * Mueve la orden entre filas de su bucket según la transición
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        Order order = event.order();
+        if (order.getCreatedAt() == null || event.previousStatus() == event.newStatus()) return;
+
+        long units = countUnits(order);
+        BigDecimal amount = order.getFinalAmount() != null ? order.getFinalAmount().toBigDecimal() : BigDecimal.ZERO;
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            LocalDateTime bucket = granularity.bucketStart(order.getCreatedAt());
+            if (event.previousStatus() != null) {
+                rollupRepository.upsertDelta(granularity.name(), bucket, event.previousStatus().name(),
+                        order.getPaymentMethod().name(), -1, -units, amount.negate());
+            }
+            if (event.newStatus() != null) {
+                rollupRepository.upsertDelta(granularity.name(), bucket, event.newStatus().name(),
+                        order.getPaymentMethod().name(), 1, units, amount);
+            }
+        }
+    }
+
+    /**
+     * Agrupa los deltas del lote por fila de rollup y hace un solo upsert por fila
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onBatchStatusChanged(OrderStatusBatchChangedEvent event) {
+        Map<RollupKey, RollupDelta> deltas = new LinkedHashMap<>();
+        for (OrderStatusChangedEvent change : event.changes()) {
+            Order order = change.order();
+            if (order.getCreatedAt() == null || change.previousStatus() == change.newStatus()) continue;
+
+            long units = countUnits(order);
+            long amount = order.getFinalAmount() != null ? order.getFinalAmount().value() : 0L;
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                LocalDateTime bucket = granularity.bucketStart(order.getCreatedAt());
+                if (change.previousStatus() != null) {
+                    deltas.computeIfAbsent(new RollupKey(granularity, bucket, change.previousStatus(), order.getPaymentMethod()),
+                            k -> new RollupDelta()).add(-1, -units, -amount);
+                }
+                if (change.newStatus() != null) {
+                    deltas.computeIfAbsent(new RollupKey(granularity, bucket, change.newStatus(), order.getPaymentMethod()),
+                            k -> new RollupDelta()).add(1, units, amount);
+                }
+            }
+        }
+
+        deltas.forEach((key, delta) -> {
+            if (delta.count != 0 || delta.units != 0 || delta.revenue != 0) {
+                rollupRepository.upsertDelta(key.granularity().name(), key.bucket(), key.status().name(),
+                        key.paymentMethod().name(), delta.count, delta.units, BigDecimal.valueOf(delta.revenue));
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SalesSeriesPointDTO> getSeries(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                               Set<OrderStatus> statuses, Set<PaymentMethod> paymentMethods) {
+        Set<OrderStatus> effectiveStatuses = statuses == null || statuses.isEmpty() ? PAID_STATUSES : statuses;
+        Set<PaymentMethod> effectiveMethods = paymentMethods == null || paymentMethods.isEmpty()
+                ? EnumSet.allOf(PaymentMethod.class)
+                : paymentMethods;
+
+        return rollupRepository.findSeries(granularity, granularity.bucketStart(from), to,
+                effectiveStatuses, effectiveMethods);
+    }
+
+    @Override
+    public int backfill(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("La fecha de inicio debe ser anterior a la de fin");
+        }
+        if (from.plusDays(MAX_BACKFILL_DAYS).isBefore(to)) {
+            throw new IllegalArgumentException("El rango a recalcular no puede superar " + MAX_BACKFILL_DAYS + " días");
+        }
+        LocalDateTime start = from.truncatedTo(ChronoUnit.DAYS);
+        log.info("Recalculando rollups de ventas entre {} y {}", start, to);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Future<?>> tasks = new ArrayList<>();
+        int days = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, backfillThreads));
+        try {
+            for (LocalDateTime day = start; day.isBefore(to); day = day.plusDays(1)) {
+                LocalDateTime dayStart = day;
+                LocalDateTime dayEnd = day.plusDays(1);
+                tasks.add(executor.submit(() -> tx.executeWithoutResult(status -> rebuildDay(dayStart, dayEnd))));
+                days++;
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recalculo de rollups interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al recalcular rollups: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        log.info("Rollups recalculados para {} días", days);
+        return days;
+    }
+
+    /**
+     * Reemplaza los rollups de un día (horarios y diario) en una transacción
+     */
+    private void rebuildDay(LocalDateTime dayStart, LocalDateTime dayEnd) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            rollupRepository.deleteRange(granularity.name(), dayStart, dayEnd);
+            rollupRepository.rebuildRange(granularity.name(), granularity.sqlUnit(), dayStart, dayEnd);
+        }
+    }
+
+    private long countUnits(Order order) {
+        long units = 0;
+        for (OrderItem item : order.getItems()) {
+            if (item.getQuantity() != null) {
+                units += item.getQuantity();
+            }
+        }
+        return units;
+    }
+
+    private record RollupKey(RollupGranularity granularity, LocalDateTime bucket,
+                             OrderStatus status, PaymentMethod paymentMethod) {
+    }
+
+    /**
+     * Delta acumulado de una fila de rollup dentro de un lote
+     */
+    private static final class RollupDelta {
+        private long count;
+        private long units;
+        private long revenue;
+
+        private void add(long count, long units, long revenue) {
+            this.count += count;
+            this.units += units;
+            this.revenue = Math.addExact(this.revenue, revenue);
+        }
+    }
+}
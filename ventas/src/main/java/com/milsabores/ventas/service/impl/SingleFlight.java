@@ -0,0 +1,98 @@
+package com.milsabores.ventas.service.impl;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa llamadas concurrentes por clave en una sola ejecución
+ * Mientras una llamada está en curso, las demás con la misma clave esperan su resultado;
+ * los resultados exitosos quedan en un caché acotado y de vida corta para repetirlos
+ * a los duplicados tardíos. Los errores no se guardan: el siguiente intento vuelve a llamar.
+ */
+class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<K, CachedResult<V>> results;
+    private final long ttlNanos;
+
+    SingleFlight(Duration ttl, int maxResults) {
+        this.ttlNanos = ttl.toNanos();
+        this.results = new LinkedHashMap<>(64, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedResult<V>> eldest) {
+                return size() > maxResults;
+            }
+        };
+    }
+
+    V execute(K key, Supplier<V> call) {
+        V cached = getCached(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            // Puede haber terminado otra llamada entre la lectura del caché y el registro
+            V value = getCached(key);
+            if (value == null) {
+                value = call.get();
+                putCached(key, value);
+            }
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private V getCached(K key) {
+        synchronized (results) {
+            CachedResult<V> cached = results.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (System.nanoTime() - cached.storedAt() > ttlNanos) {
+                results.remove(key);
+                return null;
+            }
+            return cached.value();
+        }
+    }
+
+    private void putCached(K key, V value) {
+        if (value == null) {
+            return;
+        }
+        synchronized (results) {
+            results.put(key, new CachedResult<>(value, System.nanoTime()));
+        }
+    }
+
+    private record CachedResult<V>(V value, long storedAt) {
+    }
+}
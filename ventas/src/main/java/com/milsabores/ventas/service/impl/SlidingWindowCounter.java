@@ -0,0 +1,83 @@
+package com.milsabores.ventas.service.impl;
+
+import java.util.Arrays;
+
+/**
+ * Contador por producto sobre una ventana deslizante
+ * La ventana se divide en buckets de tiempo en un anillo; cada bucket guarda un
+ * arreglo de contadores indexado por id numérico de producto y la ventana mantiene
+ * el total por producto, restando cada bucket cuando sale de la ventana.
+ * No es thread-safe: el llamador debe sincronizar.
+ */
+class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final long[] bucketEpochs;
+    private long[][] counts;
+    private long[] totals;
+
+    SlidingWindowCounter(long windowMillis, int bucketCount, int initialProducts) {
+        this.bucketMillis = windowMillis / bucketCount;
+        this.bucketCount = bucketCount;
+        this.bucketEpochs = new long[bucketCount];
+        Arrays.fill(bucketEpochs, Long.MIN_VALUE);
+        this.counts = new long[bucketCount][initialProducts];
+        this.totals = new long[initialProducts];
+    }
+
+    /**
+     * Suma unidades a un producto en el instante dado (ignora eventos fuera de la ventana)
+     * Con unidades negativas resta del bucket de ese instante, sin dejarlo bajo cero:
+     * si el bucket ya salió de la ventana o no tiene esas unidades, no hay nada que descontar
+     */
+    void add(int productId, long units, long timeMillis, long nowMillis) {
+        long nowEpoch = nowMillis / bucketMillis;
+        long epoch = Math.min(timeMillis / bucketMillis, nowEpoch);
+        if (epoch <= nowEpoch - bucketCount) return;
+
+        ensureCapacity(productId + 1);
+        int slot = (int) Math.floorMod(epoch, (long) bucketCount);
+        if (bucketEpochs[slot] != epoch) {
+            if (bucketEpochs[slot] > epoch || units < 0) return;
+            clear(slot);
+            bucketEpochs[slot] = epoch;
+        }
+        if (units < 0) {
+            units = Math.max(units, -counts[slot][productId]);
+        }
+        counts[slot][productId] += units;
+        totals[productId] += units;
+    }
+
+    /**
+     * Descarta los buckets que quedaron fuera de la ventana y devuelve los totales vigentes
+     */
+    long[] totals(long nowMillis) {
+        long oldestValid = nowMillis / bucketMillis - bucketCount + 1;
+        for (int slot = 0; slot < bucketCount; slot++) {
+            if (bucketEpochs[slot] != Long.MIN_VALUE && bucketEpochs[slot] < oldestValid) {
+                clear(slot);
+            }
+        }
+        return totals;
+    }
+
+    private void clear(int slot) {
+        long[] bucket = counts[slot];
+        for (int i = 0; i < bucket.length; i++) {
+            totals[i] -= bucket[i];
+            bucket[i] = 0;
+        }
+        bucketEpochs[slot] = Long.MIN_VALUE;
+    }
+
+    private void ensureCapacity(int products) {
+        if (products <= totals.length) return;
+        int newSize = Math.max(products, totals.length * 2);
+        totals = Arrays.copyOf(totals, newSize);
+        for (int slot = 0; slot < bucketCount; slot++) {
+            counts[slot] = Arrays.copyOf(counts[slot], newSize);
+        }
+    }
+}
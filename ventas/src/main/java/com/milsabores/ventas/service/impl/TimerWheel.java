@@ -0,0 +1,146 @@
+package com.milsabores.ventas.service.impl;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Rueda de temporizadores jerárquica para ids de tipo long
+ * Cada nivel es un anillo de 2^bits ranuras; el nivel n cubre (2^bits)^(n+1) ticks.
+ * Programar es O(1): el temporizador se agrega a la ranura del nivel que corresponde a su
+ * distancia. Al avanzar, cuando un nivel completa una vuelta se reparten (cascada) las
+ * entradas de la ranura siguiente del nivel superior en los niveles inferiores.
+ * Las entradas se guardan en arreglos de long por ranura, sin un objeto por temporizador.
+ * No es thread-safe: el llamador debe sincronizar.
+ */
+class TimerWheel {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final Slot[][] levels;
+    private final Slot overdue = new Slot();
+
+    private long currentTick;
+    private long size;
+
+    TimerWheel(long tickMillis, int bits, int levelCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = new Slot[levelCount][1 << bits];
+        for (Slot[] level : levels) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = new Slot();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Programa el id para que venza en el instante indicado (si ya pasó, vence en el próximo avance)
+     */
+    void schedule(long id, long deadlineMillis) {
+        place(id, deadlineMillis / tickMillis);
+        size++;
+    }
+
+    /**
+     * Avanza la rueda hasta el instante indicado entregando cada id vencido
+     * @return cantidad de ids vencidos
+     */
+    int advance(long nowMillis, LongConsumer expired) {
+        int fired = drain(overdue, expired);
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            fired += drain(levels[0][(int) (currentTick & mask)], expired);
+            // La cascada deja en overdue las entradas que vencen justo en este tick
+            fired += drain(overdue, expired);
+        }
+        size -= fired;
+        return fired;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Reparte las ranuras de los niveles superiores que se abren en este tick, de arriba hacia abajo
+     */
+    private void cascade() {
+        int top = 0;
+        while (top + 1 < levels.length && (currentTick & ((1L << (bits * (top + 1))) - 1)) == 0) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            Slot slot = levels[level][(int) ((currentTick >>> (bits * level)) & mask)];
+            int count = slot.size;
+            slot.size = 0;
+            for (int i = 0; i < count; i++) {
+                place(slot.ids[i], slot.ticks[i]);
+            }
+        }
+    }
+
+    private void place(long id, long tick) {
+        long delta = tick - currentTick;
+        if (delta <= 0) {
+            overdue.add(id, tick);
+            return;
+        }
+        int level = 0;
+        while (level + 1 < levels.length && delta >= (1L << (bits * (level + 1)))) {
+            level++;
+        }
+        // Más allá del último nivel: se deja en su última ranura y se vuelve a repartir al pasar
+        long slotTick = level == levels.length - 1 && delta >= (1L << (bits * levels.length))
+                ? currentTick + (1L << (bits * levels.length)) - 1
+                : tick;
+        levels[level][(int) ((slotTick >>> (bits * level)) & mask)].add(id, tick);
+    }
+
+    private int drain(Slot slot, LongConsumer expired) {
+        int count = slot.size;
+        slot.size = 0;
+        for (int i = 0; i < count; i++) {
+            expired.accept(slot.ids[i]);
+        }
+        slot.shrinkIfIdle();
+        return count;
+    }
+
+    /**
+     * Entradas de una ranura: ids y tick de vencimiento en arreglos paralelos
+     */
+    private static final class Slot {
+        private static final int INITIAL_CAPACITY = 8;
+        private static final int IDLE_CAPACITY = 1024;
+
+        private long[] ids = new long[0];
+        private long[] ticks = new long[0];
+        private int size;
+
+        private void add(long id, long tick) {
+            if (size == ids.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, ids.length * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                ticks = Arrays.copyOf(ticks, capacity);
+            }
+            ids[size] = id;
+            ticks[size] = tick;
+            size++;
+        }
+
+        /**
+         * Libera los arreglos que crecieron por un pico de temporizadores
+         */
+        private void shrinkIfIdle() {
+            if (ids.length > IDLE_CAPACITY) {
+                ids = new long[0];
+                ticks = new long[0];
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.TopProductDTO;
+import com.milsabores.ventas.entity.OrderItem;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.SalesWindow;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.repository.OrderItemRepository;
+import com.milsabores.ventas.service.TopSellersService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementación del servicio de productos más vendidos
+ * Los códigos de producto se traducen a ids numéricos y los contadores se guardan en
+ * arreglos de long (sin boxing); cada ventana es un anillo de buckets de tiempo.
+ * Se alimenta de las aprobaciones, y de las cancelaciones de órdenes ya pagadas,
+ * una vez confirmada la transacción.
+ * Durante una reconstrucción los cambios se acumulan aparte y se aplican sobre la foto
+ * de la base sólo si ésta no los incluía.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TopSellersServiceImpl implements TopSellersService {
+
+    /**
+     * Estados que cuentan como venta pagada
+     */
+    private static final Set<OrderStatus> PAID_STATUSES = EnumSet.of(
+            OrderStatus.APPROVED, OrderStatus.PROCESSING, OrderStatus.READY, OrderStatus.DELIVERED);
+
+    private static final int MAX_K = 100;
+
+    private final OrderItemRepository orderItemRepository;
+
+    private final Map<String, Integer> productIds = new HashMap<>();
+    private final List<String> productCodes = new ArrayList<>();
+    private final List<String> productNames = new ArrayList<>();
+    private long[] allTime = new long[64];
+    private final Map<SalesWindow, SlidingWindowCounter> windows = new EnumMap<>(SalesWindow.class);
+
+    /**
+     * Ventas confirmadas durante una reconstrucción; null fuera de ella
+     */
+    private List<Object[]> pending;
+    private final Object rebuildLock = new Object();
+
+    /**
+     * Captura los items al entrar o salir de un estado pagado y los aplica después del commit
+     */
+    @EventListener
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        List<Object[]> sold = new ArrayList<>();
+        collectSold(event, sold);
+        recordAfterCommit(sold);
+    }
+
+    /**
+     * Todas las ventas del lote se registran en una sola sincronización
+     */
+    @EventListener
+    public void onBatchStatusChanged(OrderStatusBatchChangedEvent event) {
+        List<Object[]> sold = new ArrayList<>();
+        event.changes().forEach(change -> collectSold(change, sold));
+        recordAfterCommit(sold);
+    }
+
+    private void collectSold(OrderStatusChangedEvent event, List<Object[]> sold) {
+        boolean wasPaid = event.previousStatus() != null && PAID_STATUSES.contains(event.previousStatus());
+        boolean isPaid = event.newStatus() != null && PAID_STATUSES.contains(event.newStatus());
+        if (wasPaid == isPaid) return;
+
+        // Una venta se cuenta ahora; una devolución (pagada -> no pagada) se resta del bucket
+        // de su fecha de transacción, que es donde quedó registrada
+        long sign = isPaid ? 1 : -1;
+        long time = System.currentTimeMillis();
+        LocalDateTime transactionDate = event.order().getTransactionDate();
+        if (!isPaid && transactionDate != null) {
+            time = transactionDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        Long orderId = event.order().getId();
+        for (OrderItem item : event.order().getItems()) {
+            sold.add(new Object[]{item.getProductCode(), item.getProductName(), sign * item.getQuantity(), time, orderId});
+        }
+    }
+
+    private void recordAfterCommit(List<Object[]> sold) {
+        if (sold.isEmpty()) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordAll(sold);
+                }
+            });
+        } else {
+            recordAll(sold);
+        }
+    }
+
+    @Override
+    public List<TopProductDTO> getTopSellers(SalesWindow window, int k) {
+        int limit = Math.max(1, Math.min(k, MAX_K));
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            SlidingWindowCounter counter = windows.get(window);
+            if (window != SalesWindow.ALL && counter == null) return List.of();
+
+            long[] totals = window == SalesWindow.ALL ? allTime : counter.totals(now);
+            int products = Math.min(totals.length, productCodes.size());
+
+            // Min-heap de tamaño K sobre los ids de producto
+            PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1,
+                    (a, b) -> Long.compare(totals[a], totals[b]));
+            for (int id = 0; id < products; id++) {
+                if (totals[id] <= 0) continue;
+                if (heap.size() < limit) {
+                    heap.add(id);
+                } else if (totals[id] > totals[heap.peek()]) {
+                    heap.poll();
+                    heap.add(id);
+                }
+            }
+
+            List<TopProductDTO> result = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                int id = heap.poll();
+                result.add(new TopProductDTO(productCodes.get(id), productNames.get(id), totals[id]));
+            }
+            Collections.reverse(result);
+            return result;
+        }
+    }
+
+    /**
+     * Las consultas corren en REPEATABLE_READ para leer una sola foto. Las ventas confirmadas
+     * mientras tanto pueden estar o no en ella según el momento del commit, así que se acumulan
+     * y, antes de publicar el ranking, se consulta en la misma foto si cada orden ya contaba
+     * como pagada.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void rebuild() {
+        List<Object[]> allTimeRows;
+        List<Object[]> recentRows;
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+            allTimeRows = orderItemRepository.sumQuantityByProduct(PAID_STATUSES);
+            recentRows = orderItemRepository.findSoldSince(PAID_STATUSES, LocalDateTime.now().minusDays(30));
+
+            // Se repite hasta que todas las órdenes acumuladas estén revisadas con el lock tomado
+            Set<Long> checked = new HashSet<>();
+            Set<Long> paidInSnapshot = new HashSet<>();
+            while (true) {
+                Set<Long> unchecked = new HashSet<>();
+                synchronized (this) {
+                    for (Object[] row : pending) {
+                        Long orderId = (Long) row[4];
+                        if (orderId != null && !checked.contains(orderId)) unchecked.add(orderId);
+                    }
+                    if (unchecked.isEmpty()) {
+                        install(allTimeRows, recentRows, paidInSnapshot);
+                        pending = null;
+                        break;
+                    }
+                }
+                paidInSnapshot.addAll(orderItemRepository.findOrderIdsWithStatus(unchecked, PAID_STATUSES));
+                checked.addAll(unchecked);
+            }
+        }
+        log.info("Ranking de más vendidos reconstruido: {} productos, {} ventas recientes",
+                allTimeRows.size(), recentRows.size());
+    }
+
+    /**
+     * Reemplaza los contadores por la foto y aplica encima las ventas acumuladas
+     * De cada orden sólo cuenta su último cambio, y sólo si la deja en un estado distinto
+     * del que vio la foto: una venta que no alcanzó a entrar o una devolución de algo contado
+     */
+    private void install(List<Object[]> allTimeRows, List<Object[]> recentRows, Set<Long> paidInSnapshot) {
+        long now = System.currentTimeMillis();
+        productIds.clear();
+        productCodes.clear();
+        productNames.clear();
+        allTime = new long[64];
+        windows.put(SalesWindow.HOUR, new SlidingWindowCounter(TimeUnit.HOURS.toMillis(1), 60, 64));
+        windows.put(SalesWindow.DAY, new SlidingWindowCounter(TimeUnit.DAYS.toMillis(1), 96, 64));
+        windows.put(SalesWindow.MONTH, new SlidingWindowCounter(TimeUnit.DAYS.toMillis(30), 120, 64));
+
+        for (Object[] row : allTimeRows) {
+            int id = productId((String) row[0], (String) row[1]);
+            allTime[id] += ((Number) row[2]).longValue();
+        }
+        for (Object[] row : recentRows) {
+            int id = productId((String) row[0], (String) row[1]);
+            long time = ((LocalDateTime) row[2]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            long units = ((Number) row[3]).longValue();
+            for (SlidingWindowCounter counter : windows.values()) {
+                counter.add(id, units, time, now);
+            }
+        }
+
+        Map<Long, Integer> lastSign = new HashMap<>();
+        for (Object[] row : pending) {
+            if (row[4] != null) lastSign.put((Long) row[4], Long.signum(((Number) row[2]).longValue()));
+        }
+        for (Object[] row : pending) {
+            Long orderId = (Long) row[4];
+            if (orderId != null) {
+                int sign = Long.signum(((Number) row[2]).longValue());
+                if (sign != lastSign.get(orderId) || (sign > 0) == paidInSnapshot.contains(orderId)) continue;
+            }
+            add(row, now);
+        }
+    }
+
+    private synchronized void recordAll(List<Object[]> sold) {
+        if (pending != null) {
+            pending.addAll(sold);
+            return;
+        }
+        if (windows.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        for (Object[] row : sold) {
+            add(row, now);
+        }
+    }
+
+    private void add(Object[] row, long now) {
+        int id = productId((String) row[0], (String) row[1]);
+        long units = ((Number) row[2]).longValue();
+        long timeMillis = (Long) row[3];
+        allTime[id] = Math.max(0, allTime[id] + units);
+        for (SlidingWindowCounter counter : windows.values()) {
+            counter.add(id, units, timeMillis, now);
+        }
+    }
+
+    /**
+     * Traduce un código de producto a su id numérico, registrándolo si es nuevo
+     */
+    private int productId(String code, String name) {
+        Integer id = productIds.get(code);
+        if (id != null) return id;
+
+        int newId = productCodes.size();
+        productIds.put(code, newId);
+        productCodes.add(code);
+        productNames.add(name);
+        if (newId >= allTime.length) {
+            allTime = Arrays.copyOf(allTime, allTime.length * 2);
+        }
+        return newId;
+    }
+}
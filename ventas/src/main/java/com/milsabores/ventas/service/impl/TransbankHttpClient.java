@@ -0,0 +1,140 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.config.TransbankProperties;
+import com.milsabores.ventas.exception.TransbankUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cliente HTTP de Transbank con bulkhead, corte de circuito y métricas por endpoint
+ * Todas las llamadas a WebPay pasan por aquí para que un WebPay lento no ocupe
+ * todos los hilos de la aplicación
+ */
+@Component
+@Slf4j
+public class TransbankHttpClient {
+
+    /**
+     * Endpoints de WebPay Plus, usados como tag de las métricas
+     */
+    public enum Endpoint { CREATE, COMMIT, STATUS, REFUND }
+
+    private static final String METRIC_REQUESTS = "transbank.client.requests";
+
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitMs;
+    private final CircuitBreaker circuitBreaker;
+
+    public TransbankHttpClient(RestTemplate restTemplate,
+                               TransbankProperties transbankProperties,
+                               MeterRegistry meterRegistry) {
+        TransbankProperties.Client client = transbankProperties.getClient();
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new Semaphore(client.getMaxConcurrentCalls());
+        this.bulkheadWaitMs = client.getBulkheadWaitMs();
+        this.circuitBreaker = new CircuitBreaker(
+                client.getCircuitWindowSize(),
+                client.getCircuitMinimumCalls(),
+                client.getCircuitFailureRatePercent(),
+                client.getCircuitOpenMs());
+
+        Gauge.builder("transbank.client.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Cupos libres para llamadas simultáneas a Transbank")
+                .register(meterRegistry);
+        Gauge.builder("transbank.client.circuit.open", circuitBreaker,
+                        cb -> cb.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("1 si el circuito hacia Transbank está abierto o en prueba")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta la llamada respetando el circuito y el bulkhead
+     * @throws TransbankUnavailableException si el circuito está abierto o no hay cupo
+     */
+    public <T> ResponseEntity<T> exchange(Endpoint endpoint, String url, HttpMethod method,
+                                          HttpEntity<?> entity, Class<T> responseType) {
+        if (!circuitBreaker.tryAcquire()) {
+            record(endpoint, "short_circuited", 0);
+            throw new TransbankUnavailableException("Servicio de pago no disponible temporalmente");
+        }
+        if (!acquireBulkhead()) {
+            circuitBreaker.release();
+            record(endpoint, "rejected", 0);
+            throw new TransbankUnavailableException("Demasiadas operaciones de pago en curso, intente nuevamente");
+        }
+
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            ResponseEntity<T> response = restTemplate.exchange(url, method, entity, responseType);
+            outcome = "success";
+            circuitBreaker.onSuccess();
+            return response;
+        } catch (HttpStatusCodeException e) {
+            // Un 4xx es una respuesta de negocio de Transbank: el servicio está sano
+            if (e.getStatusCode().is4xxClientError()) {
+                outcome = "client_error";
+                circuitBreaker.onSuccess();
+            } else {
+                outcome = "server_error";
+                circuitBreaker.onFailure();
+            }
+            throw e;
+        } catch (CancellationException e) {
+            // Según quién gane la carrera, el read-timeout de JdkClientHttpRequestFactory llega
+            // como cancelación de la respuesta en vez de ResourceAccessException
+            outcome = "timeout";
+            circuitBreaker.onFailure();
+            throw new ResourceAccessException("Tiempo de espera agotado llamando a Transbank: " + url,
+                    new HttpTimeoutException("read timeout"));
+        } catch (RuntimeException e) {
+            if (e instanceof ResourceAccessException && e.getCause() instanceof HttpTimeoutException) {
+                outcome = "timeout";
+            }
+            circuitBreaker.onFailure();
+            throw e;
+        } finally {
+            bulkhead.release();
+            record(endpoint, outcome, System.nanoTime() - start);
+        }
+    }
+
+    private boolean acquireBulkhead() {
+        try {
+            return bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void record(Endpoint endpoint, String outcome, long nanos) {
+        Timer.builder(METRIC_REQUESTS)
+                .description("Latencia de las llamadas a Transbank")
+                .tag("endpoint", endpoint.name().toLowerCase())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(5))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
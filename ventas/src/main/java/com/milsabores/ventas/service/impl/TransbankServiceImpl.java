@@ -4,8 +4,9 @@ import com.milsabores.ventas.config.TransbankProperties;
 import com.milsabores.ventas.dto.transbank.*;
 import com.milsabores.ventas.entity.Order;
 import com.milsabores.ventas.entity.OrderStatus;
-import com.milsabores.ventas.exception.OrderNotFoundException;
+import com.milsabores.ventas.exception.OrderNotPayableException;
 import com.milsabores.ventas.exception.TransbankException;
+import com.milsabores.ventas.exception.TransbankUnavailableException;
 import com.milsabores.ventas.repository.OrderRepository;
 import com.milsabores.ventas.service.TransbankService;
 import lombok.RequiredArgsConstructor;
@@ -13,10 +14,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
@@ -30,13 +30,18 @@ import java.util.Map;
 @Slf4j
 public class TransbankServiceImpl implements TransbankService {
 
-    private final RestTemplate restTemplate;
+    private final TransbankHttpClient transbankHttpClient;
     private final TransbankProperties transbankProperties;
     private final OrderRepository orderRepository;
+    private final OrderTransitionExecutor orderTransitionExecutor;
 
     @Value("${transbank.environment:INTEGRATION}")
     private String environment;
 
+    // Resultados por token: el commit es definitivo, el estado puede cambiar y se guarda poco tiempo
+    private final SingleFlight<String, PaymentResultDTO> commitFlights = new SingleFlight<>(Duration.ofMinutes(10), 10_000);
+    private final SingleFlight<String, WebPayCommitResponse> statusFlights = new SingleFlight<>(Duration.ofSeconds(5), 10_000);
+
     // Headers requeridos por la API de Transbank
     private static final String HEADER_COMMERCE_CODE = "Tbk-Api-Key-Id";
     private static final String HEADER_API_KEY = "Tbk-Api-Key-Secret";
@@ -48,7 +53,12 @@ public class TransbankServiceImpl implements TransbankService {
     private static final String ENDPOINT_REFUND = "/rswebpaytransaction/api/webpay/v1.2/transactions/{token}/refunds";
 
     @Override
-    public InitPaymentResponseDTO initTransaction(String buyOrder, int amount, String sessionId) {
+    public InitPaymentResponseDTO initTransaction(String buyOrder, String sessionId) {
+        // El monto sale de la orden guardada, nunca del cliente
+        Order order = orderRepository.findByBuyOrder(buyOrder)
+                .filter(o -> o.getStatus() == OrderStatus.PENDING)
+                .orElseThrow(() -> new OrderNotPayableException("La orden " + buyOrder + " no existe o ya no está pendiente de pago"));
+        int amount = Math.toIntExact(order.getFinalAmount().value());
         log.info("Iniciando transacción WebPay - Orden: {}, Monto: {}", buyOrder, amount);
 
         try {
@@ -66,7 +76,8 @@ public class TransbankServiceImpl implements TransbankService {
 
             log.debug("Llamando a Transbank: {} con body: {}", url, request);
 
-            ResponseEntity<WebPayCreateResponse> response = restTemplate.exchange(
+            ResponseEntity<WebPayCreateResponse> response = transbankHttpClient.exchange(
+                    TransbankHttpClient.Endpoint.CREATE,
                     url,
                     HttpMethod.POST,
                     entity,
@@ -80,6 +91,13 @@ public class TransbankServiceImpl implements TransbankService {
 
             log.info("Transacción iniciada exitosamente - Token: {}", body.getToken());
 
+            // Guardar el token para poder conciliar la orden si el cliente no vuelve de WebPay;
+            // una orden que ya no está pendiente no recibe la URL de pago
+            if (orderRepository.assignWebpayToken(buyOrder, body.getToken()) == 0) {
+                log.warn("La orden {} ya no está pendiente; no se entrega la URL de pago", buyOrder);
+                throw new OrderNotPayableException("La orden " + buyOrder + " ya no está pendiente de pago");
+            }
+
             // Construir la URL de redirección
             String redirectUrl = body.getUrl() + "?token_ws=" + body.getToken();
 
@@ -90,6 +108,8 @@ public class TransbankServiceImpl implements TransbankService {
                     .buyOrder(buyOrder)
                     .build();
 
+        } catch (TransbankUnavailableException | OrderNotPayableException e) {
+            throw e;
         } catch (HttpClientErrorException e) {
             log.error("Error HTTP al crear transacción: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
             throw new TransbankException("Error al comunicarse con Transbank: " + e.getMessage());
@@ -99,9 +119,17 @@ public class TransbankServiceImpl implements TransbankService {
         }
     }
 
+    /**
+     * Sin transacción: la llamada a Transbank no retiene una conexión del pool
+     * Llamadas concurrentes con el mismo token comparten un solo PUT a Transbank
+     * y los duplicados tardíos reciben el mismo resultado desde el caché
+     */
     @Override
-    @Transactional
     public PaymentResultDTO commitTransaction(String token) {
+        return commitFlights.execute(token, () -> doCommit(token));
+    }
+
+    private PaymentResultDTO doCommit(String token) {
         log.info("Confirmando transacción WebPay - Token: {}", token);
 
         try {
@@ -109,7 +137,8 @@ public class TransbankServiceImpl implements TransbankService {
             HttpEntity<Void> entity = new HttpEntity<>(createHeaders());
             String url = getBaseUrl() + ENDPOINT_COMMIT.replace("{token}", token);
 
-            ResponseEntity<WebPayCommitResponse> response = restTemplate.exchange(
+            ResponseEntity<WebPayCommitResponse> response = transbankHttpClient.exchange(
+                    TransbankHttpClient.Endpoint.COMMIT,
                     url,
                     HttpMethod.PUT,
                     entity,
@@ -126,17 +155,20 @@ public class TransbankServiceImpl implements TransbankService {
                     commitResponse.getResponseCode(),
                     commitResponse.getStatus());
 
-            // Actualizar la orden en la base de datos
-            updateOrderFromCommit(commitResponse);
-
-            // Construir respuesta
-            return buildPaymentResult(commitResponse);
+            // Actualizar la orden y responder con su estado real
+            return applyCommit(token, commitResponse);
 
+        } catch (TransbankUnavailableException e) {
+            throw e;
         } catch (HttpClientErrorException e) {
             log.error("Error HTTP al confirmar transacción: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
             
-            // Si es 422, la transacción ya fue confirmada o expiró
+            // Si es 422, la transacción ya fue confirmada o expiró: el estado dice cuál fue el resultado
             if (e.getStatusCode() == HttpStatus.UNPROCESSABLE_ENTITY) {
+                PaymentResultDTO previous = resultFromStatus(token);
+                if (previous != null) {
+                    return previous;
+                }
                 throw new TransbankException("La transacción ya fue procesada o ha expirado");
             }
             throw new TransbankException("Error al confirmar pago: " + e.getMessage());
@@ -148,13 +180,18 @@ public class TransbankServiceImpl implements TransbankService {
 
     @Override
     public WebPayCommitResponse getTransactionStatus(String token) {
+        return statusFlights.execute(token, () -> doGetStatus(token));
+    }
+
+    private WebPayCommitResponse doGetStatus(String token) {
         log.info("Consultando estado de transacción - Token: {}", token);
 
         try {
             HttpEntity<Void> entity = new HttpEntity<>(createHeaders());
             String url = getBaseUrl() + ENDPOINT_STATUS.replace("{token}", token);
 
-            ResponseEntity<WebPayCommitResponse> response = restTemplate.exchange(
+            ResponseEntity<WebPayCommitResponse> response = transbankHttpClient.exchange(
+                    TransbankHttpClient.Endpoint.STATUS,
                     url,
                     HttpMethod.GET,
                     entity,
@@ -170,7 +207,6 @@ public class TransbankServiceImpl implements TransbankService {
     }
 
     @Override
-    @Transactional
     public boolean refundTransaction(String token, int amount) {
         log.info("Reversando transacción - Token: {}, Monto: {}", token, amount);
 
@@ -181,7 +217,8 @@ public class TransbankServiceImpl implements TransbankService {
             HttpEntity<Map<String, Integer>> entity = new HttpEntity<>(requestBody, createHeaders());
             String url = getBaseUrl() + ENDPOINT_REFUND.replace("{token}", token);
 
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<Map> response = transbankHttpClient.exchange(
+                    TransbankHttpClient.Endpoint.REFUND,
                     url,
                     HttpMethod.POST,
                     entity,
@@ -219,38 +256,107 @@ public class TransbankServiceImpl implements TransbankService {
     }
 
     /**
-     * Actualiza la orden en la base de datos con el resultado del pago
+     * Aplica el resultado en la orden y arma la respuesta con el estado que quedó guardado
+     * Un cobro aprobado que la orden no registró (cancelada, rechazada o inexistente) se reversa:
+     * al cliente no se le informa un pago aprobado para una orden que no se va a preparar
+     */
+    private PaymentResultDTO applyCommit(String token, WebPayCommitResponse response) {
+        OrderTransitionExecutor.Outcome outcome = updateOrderFromCommit(response);
+        if (outcome == OrderTransitionExecutor.Outcome.APPLIED || outcome == OrderTransitionExecutor.Outcome.UNCHANGED) {
+            return buildPaymentResult(response, response.isApproved() ? OrderStatus.APPROVED : OrderStatus.REJECTED);
+        }
+
+        Order order = orderRepository.findByBuyOrder(response.getBuyOrder()).orElse(null);
+        OrderStatus current = order != null ? order.getStatus() : null;
+        // Confirmación tardía de un cobro que la orden ya registró y que siguió su curso (p. ej. PROCESSING)
+        boolean alreadyRecorded = order != null && order.getAuthorizationCode() != null
+                && order.getAuthorizationCode().equals(response.getAuthorizationCode());
+        if (!response.isApproved() || alreadyRecorded) {
+            return buildPaymentResult(response, current);
+        }
+        return reverseUnappliedCharge(token, response, current);
+    }
+
+    /**
+     * Reversa un cobro aprobado que la orden no registró y lo deja anotado en la orden
      */
-    private void updateOrderFromCommit(WebPayCommitResponse response) {
+    private PaymentResultDTO reverseUnappliedCharge(String token, WebPayCommitResponse response, OrderStatus current) {
+        String buyOrder = response.getBuyOrder();
+        log.error("Cobro aprobado para la orden {} en estado {} (autorización {}): se reversa",
+                buyOrder, current, response.getAuthorizationCode());
+
+        boolean reversed;
         try {
-            Order order = orderRepository.findByBuyOrder(response.getBuyOrder())
-                    .orElseThrow(() -> new OrderNotFoundException("Orden no encontrada: " + response.getBuyOrder()));
-
-            if (response.isApproved()) {
-                order.setStatus(OrderStatus.APPROVED);
-                order.setAuthorizationCode(response.getAuthorizationCode());
-                if (response.getCardDetail() != null) {
-                    order.setCardNumber(response.getCardDetail().getCardNumber());
-                }
-            } else {
-                order.setStatus(OrderStatus.REJECTED);
-                order.setErrorMessage("Código de respuesta: " + response.getResponseCode());
-            }
+            reversed = refundTransaction(token, response.getAmount());
+        } catch (RuntimeException e) {
+            log.error("No se pudo reversar el cobro de la orden {}: {}", buyOrder, e.getMessage());
+            reversed = false;
+        }
+
+        String note = "Pago aprobado (autorización " + response.getAuthorizationCode() + ") sin aplicar: "
+                + (reversed ? "reversado" : "reversa pendiente");
+        if (current != null) {
+            orderRepository.recordPaymentError(buyOrder, note, LocalDateTime.now());
+        }
+
+        PaymentResultDTO result = buildPaymentResult(response, current);
+        result.setSuccess(false);
+        result.setMessage(reversed
+                ? "La orden ya no admite pagos; el cobro fue reversado"
+                : "La orden ya no admite pagos y el cobro no se pudo reversar; contacte a soporte");
+        return result;
+    }
 
+    /**
+     * Aplica el resultado del pago en una transacción corta, fuera de la llamada a Transbank
+     * La tabla de transiciones sólo permite APPROVED/REJECTED desde PENDING: un segundo commit
+     * del mismo token (o una orden ya cancelada) no la sobrescribe, y una edición concurrente
+     * se detecta por la versión de la orden y se reintenta
+     */
+    private OrderTransitionExecutor.Outcome updateOrderFromCommit(WebPayCommitResponse response) {
+        String buyOrder = response.getBuyOrder();
+        boolean approved = response.isApproved();
+        OrderStatus newStatus = approved ? OrderStatus.APPROVED : OrderStatus.REJECTED;
+        String cardNumber = approved && response.getCardDetail() != null
+                ? response.getCardDetail().getCardNumber() : null;
+
+        OrderTransitionExecutor.Outcome outcome = orderTransitionExecutor.transition(buyOrder, newStatus, order -> {
+            order.setAuthorizationCode(approved ? response.getAuthorizationCode() : null);
+            order.setCardNumber(cardNumber);
+            order.setErrorMessage(approved ? null : "Código de respuesta: " + response.getResponseCode());
             order.setTransactionDate(parseTransactionDate(response.getTransactionDate()));
-            orderRepository.save(order);
+        });
 
-            log.info("Orden actualizada - BuyOrder: {}, Estado: {}", response.getBuyOrder(), order.getStatus());
+        if (outcome == OrderTransitionExecutor.Outcome.APPLIED) {
+            log.info("Orden actualizada - BuyOrder: {}, Estado: {}", buyOrder, newStatus);
+        } else {
+            log.warn("La orden {} no se actualiza a {} ({})", buyOrder, newStatus, outcome);
+        }
+        return outcome;
+    }
 
-        } catch (OrderNotFoundException e) {
-            log.warn("No se encontró la orden para actualizar: {}", response.getBuyOrder());
+    /**
+     * Resultado de una transacción ya confirmada, según su estado en Transbank
+     * @return null si la transacción no tiene un resultado final
+     */
+    private PaymentResultDTO resultFromStatus(String token) {
+        try {
+            WebPayCommitResponse status = doGetStatus(token);
+            if (status == null || status.getStatus() == null || "INITIALIZED".equals(status.getStatus())) {
+                return null;
+            }
+            log.info("Token {} ya confirmado, estado en Transbank: {}", token, status.getStatus());
+            return applyCommit(token, status);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo obtener el estado del token {}: {}", token, e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Construye el DTO de resultado del pago
+     * Construye el DTO de resultado del pago con el estado guardado de la orden
      */
-    private PaymentResultDTO buildPaymentResult(WebPayCommitResponse response) {
+    private PaymentResultDTO buildPaymentResult(WebPayCommitResponse response, OrderStatus orderStatus) {
         boolean success = response.isApproved();
 
         return PaymentResultDTO.builder()
@@ -264,14 +370,14 @@ public class TransbankServiceImpl implements TransbankService {
                 .installments(response.getInstallmentsNumber())
                 .transactionDate(parseTransactionDate(response.getTransactionDate()))
                 .responseCode(response.getResponseCode())
-                .orderStatus(success ? "APPROVED" : "REJECTED")
+                .orderStatus(orderStatus != null ? orderStatus.name() : null)
                 .build();
     }
 
     /**
      * Parsea la fecha de transacción de Transbank
      */
-    private LocalDateTime parseTransactionDate(String dateString) {
+    static LocalDateTime parseTransactionDate(String dateString) {
         if (dateString == null) return LocalDateTime.now();
         try {
             return LocalDateTime.parse(dateString, DateTimeFormatter.ISO_DATE_TIME);
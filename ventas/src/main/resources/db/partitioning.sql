@@ -0,0 +1,170 @@
+-- =====================================================
+-- Migración: particionado mensual de orders y order_items
+-- Microservicio: ventas
+-- Base de datos: PostgreSQL 13+
+-- =====================================================
+-- Ejecutar una sola vez, con el servicio detenido y después de haber
+-- arrancado la versión actual al menos una vez (columnas webpay_token,
+-- order_created_at y secuencias orders_seq/order_items_seq).
+--
+-- Cambios respecto de schema.sql:
+--   * orders se particiona por RANGE (created_at) y order_items por
+--     RANGE (order_created_at), un tramo por mes (orders_pYYYYMM).
+--   * La PK pasa a (id, created_at): toda clave única de una tabla
+--     particionada debe incluir la clave de partición.
+--   * La unicidad global de buy_order se mantiene con la tabla
+--     order_buy_orders, alimentada por trigger. Al archivar un mes sus
+--     buy orders se liberan de esa tabla.
+--   * Las particiones futuras y el archivado de las antiguas los hace
+--     PartitionMaintenanceService; los totales por estado de los meses
+--     archivados quedan en order_status_archive (creada por Hibernate).
+-- =====================================================
+
+BEGIN;
+
+ALTER TABLE order_items RENAME TO order_items_legacy;
+ALTER TABLE orders RENAME TO orders_legacy;
+
+DROP INDEX IF EXISTS idx_orders_buy_order, idx_orders_status, idx_orders_customer_email,
+    idx_orders_customer_email_created_at,
+    idx_orders_created_at, idx_orders_status_created_at, idx_orders_status_payment_id,
+    idx_order_items_order_id, idx_order_items_product_code;
+
+-- =====================================================
+-- Tabla: orders (particionada por mes de creación)
+-- =====================================================
+CREATE TABLE orders (
+    id BIGINT NOT NULL,
+    buy_order VARCHAR(50) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    amount DECIMAL(12, 2) NOT NULL,
+    discount_amount DECIMAL(12, 2) DEFAULT 0,
+    final_amount DECIMAL(12, 2) NOT NULL,
+    authorization_code VARCHAR(20),
+    card_number VARCHAR(4),
+    payment_method VARCHAR(20) NOT NULL,
+    error_message VARCHAR(255),
+    webpay_token VARCHAR(64),
+    version BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    transaction_date TIMESTAMP,
+
+    -- Customer Info (embedded)
+    customer_name VARCHAR(150) NOT NULL,
+    customer_email VARCHAR(100) NOT NULL,
+    customer_phone VARCHAR(20) NOT NULL,
+    customer_address VARCHAR(255) NOT NULL,
+    customer_comuna VARCHAR(100) NOT NULL,
+    customer_city VARCHAR(100) NOT NULL,
+
+    CONSTRAINT pk_orders PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- =====================================================
+-- Tabla: order_items (particionada con la fecha de su orden)
+-- =====================================================
+CREATE TABLE order_items (
+    id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    order_created_at TIMESTAMP NOT NULL,
+    product_code VARCHAR(20) NOT NULL,
+    product_name VARCHAR(150) NOT NULL,
+    unit_price DECIMAL(10, 2) NOT NULL,
+    quantity INTEGER NOT NULL,
+    subtotal DECIMAL(12, 2) NOT NULL,
+    size_option VARCHAR(50),
+    custom_message VARCHAR(100),
+
+    CONSTRAINT pk_order_items PRIMARY KEY (id, order_created_at),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id, order_created_at)
+        REFERENCES orders (id, created_at) ON DELETE CASCADE
+) PARTITION BY RANGE (order_created_at);
+
+-- =====================================================
+-- Unicidad global de buy_order
+-- =====================================================
+CREATE TABLE IF NOT EXISTS order_buy_orders (
+    buy_order VARCHAR(50) PRIMARY KEY,
+    order_id BIGINT NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION orders_reserve_buy_order() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO order_buy_orders (buy_order, order_id) VALUES (NEW.buy_order, NEW.id);
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION orders_release_buy_order() RETURNS trigger AS $$
+BEGIN
+    DELETE FROM order_buy_orders WHERE buy_order = OLD.buy_order;
+    RETURN OLD;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_orders_reserve_buy_order BEFORE INSERT ON orders
+    FOR EACH ROW EXECUTE FUNCTION orders_reserve_buy_order();
+CREATE TRIGGER trg_orders_release_buy_order AFTER DELETE ON orders
+    FOR EACH ROW EXECUTE FUNCTION orders_release_buy_order();
+
+-- =====================================================
+-- Índices (se crean en cada partición)
+-- =====================================================
+CREATE INDEX idx_orders_buy_order ON orders (buy_order);
+CREATE INDEX idx_orders_status ON orders (status);
+CREATE INDEX idx_orders_customer_email ON orders (customer_email);
+CREATE INDEX idx_orders_customer_email_created_at ON orders (customer_email, created_at DESC, id DESC);
+CREATE INDEX idx_orders_created_at ON orders (created_at);
+CREATE INDEX idx_orders_status_created_at ON orders (status, created_at);
+CREATE INDEX idx_orders_status_payment_id ON orders (status, payment_method, id);
+CREATE INDEX idx_order_items_order_id ON order_items (order_id);
+CREATE INDEX idx_order_items_product_code ON order_items (product_code);
+
+-- =====================================================
+-- Particiones mensuales: desde la orden más antigua hasta 3 meses adelante
+-- =====================================================
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE;
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(created_at), now()))::date INTO month_start FROM orders_legacy;
+    last_month := (date_trunc('month', now()) + interval '3 months')::date;
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE orders_p%s PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month_start, 'YYYYMM'), month_start, (month_start + interval '1 month')::date);
+        EXECUTE format('CREATE TABLE order_items_p%s PARTITION OF order_items FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month_start, 'YYYYMM'), month_start, (month_start + interval '1 month')::date);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END
+$$;
+
+CREATE TABLE orders_default PARTITION OF orders DEFAULT;
+CREATE TABLE order_items_default PARTITION OF order_items DEFAULT;
+
+-- =====================================================
+-- Copia de datos
+-- =====================================================
+INSERT INTO orders (id, buy_order, status, amount, discount_amount, final_amount, authorization_code,
+                    card_number, payment_method, error_message, webpay_token, created_at, updated_at,
+                    transaction_date, customer_name, customer_email, customer_phone, customer_address,
+                    customer_comuna, customer_city)
+SELECT id, buy_order, status, amount, discount_amount, final_amount, authorization_code,
+       card_number, payment_method, error_message, webpay_token, created_at, updated_at,
+       transaction_date, customer_name, customer_email, customer_phone, customer_address,
+       customer_comuna, customer_city
+FROM orders_legacy;
+
+INSERT INTO order_items (id, order_id, order_created_at, product_code, product_name, unit_price,
+                         quantity, subtotal, size_option, custom_message)
+SELECT i.id, i.order_id, o.created_at, i.product_code, i.product_name, i.unit_price,
+       i.quantity, i.subtotal, i.size_option, i.custom_message
+FROM order_items_legacy i
+JOIN orders_legacy o ON o.id = i.order_id;
+
+DROP TABLE order_items_legacy;
+DROP TABLE orders_legacy;
+
+COMMIT;
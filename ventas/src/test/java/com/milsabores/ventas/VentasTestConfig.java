@@ -0,0 +1,15 @@
+package com.milsabores.ventas;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+
+/**
+ * Configuración raíz de los tests de ventas
+ * VentasApp declara un @ComponentScan explícito que ignora los filtros de los tests de slice
+ * (@DataJpaTest cargaría todos los componentes); los tests bajo com.milsabores.ventas encuentran
+ * esta clase primero y sólo registran lo que importan
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+public class VentasTestConfig {
+}
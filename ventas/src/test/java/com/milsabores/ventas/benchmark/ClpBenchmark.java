@@ -0,0 +1,104 @@
+package com.milsabores.ventas.benchmark;
+
+import com.milsabores.ventas.entity.Clp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Subtotales y suma de 1M items con Clp frente al BigDecimal anterior
+ * No corre con los tests; se ejecuta desde el IDE con main o con (java 21 en el PATH):
+ * mvn -pl ventas test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main ClpBenchmark"
+ *
+ * Referencia (JDK 21, 1 fork, ms/op): mapBigDecimal 22.5, mapClp 9.4,
+ * sumBigDecimal 7.8, sumClp 5.0, sumClpLong 1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClpBenchmark {
+
+    private static final int ITEMS = 1_000_000;
+
+    // Precios tal como llegan en el request
+    private BigDecimal[] prices;
+    private int[] quantities;
+
+    private BigDecimal[] decimalSubtotals;
+    private Clp[] clpSubtotals;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        prices = new BigDecimal[ITEMS];
+        quantities = new int[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            prices[i] = BigDecimal.valueOf(random.nextInt(1_000, 80_000));
+            quantities[i] = random.nextInt(1, 6);
+        }
+        decimalSubtotals = mapBigDecimal();
+        clpSubtotals = mapClp();
+    }
+
+    @Benchmark
+    public BigDecimal[] mapBigDecimal() {
+        BigDecimal[] subtotals = new BigDecimal[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            subtotals[i] = prices[i].multiply(BigDecimal.valueOf(quantities[i]));
+        }
+        return subtotals;
+    }
+
+    @Benchmark
+    public Clp[] mapClp() {
+        Clp[] subtotals = new Clp[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            subtotals[i] = Clp.of(prices[i]).times(quantities[i]);
+        }
+        return subtotals;
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        return Arrays.stream(decimalSubtotals).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public Clp sumClp() {
+        return Arrays.stream(clpSubtotals).reduce(Clp.ZERO, Clp::plus);
+    }
+
+    @Benchmark
+    public Clp sumClpLong() {
+        long total = 0;
+        for (Clp subtotal : clpSubtotals) {
+            total = Math.addExact(total, subtotal.value());
+        }
+        return Clp.of(total);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ClpBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
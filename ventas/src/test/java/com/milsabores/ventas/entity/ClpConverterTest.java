@@ -0,0 +1,37 @@
+package com.milsabores.ventas.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Conversión entre Clp y las columnas DECIMAL
+ */
+class ClpConverterTest {
+
+    private final ClpConverter converter = new ClpConverter();
+
+    @Test
+    void escribeElMontoSinEscala() {
+        assertThat(converter.convertToDatabaseColumn(Clp.of(45000))).isEqualByComparingTo("45000");
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+    }
+
+    @Test
+    void alLeerRedondeaAlPeso() {
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("45000.00"))).isEqualTo(Clp.of(45000));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("10.5"))).isEqualTo(Clp.of(11));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("10.4"))).isEqualTo(Clp.of(10));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("-10.5"))).isEqualTo(Clp.of(-11));
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+
+    @Test
+    void montoFueraDeRangoLanzaArithmeticException() {
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(new BigDecimal("1E+19")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+}
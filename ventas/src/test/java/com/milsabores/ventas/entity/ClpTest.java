@@ -0,0 +1,69 @@
+package com.milsabores.ventas.entity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Aritmética exacta de montos CLP y su forma en JSON
+ */
+class ClpTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void operacionesExactas() {
+        Clp price = Clp.of(45000);
+
+        assertThat(price.times(3)).isEqualTo(Clp.of(135000));
+        assertThat(price.plus(Clp.of(5000)).minus(Clp.of(50000))).isSameAs(Clp.ZERO);
+        assertThat(price.negate().signum()).isEqualTo(-1);
+    }
+
+    @Test
+    void desbordeLanzaArithmeticException() {
+        Clp max = Clp.of(Long.MAX_VALUE);
+        Clp min = Clp.of(Long.MIN_VALUE);
+
+        assertThatThrownBy(() -> max.plus(Clp.of(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> min.minus(Clp.of(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> max.times(2)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(min::negate).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void desdeDecimalRechazaFracciones() {
+        assertThat(Clp.of(new BigDecimal("100.00"))).isEqualTo(Clp.of(100));
+        assertThat(Clp.of(new BigDecimal("1E+3"))).isEqualTo(Clp.of(1000));
+        assertThat(Clp.of((BigDecimal) null)).isNull();
+
+        assertThatThrownBy(() -> Clp.of(new BigDecimal("1.5")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("1.5");
+        assertThatThrownBy(() -> Clp.of(new BigDecimal("9223372036854775808")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sumaConNulosCuentaComoCero() {
+        assertThat(Clp.sum(null, null)).isSameAs(Clp.ZERO);
+        assertThat(Clp.sum(Clp.of(10), null)).isEqualTo(Clp.of(10));
+        assertThat(Clp.sum(null, Clp.of(7))).isEqualTo(Clp.of(7));
+        assertThat(Clp.sum(Clp.of(10), Clp.of(7))).isEqualTo(Clp.of(17));
+    }
+
+    @Test
+    void jsonComoNumeroEntero() throws Exception {
+        assertThat(objectMapper.writeValueAsString(Clp.of(45000))).isEqualTo("45000");
+
+        assertThat(objectMapper.readValue("45000", Clp.class)).isEqualTo(Clp.of(45000));
+        // Respuestas guardadas antes del cambio de tipo traían el monto con escala
+        assertThat(objectMapper.readValue("45000.00", Clp.class)).isEqualTo(Clp.of(45000));
+        assertThatThrownBy(() -> objectMapper.readValue("45000.5", Clp.class))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+}
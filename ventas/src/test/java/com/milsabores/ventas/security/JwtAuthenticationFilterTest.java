@@ -0,0 +1,66 @@
+package com.milsabores.ventas.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Asignación del rol ADMIN según los correos configurados
+ */
+class JwtAuthenticationFilterTest {
+
+    private JwtService jwtService;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = mock(JwtService.class);
+        filter = new JwtAuthenticationFilter(jwtService, mock(TokenRevocationList.class));
+        ReflectionTestUtils.setField(filter, "adminEmails", List.of("admin@milsabores.cl"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void adminConfiguradoRecibeRol() throws Exception {
+        assertThat(authoritiesOf("Admin@MilSabores.cl")).containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void clienteNoRecibeRoles() throws Exception {
+        assertThat(authoritiesOf("cliente@duoc.cl")).isEmpty();
+    }
+
+    private List<String> authoritiesOf(String email) throws Exception {
+        Claims claims = new DefaultClaims(Map.of("sub", email, "jti", "jti-1"));
+        when(jwtService.isTokenValid("token")).thenReturn(true);
+        when(jwtService.extractClaims("token")).thenReturn(claims);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders/series/backfill");
+        request.addHeader("Authorization", "Bearer token");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+}
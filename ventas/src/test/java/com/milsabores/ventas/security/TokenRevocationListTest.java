@@ -0,0 +1,101 @@
+package com.milsabores.ventas.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lista de revocación alimentada desde tokens_revocados
+ * Una compactación concurrente con la lectura incremental no puede perder revocaciones
+ */
+@JdbcTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenRevocationListTest {
+
+    private static final int TOKENS = 2_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS tokens_revocados (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "jti VARCHAR(36) NOT NULL UNIQUE, expira_en TIMESTAMP NOT NULL, revocado_en TIMESTAMP)");
+        jdbcTemplate.update("DELETE FROM tokens_revocados");
+        revocationList = new TokenRevocationList(jdbcTemplate);
+        ReflectionTestUtils.setField(revocationList, "expectedSize", 64);
+    }
+
+    @Test
+    void leeRevocacionesIncrementalmente() {
+        revoke("jti-1", Instant.now().plus(15, ChronoUnit.MINUTES));
+        revocationList.refresh();
+        revoke("jti-2", Instant.now().plus(15, ChronoUnit.MINUTES));
+        revocationList.refresh();
+
+        assertThat(revocationList.isRevoked("jti-1")).isTrue();
+        assertThat(revocationList.isRevoked("jti-2")).isTrue();
+        assertThat(revocationList.isRevoked("jti-3")).isFalse();
+    }
+
+    @Test
+    void compactarSacaLosVencidos() throws InterruptedException {
+        revoke("jti-old", Instant.now().plusMillis(200));
+        revocationList.refresh();
+        assertThat(revocationList.isRevoked("jti-old")).isTrue();
+
+        Thread.sleep(300);
+        revocationList.compact();
+
+        assertThat(revocationList.isRevoked("jti-old")).isFalse();
+    }
+
+    @Test
+    void compactarEnParaleloNoPierdeRevocaciones() throws Exception {
+        revocationList.refresh();
+        Instant expiresAt = Instant.now().plus(15, ChronoUnit.MINUTES);
+        AtomicBoolean done = new AtomicBoolean();
+
+        CompletableFuture<Void> compactions = CompletableFuture.runAsync(() -> {
+            while (!done.get()) {
+                revocationList.compact();
+            }
+        });
+        try {
+            for (int n = 0; n < TOKENS; n++) {
+                revoke("jti-" + n, expiresAt);
+                revocationList.refresh();
+            }
+        } finally {
+            done.set(true);
+            compactions.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(IntStream.range(0, TOKENS).filter(n -> !revocationList.isRevoked("jti-" + n)).boxed().toList())
+                .isEmpty();
+    }
+
+    private void revoke(String jti, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO tokens_revocados (jti, expira_en, revocado_en) VALUES (?, ?, ?)",
+                jti, Timestamp.from(expiresAt), Timestamp.from(Instant.now()));
+    }
+}
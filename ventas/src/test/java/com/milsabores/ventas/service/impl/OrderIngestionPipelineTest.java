@@ -0,0 +1,123 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.CreateOrderRequestDTO;
+import com.milsabores.ventas.dto.CustomerInfoDTO;
+import com.milsabores.ventas.dto.OrderItemDTO;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.mapper.OrderMapper;
+import com.milsabores.ventas.repository.OrderRepository;
+import com.milsabores.ventas.service.IdempotencyService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Eventos publicados por la cola de ingesta
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({OrderIngestionPipeline.class, OrderMapper.class, OrderIngestionPipelineTest.RecordingListener.class})
+@TestPropertySource(properties = "ventas.ingestion.linger-ms=50")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderIngestionPipelineTest {
+
+    private static final int ORDERS = 30;
+
+    @Autowired
+    private OrderIngestionPipeline pipeline;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private RecordingListener listener;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        listener.events.clear();
+    }
+
+    @Test
+    void publicaUnEventoPorLote() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(ORDERS);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int n = 0; n < ORDERS; n++) {
+                CreateOrderRequestDTO request = request("ING-" + n);
+                calls.add(executor.submit(() -> pipeline.submit(request, null, null)));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(listener.events).allMatch(OrderStatusBatchChangedEvent.class::isInstance);
+        List<OrderStatusChangedEvent> changes = listener.events.stream()
+                .map(OrderStatusBatchChangedEvent.class::cast)
+                .flatMap(batch -> batch.changes().stream())
+                .toList();
+        assertThat(changes).hasSize(ORDERS)
+                .allSatisfy(change -> assertThat(change.isCreation()).isTrue());
+        // Con 50 ms de espera las 30 solicitudes concurrentes comparten pocos lotes
+        assertThat(listener.events.size()).isLessThan(ORDERS);
+    }
+
+    static CreateOrderRequestDTO request(String buyOrder) {
+        return CreateOrderRequestDTO.builder()
+                .buyOrder(buyOrder)
+                .amount(new BigDecimal("20000"))
+                .discountAmount(BigDecimal.ZERO)
+                .paymentMethod("WEBPAY")
+                .customer(CustomerInfoDTO.builder()
+                        .nombre("Ana Pérez").email("cliente@duoc.cl").telefono("+56911111111")
+                        .direccion("Av. Siempre Viva 123").comuna("Providencia").ciudad("Santiago")
+                        .build())
+                .items(List.of(OrderItemDTO.builder()
+                        .code("TC001").name("Torta Cuadrada de Chocolate")
+                        .priceCLP(new BigDecimal("10000")).qty(2)
+                        .build()))
+                .build();
+    }
+
+    @TestConfiguration
+    static class RecordingListener {
+
+        final List<Object> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        public void onStatusChanged(OrderStatusChangedEvent event) {
+            events.add(event);
+        }
+
+        @EventListener
+        public void onBatchStatusChanged(OrderStatusBatchChangedEvent event) {
+            events.add(event);
+        }
+    }
+}
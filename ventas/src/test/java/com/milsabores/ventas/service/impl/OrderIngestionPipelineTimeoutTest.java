@@ -0,0 +1,73 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.exception.OrderConfirmationPendingException;
+import com.milsabores.ventas.mapper.OrderMapper;
+import com.milsabores.ventas.repository.OrderRepository;
+import com.milsabores.ventas.service.IdempotencyService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Lote que se confirma después de agotado el tiempo de espera del cliente
+ * La orden no se informa como fallida: termina creándose y se puede consultar por su buy order
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({OrderIngestionPipeline.class, OrderMapper.class, OrderIngestionPipelineTimeoutTest.SlowBatchListener.class})
+@TestPropertySource(properties = "ventas.ingestion.submit-timeout-ms=100")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderIngestionPipelineTimeoutTest {
+
+    @Autowired
+    private OrderIngestionPipeline pipeline;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void tiempoAgotadoInformaLaOrdenComoPendienteDeConfirmar() throws Exception {
+        assertThatThrownBy(() -> pipeline.submit(OrderIngestionPipelineTest.request("SLOW-1"), null, null))
+                .isInstanceOf(OrderConfirmationPendingException.class)
+                .extracting("buyOrder").isEqualTo("SLOW-1");
+
+        // El lote sigue en curso y se confirma después de la respuesta al cliente
+        for (int n = 0; n < 50 && orderRepository.findByBuyOrder("SLOW-1").isEmpty(); n++) {
+            Thread.sleep(50);
+        }
+        assertThat(orderRepository.findByBuyOrder("SLOW-1")).isPresent();
+    }
+
+    @TestConfiguration
+    static class SlowBatchListener {
+
+        /**
+         * Corre dentro de la transacción del lote y retrasa su commit
+         */
+        @EventListener
+        public void onBatchStatusChanged(OrderStatusBatchChangedEvent event) throws InterruptedException {
+            Thread.sleep(500);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.CreateOrderRequestDTO;
+import com.milsabores.ventas.dto.OrderItemDTO;
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.exception.CartPriceMismatchException;
+import com.milsabores.ventas.exception.CatalogUnavailableException;
+import com.milsabores.ventas.exception.InvalidOrderOperationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validación del carrito contra los precios del catálogo
+ */
+class OrderPricingServiceImplTest {
+
+    private final ProductCatalogCache catalogCache = mock(ProductCatalogCache.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OrderPricingServiceImpl pricingService;
+
+    @BeforeEach
+    void setUp() {
+        pricingService = new OrderPricingServiceImpl(catalogCache, meterRegistry, true);
+        when(catalogCache.products()).thenReturn(Map.of(
+                "TC001", new ProductCatalogCache.CatalogProduct("TC001", "Torta Cuadrada de Chocolate", Clp.of(45000)),
+                "PI001", new ProductCatalogCache.CatalogProduct("PI001", "Pie de Limón", Clp.of(12000))));
+    }
+
+    @Test
+    void carritoValidoTomaLosNombresDelCatalogo() {
+        CreateOrderRequestDTO request = request(69000, null, item("TC001", 45000, 1), item("PI001", 12000, 2));
+
+        pricingService.priceOrder(request);
+
+        assertThat(request.getItems()).extracting(OrderItemDTO::getName)
+                .containsExactly("Torta Cuadrada de Chocolate", "Pie de Limón");
+        assertThat(meterRegistry.find("ventas.pricing.rejected").counters()).isEmpty();
+    }
+
+    @Test
+    void productoDesconocido() {
+        assertThatThrownBy(() -> pricingService.priceOrder(request(1000, null, item("XX999", 1000, 1))))
+                .isInstanceOf(InvalidOrderOperationException.class)
+                .hasMessageContaining("XX999");
+        assertThat(rejected("unknown_product")).isEqualTo(1);
+    }
+
+    @Test
+    void precioDistintoAlDelCatalogo() {
+        assertThatThrownBy(() -> pricingService.priceOrder(request(40000, null, item("TC001", 40000, 1))))
+                .isInstanceOf(CartPriceMismatchException.class)
+                .hasMessageContaining("45000");
+        assertThat(rejected("price_mismatch")).isEqualTo(1);
+    }
+
+    @Test
+    void montoQueNoCoincideConLosItems() {
+        assertThatThrownBy(() -> pricingService.priceOrder(request(45000, null, item("TC001", 45000, 2))))
+                .isInstanceOf(InvalidOrderOperationException.class)
+                .hasMessageContaining("90000");
+        assertThat(rejected("amount_mismatch")).isEqualTo(1);
+    }
+
+    @Test
+    void rechazaDescuentosDelCliente() {
+        assertThatThrownBy(() -> pricingService.priceOrder(request(45000, 45000, item("TC001", 45000, 1))))
+                .isInstanceOf(InvalidOrderOperationException.class);
+        assertThatThrownBy(() -> pricingService.priceOrder(request(45000, 1, item("TC001", 45000, 1))))
+                .isInstanceOf(InvalidOrderOperationException.class);
+        assertThat(rejected("discount_not_allowed")).isEqualTo(2);
+
+        // Un descuento en cero es lo mismo que no enviarlo
+        pricingService.priceOrder(request(45000, 0, item("TC001", 45000, 1)));
+    }
+
+    @Test
+    void catalogoNoCargado() {
+        when(catalogCache.products()).thenReturn(null);
+
+        assertThatThrownBy(() -> pricingService.priceOrder(request(45000, null, item("TC001", 45000, 1))))
+                .isInstanceOf(CatalogUnavailableException.class);
+        assertThat(rejected("catalog_unavailable")).isEqualTo(1);
+    }
+
+    @Test
+    void desactivadoNoConsultaElCatalogo() {
+        ProductCatalogCache unused = mock(ProductCatalogCache.class);
+
+        new OrderPricingServiceImpl(unused, meterRegistry, false)
+                .priceOrder(request(1, null, item("XX999", 1, 1)));
+
+        verifyNoInteractions(unused);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.counter("ventas.pricing.rejected", "reason", reason).count();
+    }
+
+    private static CreateOrderRequestDTO request(long amount, Integer discount, OrderItemDTO... items) {
+        return CreateOrderRequestDTO.builder()
+                .buyOrder("BO-PRICE-1")
+                .amount(BigDecimal.valueOf(amount))
+                .discountAmount(discount != null ? BigDecimal.valueOf(discount) : null)
+                .items(List.of(items))
+                .build();
+    }
+
+    private static OrderItemDTO item(String code, long price, int qty) {
+        return OrderItemDTO.builder()
+                .code(code)
+                .name("Nombre del carrito")
+                .priceCLP(BigDecimal.valueOf(price))
+                .qty(qty)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.BulkOrderStatusResultDTO;
+import com.milsabores.ventas.dto.BulkUpdateOrderStatusDTO;
+import com.milsabores.ventas.dto.OrderStatusUpdateResultDTO;
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.CustomerInfo;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.exception.InvalidOrderOperationException;
+import com.milsabores.ventas.mapper.OrderMapper;
+import com.milsabores.ventas.repository.OrderRepository;
+import com.milsabores.ventas.service.IdempotencyService;
+import com.milsabores.ventas.service.OrderPricingService;
+import com.milsabores.ventas.service.OrderStatsService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Estados de destino de la actualización masiva
+ * Sólo los estados de cocina: aprobar, rechazar o cancelar requiere los campos que fija el flujo individual
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({OrderServiceImpl.class, OrderMapper.class})
+class OrderServiceImplBulkStatusTest {
+
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private OrderStatsService orderStatsService;
+
+    @MockitoBean
+    private OrderIngestionPipeline orderIngestionPipeline;
+
+    @MockitoBean
+    private CustomerHistoryCache customerHistoryCache;
+
+    @MockitoBean
+    private OrderPricingService orderPricingService;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    @ParameterizedTest
+    @EnumSource(value = OrderStatus.class, names = {"PENDING", "APPROVED", "REJECTED", "CANCELLED"})
+    void rechazaEstadosFueraDeCocina(OrderStatus target) {
+        Order order = orderRepository.saveAndFlush(order("BULK-" + target, OrderStatus.PENDING));
+
+        assertThatThrownBy(() -> orderService.bulkUpdateOrderStatus(request(target, order.getBuyOrder())))
+                .isInstanceOf(InvalidOrderOperationException.class)
+                .hasMessageContaining(target.name());
+
+        entityManager.clear();
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus()).isEqualTo(OrderStatus.PENDING);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = OrderStatus.class, names = {"PROCESSING", "READY", "DELIVERED"})
+    void aceptaEstadosDeCocina(OrderStatus target) {
+        OrderStatus from = switch (target) {
+            case PROCESSING -> OrderStatus.APPROVED;
+            case READY -> OrderStatus.PROCESSING;
+            default -> OrderStatus.READY;
+        };
+        Order order = orderRepository.saveAndFlush(order("BULK-" + target, from));
+
+        BulkOrderStatusResultDTO result = orderService.bulkUpdateOrderStatus(request(target, order.getBuyOrder()));
+
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getResults()).extracting(OrderStatusUpdateResultDTO::getOutcome)
+                .containsExactly(OrderStatusUpdateResultDTO.Outcome.UPDATED);
+    }
+
+    private static BulkUpdateOrderStatusDTO request(OrderStatus target, String buyOrder) {
+        return BulkUpdateOrderStatusDTO.builder()
+                .buyOrders(List.of(buyOrder))
+                .status(target.name())
+                .build();
+    }
+
+    private static Order order(String buyOrder, OrderStatus status) {
+        return Order.builder()
+                .buyOrder(buyOrder)
+                .status(status)
+                .paymentMethod(PaymentMethod.WEBPAY)
+                .amount(Clp.of(20000))
+                .discountAmount(Clp.ZERO)
+                .finalAmount(Clp.of(20000))
+                .customerInfo(CustomerInfo.builder()
+                        .nombre("Ana Pérez").email("cliente@duoc.cl").telefono("+56911111111")
+                        .direccion("Av. Siempre Viva 123").comuna("Providencia").ciudad("Santiago")
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,182 @@
+package com.milsabores.ventas.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milsabores.ventas.dto.CreateOrderRequestDTO;
+import com.milsabores.ventas.dto.CustomerInfoDTO;
+import com.milsabores.ventas.dto.OrderItemDTO;
+import com.milsabores.ventas.dto.OrderResponseDTO;
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.IdempotencyRecord;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.exception.CartPriceMismatchException;
+import com.milsabores.ventas.exception.IdempotencyKeyMismatchException;
+import com.milsabores.ventas.mapper.OrderMapper;
+import com.milsabores.ventas.repository.IdempotencyRecordRepository;
+import com.milsabores.ventas.repository.OrderRepository;
+import com.milsabores.ventas.service.OrderStatsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Creación de órdenes con Idempotency-Key frente a cambios del catálogo
+ * La clave se resuelve antes de tarificar: un reintento de una orden confirmada
+ * recibe la respuesta original aunque el precio haya cambiado entre medio
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+class OrderServiceImplIdempotencyTest {
+
+    private static final String CODE = "TC001";
+    private static final String USER = "cliente@duoc.cl";
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ProductCatalogCache catalogCache = mock(ProductCatalogCache.class);
+    private final OrderIngestionPipeline pipeline = mock(OrderIngestionPipeline.class);
+
+    private IdempotencyServiceImpl idempotencyService;
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository, objectMapper, 24, 100);
+        OrderPricingServiceImpl pricingService = new OrderPricingServiceImpl(catalogCache, new SimpleMeterRegistry(), true);
+        orderService = new OrderServiceImpl(orderRepository, new OrderMapper(), mock(OrderStatsService.class),
+                mock(ApplicationEventPublisher.class), pipeline, mock(CustomerHistoryCache.class),
+                pricingService, idempotencyService);
+    }
+
+    @Test
+    void reintentoTrasCambioDePrecioRepiteLaRespuesta() throws Exception {
+        CreateOrderRequestDTO original = request(40000);
+        storeCompleted("k-1", original, LocalDateTime.now().plusHours(1));
+        // El precio subió después de confirmar la orden original
+        catalog(45000);
+
+        OrderResponseDTO response = orderService.createOrder(request(40000), "k-1", USER);
+
+        assertThat(response.getId()).isEqualTo(7L);
+        assertThat(response.getFinalAmount()).isEqualTo(Clp.of(40000));
+        verifyNoInteractions(catalogCache, pipeline);
+    }
+
+    @Test
+    void mismaClaveConOtroPayloadEsRechazadaSinTarificar() throws Exception {
+        storeCompleted("k-2", request(40000), LocalDateTime.now().plusHours(1));
+
+        assertThatThrownBy(() -> orderService.createOrder(request(45000), "k-2", USER))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+        verifyNoInteractions(catalogCache, pipeline);
+    }
+
+    @Test
+    void claveNuevaSeTarificaYSeEncolaConElHashDelPayloadOriginal() {
+        catalog(40000);
+        CreateOrderRequestDTO request = request(40000);
+        String rawHash = idempotencyService.hashRequest(request);
+        OrderResponseDTO created = OrderResponseDTO.builder().id(8L).build();
+        when(pipeline.submit(same(request), eq(idempotencyService.scopeKey(USER, "k-3")), anyString())).thenReturn(created);
+
+        assertThat(orderService.createOrder(request, "k-3", USER)).isSameAs(created);
+
+        // La tarificación reescribe el nombre; el hash guardado debe ser el del payload enviado
+        assertThat(request.getItems().get(0).getName()).isEqualTo("Torta Cuadrada de Chocolate");
+        verify(pipeline).submit(request, idempotencyService.scopeKey(USER, "k-3"), rawHash);
+    }
+
+    @Test
+    void claveVencidaSeTrataComoNueva() throws Exception {
+        storeCompleted("k-4", request(40000), LocalDateTime.now().minusMinutes(1));
+        catalog(45000);
+
+        assertThatThrownBy(() -> orderService.createOrder(request(40000), "k-4", USER))
+                .isInstanceOf(CartPriceMismatchException.class);
+        verify(pipeline, never()).submit(any(), any(), any());
+    }
+
+    @Test
+    void laMismaClaveDeOtroUsuarioNoRepiteSuOrden() throws Exception {
+        storeCompleted("k-5", request(40000), LocalDateTime.now().plusHours(1));
+        catalog(40000);
+        CreateOrderRequestDTO request = request(40000);
+        OrderResponseDTO created = OrderResponseDTO.builder().id(9L).build();
+        when(pipeline.submit(same(request), anyString(), anyString())).thenReturn(created);
+
+        assertThat(orderService.createOrder(request, "k-5", "otro@duoc.cl")).isSameAs(created);
+        verify(pipeline).submit(same(request), eq(idempotencyService.scopeKey("otro@duoc.cl", "k-5")), anyString());
+    }
+
+    private void catalog(long price) {
+        when(catalogCache.products()).thenReturn(Map.of(CODE,
+                new ProductCatalogCache.CatalogProduct(CODE, "Torta Cuadrada de Chocolate", Clp.of(price))));
+    }
+
+    private void storeCompleted(String key, CreateOrderRequestDTO request, LocalDateTime expiresAt) throws Exception {
+        OrderResponseDTO response = OrderResponseDTO.builder()
+                .id(7L)
+                .buyOrder(request.getBuyOrder())
+                .status(OrderStatus.PENDING)
+                .amount(Clp.of(request.getAmount()))
+                .discountAmount(Clp.ZERO)
+                .finalAmount(Clp.of(request.getAmount()))
+                .build();
+        idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                .key(idempotencyService.scopeKey(USER, key))
+                .requestHash(idempotencyService.hashRequest(request))
+                .orderId(7L)
+                .responseBody(objectMapper.writeValueAsString(response))
+                .createdAt(LocalDateTime.now().minusHours(1))
+                .expiresAt(expiresAt)
+                .build());
+    }
+
+    private static CreateOrderRequestDTO request(long price) {
+        return CreateOrderRequestDTO.builder()
+                .buyOrder("BO-IDEM-1")
+                .amount(BigDecimal.valueOf(price))
+                .paymentMethod("WEBPAY")
+                .customer(CustomerInfoDTO.builder()
+                        .nombre("Cliente")
+                        .email("cliente@duoc.cl")
+                        .telefono("+56911111111")
+                        .direccion("Calle 1")
+                        .comuna("Santiago")
+                        .ciudad("Santiago")
+                        .build())
+                .items(List.of(OrderItemDTO.builder()
+                        .code(CODE)
+                        .name("Torta de chocolate")
+                        .priceCLP(BigDecimal.valueOf(price))
+                        .qty(1)
+                        .build()))
+                .build();
+    }
+}
@@ -0,0 +1,179 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.OrderResponseDTO;
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.CustomerInfo;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderItem;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.mapper.OrderMapper;
+import com.milsabores.ventas.repository.OrderRepository;
+import com.milsabores.ventas.service.IdempotencyService;
+import com.milsabores.ventas.service.OrderPricingService;
+import com.milsabores.ventas.service.OrderStatsService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cantidad de consultas de los listados de órdenes, medida con las estadísticas de Hibernate
+ * Cada listado debe costar lo mismo con 5 o con 40 órdenes: sin una consulta por orden para sus items
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({OrderServiceImpl.class, OrderMapper.class})
+class OrderServiceImplQueryCountTest {
+
+    private static final String EMAIL = "cliente@duoc.cl";
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private OrderStatsService orderStatsService;
+
+    @MockitoBean
+    private OrderIngestionPipeline orderIngestionPipeline;
+
+    @MockitoBean
+    private CustomerHistoryCache customerHistoryCache;
+
+    @MockitoBean
+    private OrderPricingService orderPricingService;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 40})
+    void paginaDeTodasLasOrdenes(int orders) {
+        createOrders(orders);
+
+        Page<OrderResponseDTO> page = measure(() -> orderService.getAllOrders(
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"))));
+
+        assertThat(page.getContent()).hasSize(Math.min(orders, 20))
+                .allSatisfy(o -> assertThat(o.getItems()).hasSize(ITEMS_PER_ORDER));
+        // ids de la página + IN con items (+ COUNT sólo si la página viene llena)
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(orders > 20 ? 3 : 2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 40})
+    void paginaPorEstado(int orders) {
+        createOrders(orders);
+
+        Page<OrderResponseDTO> page = measure(() -> orderService.getOrdersByStatus(
+                OrderStatus.APPROVED, PageRequest.of(0, 20)));
+
+        assertThat(page.getContent()).isNotEmpty()
+                .allSatisfy(o -> assertThat(o.getItems()).hasSize(ITEMS_PER_ORDER));
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 40})
+    void listasSinPaginar(int orders) {
+        createOrders(orders);
+
+        assertThat(measure(() -> orderService.getOrdersByStatus(OrderStatus.APPROVED))).isNotEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        assertThat(measure(() -> orderService.getOrdersByCustomerEmail(EMAIL))).hasSize(orders);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        assertThat(measure(() -> orderService.getOrdersByDateRange(
+                LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1)))).hasSize(orders);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 40})
+    void ordenesRecientes(int orders) {
+        createOrders(orders);
+
+        List<OrderResponseDTO> recent = measure(() -> orderService.getRecentOrders());
+
+        assertThat(recent).hasSize(Math.min(orders, 10))
+                .allSatisfy(o -> assertThat(o.getItems()).hasSize(ITEMS_PER_ORDER));
+        // ids recientes + IN con items
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    /**
+     * Ejecuta la consulta con el contexto de persistencia vacío y las estadísticas en cero
+     */
+    private <T> T measure(Supplier<T> call) {
+        entityManager.clear();
+        statistics.clear();
+        return call.get();
+    }
+
+    private void createOrders(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            Order order = Order.builder()
+                    .buyOrder("ORD-" + count + "-" + n)
+                    .status(n % 2 == 0 ? OrderStatus.APPROVED : OrderStatus.PENDING)
+                    .paymentMethod(PaymentMethod.WEBPAY)
+                    .amount(Clp.of(30000))
+                    .discountAmount(Clp.ZERO)
+                    .finalAmount(Clp.of(30000))
+                    .customerInfo(CustomerInfo.builder()
+                            .nombre("Ana Pérez").email(EMAIL).telefono("+56911111111")
+                            .direccion("Av. Siempre Viva 123").comuna("Providencia").ciudad("Santiago")
+                            .build())
+                    .build();
+            for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                order.addItem(OrderItem.builder()
+                        .productCode("TC00" + i)
+                        .productName("Torta " + i)
+                        .unitPrice(Clp.of(10000))
+                        .quantity(1)
+                        .subtotal(Clp.of(10000))
+                        .build());
+            }
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,81 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.OrderStatsDTO;
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.CustomerInfo;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.OrderStatusArchive;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reconciliación de estadísticas con meses archivados
+ * Desenganchar una partición no debe bajar los totales
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import(OrderStatsServiceImpl.class)
+class OrderStatsServiceImplReconcileTest {
+
+    @Autowired
+    private OrderStatsServiceImpl statsService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void reconciliacionSumaLosTotalesArchivados() {
+        orderRepository.saveAndFlush(order("LIVE-1", OrderStatus.APPROVED, 20000));
+        entityManager.persist(new OrderStatusArchive(OrderStatus.APPROVED, 3, new BigDecimal("90000.00")));
+        entityManager.persist(new OrderStatusArchive(OrderStatus.CANCELLED, 1, new BigDecimal("5000.00")));
+        entityManager.flush();
+
+        statsService.reconcile();
+
+        OrderStatsDTO stats = statsService.getStats();
+        assertThat(stats.getTotalOrders()).isEqualTo(5);
+        assertThat(stats.getApprovedOrders()).isEqualTo(4);
+        assertThat(stats.getCancelledOrders()).isEqualTo(1);
+        assertThat(stats.getTotalRevenue()).isEqualByComparingTo("110000");
+    }
+
+    @Test
+    void sinMesesArchivadosCuentaSoloLasOrdenesVivas() {
+        orderRepository.saveAndFlush(order("LIVE-2", OrderStatus.PENDING, 15000));
+
+        statsService.reconcile();
+
+        OrderStatsDTO stats = statsService.getStats();
+        assertThat(stats.getTotalOrders()).isEqualTo(1);
+        assertThat(stats.getPendingOrders()).isEqualTo(1);
+    }
+
+    private static Order order(String buyOrder, OrderStatus status, long amount) {
+        return Order.builder()
+                .buyOrder(buyOrder)
+                .status(status)
+                .paymentMethod(PaymentMethod.WEBPAY)
+                .amount(Clp.of(amount))
+                .discountAmount(Clp.ZERO)
+                .finalAmount(Clp.of(amount))
+                .customerInfo(CustomerInfo.builder()
+                        .nombre("Ana Pérez").email("cliente@duoc.cl").telefono("+56911111111")
+                        .direccion("Av. Siempre Viva 123").comuna("Providencia").ciudad("Santiago")
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.repository.OrderRepository;
+import com.milsabores.ventas.repository.OrderStatusStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Orden en que se actualizan las filas de order_status_stats
+ * Una transición suelta y un lote deben tocar los estados en el mismo orden para no bloquearse
+ */
+class OrderStatsServiceImplTest {
+
+    private final OrderStatusStatsRepository statsRepository = mock(OrderStatusStatsRepository.class);
+    private final OrderStatsServiceImpl statsService = new OrderStatsServiceImpl(statsRepository, mock(OrderRepository.class));
+
+    @Test
+    void transicionContraElOrdenOrdinalActualizaPrimeroElMenor() {
+        statsService.recordTransition(OrderStatus.PROCESSING, OrderStatus.CANCELLED, Clp.of(20000));
+
+        assertThat(incremented(2)).containsExactly(OrderStatus.CANCELLED, OrderStatus.PROCESSING);
+    }
+
+    @Test
+    void transicionEnOrdenOrdinal() {
+        statsService.recordTransition(OrderStatus.PENDING, OrderStatus.APPROVED, Clp.of(20000));
+
+        assertThat(incremented(2)).containsExactly(OrderStatus.PENDING, OrderStatus.APPROVED);
+    }
+
+    @Test
+    void loteYTransicionSueltaUsanElMismoOrden() {
+        Order order = Order.builder().finalAmount(Clp.of(20000)).build();
+        statsService.onBatchStatusChanged(new OrderStatusBatchChangedEvent(List.of(
+                new OrderStatusChangedEvent(order, OrderStatus.PROCESSING, OrderStatus.CANCELLED))));
+
+        assertThat(incremented(2)).containsExactly(OrderStatus.CANCELLED, OrderStatus.PROCESSING);
+    }
+
+    private List<OrderStatus> incremented(int times) {
+        ArgumentCaptor<OrderStatus> statuses = ArgumentCaptor.forClass(OrderStatus.class);
+        verify(statsRepository, times(times)).increment(statuses.capture(), anyLong(), any(BigDecimal.class));
+        return statuses.getAllValues();
+    }
+}
@@ -0,0 +1,202 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.CustomerInfo;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Arnés de concurrencia de la máquina de estados: muchos hilos compiten por transicionar la
+ * misma orden. Cada transición aplicada debe sumar exactamente una versión y un evento
+ * (sin actualizaciones perdidas) y la validación de la tabla no debe agregar consultas
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({OrderTransitionExecutor.class, OrderTransitionExecutorConcurrencyTest.RecordingListener.class})
+@TestPropertySource(properties = {
+        "ventas.orders.transition-max-attempts=50",
+        "ventas.orders.transition-backoff-ms=2"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderTransitionExecutorConcurrencyTest {
+
+    private static final String BUY_ORDER = "RACE-1";
+    private static final int THREADS = 16;
+
+    private static final List<OrderStatus> CHAIN = List.of(
+            OrderStatus.APPROVED, OrderStatus.PROCESSING, OrderStatus.READY, OrderStatus.DELIVERED);
+
+    @Autowired
+    private OrderTransitionExecutor executor;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private RecordingListener listener;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        orderRepository.save(pendingOrder());
+        listener.events.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void soloUnResultadoDePagoGanaLaCarrera() throws Exception {
+        // Ambos sólo son válidos desde PENDING: tras el primero, el otro queda NOT_ALLOWED
+        OrderStatus[] targets = {OrderStatus.APPROVED, OrderStatus.REJECTED};
+
+        List<OrderTransitionExecutor.Outcome> outcomes = race(thread -> {
+            OrderStatus target = targets[thread % targets.length];
+            return List.of(executor.transition(BUY_ORDER, target,
+                    order -> order.setErrorMessage("hilo " + thread + " -> " + target)));
+        });
+
+        assertThat(outcomes).filteredOn(o -> o == OrderTransitionExecutor.Outcome.APPLIED).hasSize(1);
+        assertThat(outcomes).doesNotContain(OrderTransitionExecutor.Outcome.NOT_FOUND);
+
+        Order order = orderRepository.findByBuyOrder(BUY_ORDER).orElseThrow();
+        assertThat(order.getVersion()).isEqualTo(1);
+        assertThat(listener.events).singleElement().satisfies(event -> {
+            assertThat(event.previousStatus()).isEqualTo(OrderStatus.PENDING);
+            assertThat(event.newStatus()).isEqualTo(order.getStatus());
+        });
+        // Los campos que quedan son los del ganador, no los de un perdedor que sobrescribió después
+        assertThat(order.getErrorMessage()).endsWith("-> " + order.getStatus());
+    }
+
+    @Test
+    void laCadenaCompletaSeAplicaUnaVezPorPaso() throws Exception {
+        List<OrderTransitionExecutor.Outcome> outcomes = race(thread -> {
+            List<OrderTransitionExecutor.Outcome> mine = new ArrayList<>();
+            for (OrderStatus target : CHAIN) {
+                mine.add(executor.transition(BUY_ORDER, target, order -> { }));
+            }
+            return mine;
+        });
+
+        assertThat(outcomes).filteredOn(o -> o == OrderTransitionExecutor.Outcome.APPLIED).hasSize(CHAIN.size());
+
+        Order order = orderRepository.findByBuyOrder(BUY_ORDER).orElseThrow();
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.DELIVERED);
+        assertThat(order.getVersion()).isEqualTo(CHAIN.size());
+        assertThat(listener.events)
+                .extracting(OrderStatusChangedEvent::newStatus)
+                .containsExactlyElementsOf(CHAIN);
+    }
+
+    @Test
+    void validarLaTransicionNoAgregaConsultas() {
+        statistics.clear();
+        assertThat(executor.transition(BUY_ORDER, OrderStatus.APPROVED, order -> { }))
+                .isEqualTo(OrderTransitionExecutor.Outcome.APPLIED);
+        // SELECT de la orden + UPDATE con versión
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        statistics.clear();
+        assertThat(executor.transition(BUY_ORDER, OrderStatus.PENDING, order -> { }))
+                .isEqualTo(OrderTransitionExecutor.Outcome.NOT_ALLOWED);
+        // Rechazada por la tabla en memoria: sólo el SELECT que ya hacía falta para leer el estado
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    /**
+     * Lanza los hilos a la vez y junta los resultados de todos
+     */
+    private List<OrderTransitionExecutor.Outcome> race(ThreadWork work) throws Exception {
+        statistics.clear();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<OrderTransitionExecutor.Outcome>>> futures = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                Callable<List<OrderTransitionExecutor.Outcome>> task = () -> {
+                    start.await();
+                    return work.run(thread);
+                };
+                futures.add(pool.submit(task));
+            }
+            start.countDown();
+            List<OrderTransitionExecutor.Outcome> outcomes = new ArrayList<>();
+            for (Future<List<OrderTransitionExecutor.Outcome>> future : futures) {
+                outcomes.addAll(future.get(30, TimeUnit.SECONDS));
+            }
+            return outcomes;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadWork {
+        List<OrderTransitionExecutor.Outcome> run(int thread);
+    }
+
+    private static Order pendingOrder() {
+        return Order.builder()
+                .buyOrder(BUY_ORDER)
+                .status(OrderStatus.PENDING)
+                .paymentMethod(PaymentMethod.WEBPAY)
+                .amount(Clp.of(20000))
+                .discountAmount(Clp.ZERO)
+                .finalAmount(Clp.of(20000))
+                .customerInfo(CustomerInfo.builder()
+                        .nombre("Ana Pérez").email("cliente@duoc.cl").telefono("+56911111111")
+                        .direccion("Av. Siempre Viva 123").comuna("Providencia").ciudad("Santiago")
+                        .build())
+                .build();
+    }
+
+    @TestConfiguration
+    static class RecordingListener {
+
+        final List<OrderStatusChangedEvent> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        public void onStatusChanged(OrderStatusChangedEvent event) {
+            events.add(event);
+        }
+    }
+}
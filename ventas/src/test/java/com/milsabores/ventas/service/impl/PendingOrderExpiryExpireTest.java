@@ -0,0 +1,88 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.CustomerInfo;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vencimiento contra la base: sólo se cancelan las órdenes WebPay pendientes sin token
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PendingOrderExpiryExpireTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void noCancelaOrdenesConTokenWebpay() throws Exception {
+        orderRepository.save(order("EXP-SIN-TOKEN", PaymentMethod.WEBPAY, null));
+        orderRepository.save(order("EXP-CON-TOKEN-PREVIO", PaymentMethod.WEBPAY, "tok-previo"));
+        orderRepository.save(order("EXP-TRANSFERENCIA", PaymentMethod.TRANSFERENCIA, null));
+        Order tokenLater = orderRepository.save(order("EXP-CON-TOKEN-DESPUES", PaymentMethod.WEBPAY, null));
+
+        // Plazo 0 y ticks de 1 ms: todo lo programado vence de inmediato
+        PendingOrderExpiryServiceImpl service = new PendingOrderExpiryServiceImpl(orderRepository, eventPublisher,
+                transactionManager, new SimpleMeterRegistry(), 0, 1, 60_000, 500);
+        assertThat(service.loadPendingOrders()).isEqualTo(2);
+
+        // Obtiene su token después de programado: el vencimiento ya no debe tocarla
+        tokenLater.setWebpayToken("tok-despues");
+        orderRepository.save(tokenLater);
+
+        Thread.sleep(20);
+        assertThat(service.expireDueOrders()).isEqualTo(1);
+
+        assertThat(status("EXP-SIN-TOKEN")).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(status("EXP-CON-TOKEN-PREVIO")).isEqualTo(OrderStatus.PENDING);
+        assertThat(status("EXP-CON-TOKEN-DESPUES")).isEqualTo(OrderStatus.PENDING);
+        assertThat(status("EXP-TRANSFERENCIA")).isEqualTo(OrderStatus.PENDING);
+    }
+
+    private OrderStatus status(String buyOrder) {
+        return orderRepository.findByBuyOrder(buyOrder).orElseThrow().getStatus();
+    }
+
+    private static Order order(String buyOrder, PaymentMethod method, String token) {
+        return Order.builder()
+                .buyOrder(buyOrder)
+                .status(OrderStatus.PENDING)
+                .paymentMethod(method)
+                .webpayToken(token)
+                .amount(Clp.of(20000))
+                .discountAmount(Clp.ZERO)
+                .finalAmount(Clp.of(20000))
+                .customerInfo(CustomerInfo.builder()
+                        .nombre("Ana Pérez").email("cliente@duoc.cl").telefono("+56911111111")
+                        .direccion("Av. Siempre Viva 123").comuna("Providencia").ciudad("Santiago")
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Programación de vencimientos a partir de los eventos de creación
+ */
+class PendingOrderExpiryServiceImplTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PendingOrderExpiryServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new PendingOrderExpiryServiceImpl(mock(OrderRepository.class), mock(ApplicationEventPublisher.class),
+                mock(PlatformTransactionManager.class), meterRegistry, 90, 1000, 60000, 500);
+    }
+
+    @Test
+    void programaLasOrdenesWebpayCreadasEnLote() {
+        service.onBatchStatusChanged(new OrderStatusBatchChangedEvent(List.of(
+                created(1L, PaymentMethod.WEBPAY),
+                created(2L, PaymentMethod.WEBPAY),
+                created(3L, PaymentMethod.TRANSFERENCIA),
+                new OrderStatusChangedEvent(order(4L, PaymentMethod.WEBPAY), OrderStatus.PENDING, OrderStatus.CANCELLED))));
+
+        assertThat(scheduled()).isEqualTo(2);
+    }
+
+    @Test
+    void programaUnaOrdenWebpayCreadaSola() {
+        service.onStatusChanged(created(1L, PaymentMethod.WEBPAY));
+
+        assertThat(scheduled()).isEqualTo(1);
+    }
+
+    private double scheduled() {
+        return meterRegistry.get("ventas.expiry.scheduled").gauge().value();
+    }
+
+    private static OrderStatusChangedEvent created(long id, PaymentMethod method) {
+        return new OrderStatusChangedEvent(order(id, method), null, OrderStatus.PENDING);
+    }
+
+    private static Order order(long id, PaymentMethod method) {
+        return Order.builder().id(id).status(OrderStatus.PENDING).paymentMethod(method)
+                .createdAt(LocalDateTime.now()).build();
+    }
+}
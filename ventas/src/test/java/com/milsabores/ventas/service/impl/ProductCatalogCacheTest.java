@@ -0,0 +1,131 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.entity.Clp;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Carga completa y refresco por delta de la caché de precios sobre la tabla productos
+ */
+@JdbcTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductCatalogCacheTest {
+
+    private static final LocalDateTime LOADED_AT = LocalDateTime.now().minusHours(1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductCatalogCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS productos (code VARCHAR(20) PRIMARY KEY, "
+                + "nombre VARCHAR(150), precioclp INT, stock INT, actualizado_en TIMESTAMP)");
+        jdbcTemplate.update("DELETE FROM productos");
+        insert("TC001", "Torta Cuadrada de Chocolate", 45000, LOADED_AT);
+        insert("PI001", "Pie de Limón", 12000, LOADED_AT);
+
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ProductCatalogCache(jdbcTemplate, meterRegistry);
+    }
+
+    @Test
+    void sinCargaElCatalogoNoEstaDisponible() {
+        assertThat(cache.products()).isNull();
+        assertThat(gauge()).isZero();
+    }
+
+    @Test
+    void recargaCompleta() {
+        cache.reload();
+
+        assertThat(cache.products()).containsOnlyKeys("TC001", "PI001");
+        assertThat(cache.products().get("TC001").price()).isEqualTo(Clp.of(45000));
+        assertThat(gauge()).isEqualTo(2);
+    }
+
+    @Test
+    void refrescoAplicaSoloLosCambios() {
+        cache.reload();
+        ProductCatalogCache.CatalogProduct unchanged = cache.products().get("PI001");
+        jdbcTemplate.update("UPDATE productos SET precioclp = 47000, actualizado_en = ? WHERE code = 'TC001'",
+                Timestamp.valueOf(LocalDateTime.now()));
+        insert("GA001", "Galletas de Avena", 3000, LocalDateTime.now());
+
+        cache.refresh();
+
+        Map<String, ProductCatalogCache.CatalogProduct> products = cache.products();
+        assertThat(products.get("TC001").price()).isEqualTo(Clp.of(47000));
+        assertThat(products.get("GA001").name()).isEqualTo("Galletas de Avena");
+        assertThat(products.get("PI001")).isSameAs(unchanged);
+    }
+
+    @Test
+    void refrescoSinCambiosDePrecioConservaLaFoto() {
+        cache.reload();
+        Map<String, ProductCatalogCache.CatalogProduct> before = cache.products();
+        // Un cambio de stock actualiza la marca pero no el precio ni el nombre
+        jdbcTemplate.update("UPDATE productos SET stock = 3, actualizado_en = ? WHERE code = 'TC001'",
+                Timestamp.valueOf(LocalDateTime.now()));
+
+        cache.refresh();
+
+        assertThat(cache.products()).isSameAs(before);
+    }
+
+    @Test
+    void lasBajasSeRecogenConLaRecargaCompleta() {
+        cache.reload();
+        jdbcTemplate.update("DELETE FROM productos WHERE code = 'PI001'");
+
+        cache.refresh();
+        assertThat(cache.products()).containsKey("PI001");
+
+        cache.reload();
+        assertThat(cache.products()).containsOnlyKeys("TC001");
+    }
+
+    @Test
+    void refrescoSinCargaPreviaHaceUnaRecargaCompleta() {
+        cache.refresh();
+
+        assertThat(cache.products()).containsOnlyKeys("TC001", "PI001");
+    }
+
+    @Test
+    void sinTablaConservaLaUltimaFoto() {
+        cache.reload();
+        Map<String, ProductCatalogCache.CatalogProduct> before = cache.products();
+        jdbcTemplate.execute("DROP TABLE productos");
+
+        cache.reload();
+        cache.refresh();
+
+        assertThat(cache.products()).isSameAs(before);
+    }
+
+    private void insert(String code, String name, int price, LocalDateTime updatedAt) {
+        jdbcTemplate.update("INSERT INTO productos (code, nombre, precioclp, stock, actualizado_en) VALUES (?, ?, ?, 10, ?)",
+                code, name, price, Timestamp.valueOf(updatedAt));
+    }
+
+    private double gauge() {
+        return meterRegistry.get("ventas.catalog.products").gauge().value();
+    }
+}
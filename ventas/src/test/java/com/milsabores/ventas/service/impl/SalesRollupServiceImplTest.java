@@ -0,0 +1,64 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.repository.SalesRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Límites del recálculo de rollups
+ */
+class SalesRollupServiceImplTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private SalesRollupRepository rollupRepository;
+    private PlatformTransactionManager transactionManager;
+    private SalesRollupServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepository = mock(SalesRollupRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        service = new SalesRollupServiceImpl(rollupRepository, transactionManager);
+        ReflectionTestUtils.setField(service, "backfillThreads", 2);
+    }
+
+    @Test
+    void rechazaRangoInvertidoOVacio() {
+        assertThatThrownBy(() -> service.backfill(FROM, FROM))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.backfill(FROM, FROM.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(rollupRepository, transactionManager);
+    }
+
+    @Test
+    void rechazaRangoMayorAlMaximo() {
+        assertThatThrownBy(() -> service.backfill(FROM, FROM.plusDays(SalesRollupServiceImpl.MAX_BACKFILL_DAYS).plusSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("366");
+        assertThatThrownBy(() -> service.backfill(LocalDateTime.MIN, LocalDateTime.MAX))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(rollupRepository, transactionManager);
+    }
+
+    @Test
+    void aceptaHastaElMaximo() {
+        assertThat(service.backfill(FROM, FROM.plusDays(SalesRollupServiceImpl.MAX_BACKFILL_DAYS)))
+                .isEqualTo(SalesRollupServiceImpl.MAX_BACKFILL_DAYS);
+        assertThat(service.backfill(FROM.plusHours(5), FROM.plusHours(7))).isEqualTo(1);
+    }
+}
@@ -0,0 +1,59 @@
+package com.milsabores.ventas.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ventana deslizante con altas y bajas de unidades
+ */
+class SlidingWindowCounterTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long NOW = 1_000 * MINUTE;
+
+    private final SlidingWindowCounter counter = new SlidingWindowCounter(60 * MINUTE, 60, 4);
+
+    @Test
+    void restaDelBucketDondeSeSumo() {
+        counter.add(0, 5, NOW - 10 * MINUTE, NOW);
+        counter.add(0, 3, NOW, NOW);
+
+        counter.add(0, -5, NOW - 10 * MINUTE, NOW);
+
+        assertThat(counter.totals(NOW)[0]).isEqualTo(3);
+    }
+
+    @Test
+    void noQuedaBajoCero() {
+        counter.add(1, 2, NOW, NOW);
+
+        counter.add(1, -7, NOW, NOW);
+        // Bucket sin ventas de ese instante: no hay nada que descontar
+        counter.add(1, -4, NOW - 5 * MINUTE, NOW);
+
+        assertThat(counter.totals(NOW)[1]).isZero();
+    }
+
+    @Test
+    void ignoraBajasFueraDeLaVentana() {
+        counter.add(2, 4, NOW - 90 * MINUTE, NOW);
+        counter.add(2, 4, NOW, NOW);
+
+        counter.add(2, -4, NOW - 90 * MINUTE, NOW);
+
+        assertThat(counter.totals(NOW)[2]).isEqualTo(4);
+    }
+
+    @Test
+    void laBajaNoReciclaUnBucketVencido() {
+        counter.add(3, 6, NOW - 60 * MINUTE, NOW - 60 * MINUTE);
+
+        // Mismo slot del anillo, una vuelta después: la baja no debe limpiar ni ocupar el bucket
+        counter.add(3, -1, NOW, NOW);
+
+        assertThat(counter.totals(NOW)[3]).isZero();
+        counter.add(3, 2, NOW, NOW);
+        assertThat(counter.totals(NOW)[3]).isEqualTo(2);
+    }
+}
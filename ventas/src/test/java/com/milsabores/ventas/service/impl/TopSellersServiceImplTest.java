@@ -0,0 +1,141 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.dto.TopProductDTO;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderItem;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.SalesWindow;
+import com.milsabores.ventas.event.OrderStatusBatchChangedEvent;
+import com.milsabores.ventas.event.OrderStatusChangedEvent;
+import com.milsabores.ventas.repository.OrderItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ranking de más vendidos ante aprobaciones y cancelaciones
+ */
+class TopSellersServiceImplTest {
+
+    private TopSellersServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TopSellersServiceImpl(mock(OrderItemRepository.class));
+        service.rebuild();
+    }
+
+    @Test
+    void cancelarUnaOrdenPagadaDescuentaSusUnidades() {
+        Order torta = order("TC001", 3);
+        Order kuchen = order("KU002", 2);
+        service.onStatusChanged(new OrderStatusChangedEvent(torta, OrderStatus.PENDING, OrderStatus.APPROVED));
+        service.onStatusChanged(new OrderStatusChangedEvent(kuchen, OrderStatus.PENDING, OrderStatus.APPROVED));
+
+        service.onStatusChanged(new OrderStatusChangedEvent(torta, OrderStatus.APPROVED, OrderStatus.CANCELLED));
+
+        for (SalesWindow window : SalesWindow.values()) {
+            assertThat(service.getTopSellers(window, 10))
+                    .extracting(TopProductDTO::getProductCode, TopProductDTO::getUnits)
+                    .containsExactly(tuple("KU002", 2L));
+        }
+    }
+
+    @Test
+    void cancelacionesEnLoteDesdeEstadosPagados() {
+        Order torta = order("TC001", 4);
+        service.onStatusChanged(new OrderStatusChangedEvent(torta, OrderStatus.PENDING, OrderStatus.APPROVED));
+        service.onStatusChanged(new OrderStatusChangedEvent(torta, OrderStatus.APPROVED, OrderStatus.PROCESSING));
+
+        service.onBatchStatusChanged(new OrderStatusBatchChangedEvent(List.of(
+                new OrderStatusChangedEvent(torta, OrderStatus.PROCESSING, OrderStatus.CANCELLED))));
+
+        assertThat(service.getTopSellers(SalesWindow.ALL, 10)).isEmpty();
+        assertThat(service.getTopSellers(SalesWindow.HOUR, 10)).isEmpty();
+    }
+
+    @Test
+    void cancelarUnaOrdenNoPagadaNoDescuenta() {
+        service.onStatusChanged(new OrderStatusChangedEvent(order("TC001", 1), OrderStatus.PENDING, OrderStatus.APPROVED));
+
+        service.onStatusChanged(new OrderStatusChangedEvent(order("TC001", 5), OrderStatus.PENDING, OrderStatus.CANCELLED));
+
+        assertThat(service.getTopSellers(SalesWindow.DAY, 10))
+                .extracting(TopProductDTO::getUnits)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void ventaConfirmadaDuranteLaReconstruccionYaIncluidaEnLaFotoNoSeDuplica() {
+        OrderItemRepository repository = mock(OrderItemRepository.class);
+        TopSellersServiceImpl rebuilt = new TopSellersServiceImpl(repository);
+        Order torta = order(10L, "TC001", 3);
+        when(repository.sumQuantityByProduct(anyCollection())).thenAnswer(inv -> {
+            rebuilt.onStatusChanged(new OrderStatusChangedEvent(torta, OrderStatus.PENDING, OrderStatus.APPROVED));
+            return List.<Object[]>of(new Object[]{"TC001", "Producto TC001", 3L});
+        });
+        when(repository.findOrderIdsWithStatus(anyCollection(), anyCollection())).thenReturn(List.of(10L));
+
+        rebuilt.rebuild();
+
+        assertThat(rebuilt.getTopSellers(SalesWindow.ALL, 10))
+                .extracting(TopProductDTO::getUnits)
+                .containsExactly(3L);
+    }
+
+    @Test
+    void ventaConfirmadaDuranteLaReconstruccionFueraDeLaFotoNoSePierde() {
+        OrderItemRepository repository = mock(OrderItemRepository.class);
+        TopSellersServiceImpl rebuilt = new TopSellersServiceImpl(repository);
+        Order torta = order(11L, "TC001", 3);
+        when(repository.findSoldSince(anyCollection(), any())).thenAnswer(inv -> {
+            rebuilt.onStatusChanged(new OrderStatusChangedEvent(torta, OrderStatus.PENDING, OrderStatus.APPROVED));
+            return List.of();
+        });
+        when(repository.findOrderIdsWithStatus(anyCollection(), anyCollection())).thenReturn(List.of());
+
+        rebuilt.rebuild();
+
+        for (SalesWindow window : SalesWindow.values()) {
+            assertThat(rebuilt.getTopSellers(window, 10))
+                    .extracting(TopProductDTO::getUnits)
+                    .containsExactly(3L);
+        }
+    }
+
+    @Test
+    void aprobadaYCanceladaDuranteLaReconstruccionNoCuenta() {
+        OrderItemRepository repository = mock(OrderItemRepository.class);
+        TopSellersServiceImpl rebuilt = new TopSellersServiceImpl(repository);
+        Order torta = order(12L, "TC001", 3);
+        when(repository.sumQuantityByProduct(anyCollection())).thenAnswer(inv -> {
+            rebuilt.onStatusChanged(new OrderStatusChangedEvent(torta, OrderStatus.PENDING, OrderStatus.APPROVED));
+            rebuilt.onStatusChanged(new OrderStatusChangedEvent(torta, OrderStatus.APPROVED, OrderStatus.CANCELLED));
+            return List.of();
+        });
+
+        rebuilt.rebuild();
+
+        assertThat(rebuilt.getTopSellers(SalesWindow.ALL, 10)).isEmpty();
+        assertThat(rebuilt.getTopSellers(SalesWindow.HOUR, 10)).isEmpty();
+    }
+
+    private static Order order(String code, int quantity) {
+        return order(null, code, quantity);
+    }
+
+    private static Order order(Long id, String code, int quantity) {
+        Order order = Order.builder().id(id).transactionDate(LocalDateTime.now()).build();
+        order.addItem(OrderItem.builder().productCode(code).productName("Producto " + code).quantity(quantity).build());
+        return order;
+    }
+}
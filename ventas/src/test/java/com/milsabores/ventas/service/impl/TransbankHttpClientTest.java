@@ -0,0 +1,163 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.config.RestTemplateConfig;
+import com.milsabores.ventas.config.TransbankProperties;
+import com.milsabores.ventas.exception.TransbankUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bulkhead, corte de circuito y timeouts del cliente de Transbank contra un WebPay local
+ */
+class TransbankHttpClientTest {
+
+    private TransbankStubServer webpay;
+    private SimpleMeterRegistry meterRegistry;
+    private TransbankProperties properties;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        webpay = new TransbankStubServer();
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new TransbankProperties();
+        TransbankProperties.Client client = properties.getClient();
+        client.setConnectTimeoutMs(500);
+        client.setReadTimeoutMs(2_000);
+        client.setMaxConcurrentCalls(2);
+        client.setBulkheadWaitMs(50);
+        client.setCircuitWindowSize(4);
+        client.setCircuitMinimumCalls(4);
+        client.setCircuitFailureRatePercent(50);
+        client.setCircuitOpenMs(60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        webpay.close();
+    }
+
+    @Test
+    void respuestaConLatenciaDentroDelTimeout() {
+        webpay.respond(200, "{\"status\":\"AUTHORIZED\"}").latency(100);
+
+        ResponseEntity<Map> response = newClient().exchange(TransbankHttpClient.Endpoint.STATUS,
+                webpay.baseUrl() + "/status", HttpMethod.GET, HttpEntity.EMPTY, Map.class);
+
+        assertThat(response.getBody()).containsEntry("status", "AUTHORIZED");
+        assertThat(timerCount("success")).isEqualTo(1);
+    }
+
+    @Test
+    void timeoutDeLecturaCuentaComoFalla() {
+        properties.getClient().setReadTimeoutMs(300);
+        webpay.latency(1_000);
+        TransbankHttpClient client = newClient();
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> call(client))
+                    .isInstanceOf(ResourceAccessException.class)
+                    .hasCauseInstanceOf(HttpTimeoutException.class);
+        }
+
+        assertThatThrownBy(() -> call(client)).isInstanceOf(TransbankUnavailableException.class);
+        assertThat(webpay.requests()).isEqualTo(4);
+        assertThat(timerCount("timeout")).isEqualTo(4);
+    }
+
+    @Test
+    void erroresDelServidorAbrenElCircuito() {
+        webpay.respond(503, "{}");
+        TransbankHttpClient client = newClient();
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> call(client)).isInstanceOf(HttpServerErrorException.class);
+        }
+
+        // Abierto: las siguientes llamadas se cortan sin llegar a WebPay
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> call(client)).isInstanceOf(TransbankUnavailableException.class);
+        }
+        assertThat(webpay.requests()).isEqualTo(4);
+        assertThat(timerCount("short_circuited")).isEqualTo(10);
+    }
+
+    @Test
+    void erroresDeNegocioNoAbrenElCircuito() {
+        webpay.respond(422, "{\"error_message\":\"Invalid token\"}");
+        TransbankHttpClient client = newClient();
+
+        for (int i = 0; i < 8; i++) {
+            assertThatThrownBy(() -> call(client))
+                    .isInstanceOfSatisfying(HttpClientErrorException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        }
+        assertThat(webpay.requests()).isEqualTo(8);
+    }
+
+    @Test
+    void elBulkheadLimitaLasLlamadasSimultaneas() throws Exception {
+        webpay.latency(400);
+        TransbankHttpClient client = newClient();
+        int callers = 6;
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> calls = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                calls.add(executor.submit(() -> {
+                    start.await();
+                    return call(client);
+                }));
+            }
+            start.countDown();
+
+            int rejected = 0;
+            for (Future<?> call : calls) {
+                try {
+                    call.get();
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(TransbankUnavailableException.class);
+                    rejected++;
+                }
+            }
+            assertThat(rejected).isEqualTo(callers - 2);
+        }
+        assertThat(webpay.maxInFlight()).isEqualTo(2);
+        assertThat(timerCount("rejected")).isEqualTo(callers - 2);
+    }
+
+    private TransbankHttpClient newClient() {
+        return new TransbankHttpClient(new RestTemplateConfig().restTemplate(properties), properties, meterRegistry);
+    }
+
+    private ResponseEntity<Map> call(TransbankHttpClient client) {
+        return client.exchange(TransbankHttpClient.Endpoint.STATUS, webpay.baseUrl() + "/status",
+                HttpMethod.GET, HttpEntity.EMPTY, Map.class);
+    }
+
+    private long timerCount(String outcome) {
+        return meterRegistry.get("transbank.client.requests").tag("outcome", outcome).timer().count();
+    }
+}
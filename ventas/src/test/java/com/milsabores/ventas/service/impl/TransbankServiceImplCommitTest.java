@@ -0,0 +1,174 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.config.RestTemplateConfig;
+import com.milsabores.ventas.config.TransbankProperties;
+import com.milsabores.ventas.dto.transbank.PaymentResultDTO;
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.CustomerInfo;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Respuesta al confirmar un pago según el estado en que quedó la orden
+ * Un cobro aprobado para una orden que ya no admite pagos no se informa como aprobado: se reversa
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({TransbankServiceImpl.class, OrderTransitionExecutor.class, TransbankServiceImplCommitTest.WebPayStub.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransbankServiceImplCommitTest {
+
+    private static final String REFUNDS = "/refunds";
+
+    private static final TransbankStubServer WEBPAY = startStub();
+
+    @Autowired
+    private TransbankServiceImpl transbankService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @DynamicPropertySource
+    static void webpayProperties(DynamicPropertyRegistry registry) {
+        registry.add("transbank.webpay.api-url-integration", WEBPAY::baseUrl);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        WEBPAY.close();
+    }
+
+    @Test
+    void cobroAprobadoParaOrdenCanceladaSeReversa() {
+        orderRepository.save(order("CANCEL-1", OrderStatus.CANCELLED, null));
+
+        PaymentResultDTO result = transbankService.commitTransaction("tok-CANCEL-1");
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getOrderStatus()).isEqualTo("CANCELLED");
+        assertThat(result.getMessage()).contains("reversado");
+        assertThat(WEBPAY.calls()).contains("POST /rswebpaytransaction/api/webpay/v1.2/transactions/tok-CANCEL-1/refunds");
+
+        Order stored = orderRepository.findByBuyOrder("CANCEL-1").orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(stored.getErrorMessage()).contains("1213").contains("reversado");
+    }
+
+    @Test
+    void cobroAprobadoSinOrdenSeReversa() {
+        PaymentResultDTO result = transbankService.commitTransaction("tok-MISSING-1");
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getOrderStatus()).isNull();
+        assertThat(WEBPAY.calls()).anyMatch(call -> call.endsWith("tok-MISSING-1" + REFUNDS));
+    }
+
+    @Test
+    void pagoAplicadoInformaElEstadoGuardado() {
+        orderRepository.save(order("PAY-1", OrderStatus.PENDING, null));
+
+        PaymentResultDTO result = transbankService.commitTransaction("tok-PAY-1");
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getOrderStatus()).isEqualTo("APPROVED");
+        assertThat(WEBPAY.calls()).noneMatch(call -> call.endsWith("tok-PAY-1" + REFUNDS));
+        assertThat(orderRepository.findByBuyOrder("PAY-1").orElseThrow().getStatus()).isEqualTo(OrderStatus.APPROVED);
+    }
+
+    @Test
+    void confirmacionTardiaDeUnCobroYaRegistradoNoSeReversa() {
+        orderRepository.save(order("LATE-1", OrderStatus.PROCESSING, "1213"));
+
+        PaymentResultDTO result = transbankService.commitTransaction("tok-LATE-1");
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getOrderStatus()).isEqualTo("PROCESSING");
+        assertThat(WEBPAY.calls()).noneMatch(call -> call.endsWith("tok-LATE-1" + REFUNDS));
+    }
+
+    private static TransbankStubServer startStub() {
+        try {
+            return new TransbankStubServer()
+                    .respond(200, path -> {
+                        if (path.endsWith(REFUNDS)) {
+                            return "{\"type\":\"REVERSED\"}";
+                        }
+                        String buyOrder = path.substring(path.lastIndexOf("tok-") + 4);
+                        return "{\"status\":\"AUTHORIZED\",\"response_code\":0,\"buy_order\":\"" + buyOrder + "\","
+                                + "\"amount\":20000,\"authorization_code\":\"1213\","
+                                + "\"transaction_date\":\"2024-11-30T10:15:30.000Z\"}";
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Order order(String buyOrder, OrderStatus status, String authorizationCode) {
+        return Order.builder()
+                .buyOrder(buyOrder)
+                .status(status)
+                .paymentMethod(PaymentMethod.WEBPAY)
+                .amount(Clp.of(20000))
+                .discountAmount(Clp.ZERO)
+                .finalAmount(Clp.of(20000))
+                .authorizationCode(authorizationCode)
+                .customerInfo(CustomerInfo.builder()
+                        .nombre("Ana Pérez").email("cliente@duoc.cl").telefono("+56911111111")
+                        .direccion("Av. Siempre Viva 123").comuna("Providencia").ciudad("Santiago")
+                        .build())
+                .build();
+    }
+
+    @TestConfiguration
+    static class WebPayStub {
+
+        @Bean
+        TransbankProperties transbankProperties() {
+            return new TransbankProperties();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        RestTemplate restTemplate(TransbankProperties transbankProperties) {
+            return new RestTemplateConfig().restTemplate(transbankProperties);
+        }
+
+        @Bean
+        TransbankHttpClient transbankHttpClient(RestTemplate restTemplate, TransbankProperties transbankProperties,
+                                                MeterRegistry meterRegistry) {
+            return new TransbankHttpClient(restTemplate, transbankProperties, meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.config.RestTemplateConfig;
+import com.milsabores.ventas.config.TransbankProperties;
+import com.milsabores.ventas.dto.transbank.InitPaymentResponseDTO;
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.CustomerInfo;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.exception.OrderNotPayableException;
+import com.milsabores.ventas.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Inicio de pago según el estado de la orden
+ * El token WebPay sólo se asocia a una orden pendiente: una orden que la expiración ya canceló
+ * no recibe la URL de pago
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({TransbankServiceImpl.class, OrderTransitionExecutor.class, TransbankServiceImplInitTest.WebPayStub.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransbankServiceImplInitTest {
+
+    private static final TransbankStubServer WEBPAY = startStub();
+
+    @Autowired
+    private TransbankServiceImpl transbankService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @DynamicPropertySource
+    static void webpayProperties(DynamicPropertyRegistry registry) {
+        registry.add("transbank.webpay.api-url-integration", WEBPAY::baseUrl);
+    }
+
+    @AfterEach
+    void tearDown() {
+        WEBPAY.onRequest(() -> { });
+        orderRepository.deleteAll();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        WEBPAY.close();
+    }
+
+    @Test
+    void ordenPendienteRecibeTokenYUrl() {
+        orderRepository.save(order("INIT-1", OrderStatus.PENDING));
+
+        InitPaymentResponseDTO response = transbankService.initTransaction("INIT-1", "s-1");
+
+        assertThat(response.getRedirectUrl()).isEqualTo("https://webpay.test/init?token_ws=tok-init");
+        // Se cobra el monto final guardado (20000 - 5000), no un monto enviado por el cliente
+        assertThat(WEBPAY.bodies().get(WEBPAY.calls().lastIndexOf(
+                "POST /rswebpaytransaction/api/webpay/v1.2/transactions"))).contains("\"amount\":15000");
+        assertThat(orderRepository.findByBuyOrder("INIT-1").orElseThrow().getWebpayToken()).isEqualTo("tok-init");
+    }
+
+    @Test
+    void ordenCanceladaNoRecibeTokenNiUrl() {
+        orderRepository.save(order("INIT-2", OrderStatus.CANCELLED));
+
+        assertThatThrownBy(() -> transbankService.initTransaction("INIT-2", "s-2"))
+                .isInstanceOf(OrderNotPayableException.class);
+        assertThat(orderRepository.findByBuyOrder("INIT-2").orElseThrow().getWebpayToken()).isNull();
+    }
+
+    @Test
+    void ordenInexistenteNoRecibeUrl() {
+        int calls = WEBPAY.requests();
+
+        assertThatThrownBy(() -> transbankService.initTransaction("INIT-404", "s-3"))
+                .isInstanceOf(OrderNotPayableException.class);
+        assertThat(WEBPAY.requests()).isEqualTo(calls);
+    }
+
+    @Test
+    void ordenCanceladaMientrasSeCreaLaTransaccionNoRecibeUrl() {
+        orderRepository.save(order("INIT-3", OrderStatus.PENDING));
+        // La expiración de pendientes cancela la orden mientras WebPay crea la transacción
+        WEBPAY.onRequest(() -> {
+            Order order = orderRepository.findByBuyOrder("INIT-3").orElseThrow();
+            order.setStatus(OrderStatus.CANCELLED);
+            orderRepository.save(order);
+        });
+
+        assertThatThrownBy(() -> transbankService.initTransaction("INIT-3", "s-4"))
+                .isInstanceOf(OrderNotPayableException.class);
+        Order stored = orderRepository.findByBuyOrder("INIT-3").orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(stored.getWebpayToken()).isNull();
+    }
+
+    private static TransbankStubServer startStub() {
+        try {
+            return new TransbankStubServer()
+                    .respond(200, "{\"token\":\"tok-init\",\"url\":\"https://webpay.test/init\"}");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Order order(String buyOrder, OrderStatus status) {
+        return Order.builder()
+                .buyOrder(buyOrder)
+                .status(status)
+                .paymentMethod(PaymentMethod.WEBPAY)
+                .amount(Clp.of(20000))
+                .discountAmount(Clp.of(5000))
+                .finalAmount(Clp.of(15000))
+                .customerInfo(CustomerInfo.builder()
+                        .nombre("Ana Pérez").email("cliente@duoc.cl").telefono("+56911111111")
+                        .direccion("Av. Siempre Viva 123").comuna("Providencia").ciudad("Santiago")
+                        .build())
+                .build();
+    }
+
+    @TestConfiguration
+    static class WebPayStub {
+
+        @Bean
+        TransbankProperties transbankProperties() {
+            return new TransbankProperties();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        RestTemplate restTemplate(TransbankProperties transbankProperties) {
+            return new RestTemplateConfig().restTemplate(transbankProperties);
+        }
+
+        @Bean
+        TransbankHttpClient transbankHttpClient(RestTemplate restTemplate, TransbankProperties transbankProperties,
+                                                MeterRegistry meterRegistry) {
+            return new TransbankHttpClient(restTemplate, transbankProperties, meterRegistry);
+        }
+    }
+}
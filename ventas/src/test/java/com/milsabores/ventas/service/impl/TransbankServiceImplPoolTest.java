@@ -0,0 +1,193 @@
+package com.milsabores.ventas.service.impl;
+
+import com.milsabores.ventas.config.RestTemplateConfig;
+import com.milsabores.ventas.config.TransbankProperties;
+import com.milsabores.ventas.dto.transbank.PaymentResultDTO;
+import com.milsabores.ventas.entity.Clp;
+import com.milsabores.ventas.entity.CustomerInfo;
+import com.milsabores.ventas.entity.Order;
+import com.milsabores.ventas.entity.OrderStatus;
+import com.milsabores.ventas.entity.PaymentMethod;
+import com.milsabores.ventas.repository.OrderRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.RestTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Uso del pool de conexiones al confirmar pagos contra un WebPay lento
+ * Con un pool de 2 conexiones y WebPay respondiendo en 300 ms, 20 confirmaciones simultáneas
+ * sólo terminan a tiempo si ninguna retiene una conexión mientras espera a Transbank
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Slf4j
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ventas-pool;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=1000"
+})
+@Import({TransbankServiceImpl.class, OrderTransitionExecutor.class, TransbankServiceImplPoolTest.WebPayStub.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransbankServiceImplPoolTest {
+
+    private static final int PAYMENTS = 20;
+    private static final long WEBPAY_LATENCY_MS = 300;
+
+    private static final TransbankStubServer WEBPAY = startStub();
+
+    @Autowired
+    private TransbankServiceImpl transbankService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @DynamicPropertySource
+    static void webpayProperties(DynamicPropertyRegistry registry) {
+        registry.add("transbank.webpay.api-url-integration", WEBPAY::baseUrl);
+        registry.add("transbank.webpay.client.read-timeout-ms", () -> 5_000);
+        registry.add("transbank.webpay.client.max-concurrent-calls", () -> PAYMENTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        WEBPAY.close();
+    }
+
+    @Test
+    void confirmarNoRetieneConexionesMientrasEsperaATransbank() throws Exception {
+        for (int n = 0; n < PAYMENTS; n++) {
+            orderRepository.save(pendingOrder("POOL-" + n));
+        }
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        List<Integer> activeDuringCall = new CopyOnWriteArrayList<>();
+        WEBPAY.onRequest(() -> activeDuringCall.add(pool.getActiveConnections()));
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PaymentResultDTO>> commits = new ArrayList<>();
+        long elapsedMs;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int n = 0; n < PAYMENTS; n++) {
+                String token = "tok-" + n;
+                commits.add(executor.submit(() -> {
+                    start.await();
+                    return transbankService.commitTransaction(token);
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<PaymentResultDTO> commit : commits) {
+                assertThat(commit.get(30, TimeUnit.SECONDS).isSuccess()).isTrue();
+            }
+            elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        }
+
+        log.info("{} confirmaciones con pool de 2 y WebPay a {} ms: {} ms, conexiones activas en WebPay {}",
+                PAYMENTS, WEBPAY_LATENCY_MS, elapsedMs, activeDuringCall);
+
+        assertThat(activeDuringCall).hasSize(PAYMENTS).containsOnly(0);
+        assertThat(pool.getActiveConnections()).isZero();
+        // Reteniendo la conexión serían al menos 20 * 300 / 2 = 3 s
+        assertThat(elapsedMs).isLessThan(PAYMENTS * WEBPAY_LATENCY_MS / 2);
+        assertThat(orderRepository.findAll()).hasSize(PAYMENTS)
+                .allSatisfy(order -> assertThat(order.getStatus()).isEqualTo(OrderStatus.APPROVED));
+    }
+
+    private static TransbankStubServer startStub() {
+        try {
+            return new TransbankStubServer()
+                    .latency(WEBPAY_LATENCY_MS)
+                    .respond(200, path -> {
+                        String n = path.substring(path.lastIndexOf("tok-") + 4);
+                        return "{\"status\":\"AUTHORIZED\",\"response_code\":0,\"buy_order\":\"POOL-" + n + "\","
+                                + "\"amount\":20000,\"authorization_code\":\"1213\","
+                                + "\"transaction_date\":\"2024-11-30T10:15:30.000Z\"}";
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Order pendingOrder(String buyOrder) {
+        return Order.builder()
+                .buyOrder(buyOrder)
+                .status(OrderStatus.PENDING)
+                .paymentMethod(PaymentMethod.WEBPAY)
+                .amount(Clp.of(20000))
+                .discountAmount(Clp.ZERO)
+                .finalAmount(Clp.of(20000))
+                .customerInfo(CustomerInfo.builder()
+                        .nombre("Ana Pérez").email("cliente@duoc.cl").telefono("+56911111111")
+                        .direccion("Av. Siempre Viva 123").comuna("Providencia").ciudad("Santiago")
+                        .build())
+                .build();
+    }
+
+    @TestConfiguration
+    static class WebPayStub {
+
+        @Bean
+        TransbankProperties transbankProperties() {
+            return new TransbankProperties();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        RestTemplate restTemplate(TransbankProperties transbankProperties) {
+            return new RestTemplateConfig().restTemplate(transbankProperties);
+        }
+
+        @Bean
+        TransbankHttpClient transbankHttpClient(RestTemplate restTemplate, TransbankProperties transbankProperties,
+                                                MeterRegistry meterRegistry) {
+            return new TransbankHttpClient(restTemplate, transbankProperties, meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.milsabores.ventas.service.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * WebPay local para los tests: responde con el estado, cuerpo y latencia configurados
+ * y registra las llamadas recibidas y cuántas atendió a la vez como máximo
+ */
+class TransbankStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private volatile int status = 200;
+    private volatile Function<String, String> body = path -> "{}";
+    private volatile long latencyMs;
+    private volatile Runnable onRequest = () -> { };
+
+    TransbankStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    TransbankStubServer respond(int status, String body) {
+        return respond(status, path -> body);
+    }
+
+    /**
+     * Respuesta calculada a partir de la ruta de la solicitud (p.ej. según el token)
+     */
+    TransbankStubServer respond(int status, Function<String, String> body) {
+        this.status = status;
+        this.body = body;
+        return this;
+    }
+
+    /**
+     * Acción que se ejecuta al recibir cada solicitud, mientras el cliente espera la respuesta
+     */
+    TransbankStubServer onRequest(Runnable onRequest) {
+        this.onRequest = onRequest;
+        return this;
+    }
+
+    TransbankStubServer latency(long latencyMs) {
+        this.latencyMs = latencyMs;
+        return this;
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    /**
+     * Llamadas recibidas como "MÉTODO ruta"
+     */
+    List<String> calls() {
+        return calls;
+    }
+
+    /**
+     * Cuerpos de las solicitudes recibidas, en el mismo orden que {@link #calls()}
+     */
+    List<String> bodies() {
+        return bodies;
+    }
+
+    int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        calls.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            onRequest.run();
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+            byte[] response = body.apply(exchange.getRequestURI().getPath()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // El cliente cortó por timeout
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}